@@ -1,11 +1,18 @@
 package com.kylerdeggs.javaconnected.configuration;
 
+import com.amazonaws.HttpMethod;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectTaggingRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.kylerdeggs.javaconnected.web.dtos.MediaUpload;
 import org.apache.tika.mime.MimeType;
 import org.apache.tika.mime.MimeTypeException;
 import org.apache.tika.mime.MimeTypes;
@@ -13,24 +20,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.NoSuchElementException;
 
 /**
- * Configuration class and methods that are enabled for AWS.
+ * Configuration class and methods that are enabled for AWS. Media is streamed to S3 and uploaded in parallel parts
+ * once it is larger than {@code aws.upload.multipart-threshold}. Clients can also upload media directly to S3 with a
+ * presigned URL that is scoped to their own key prefix. Presigned uploads are tagged with
+ * {@value #PENDING_UPLOAD_TAGGING} until a post claims them, so a bucket lifecycle rule can expire the uploads that
+ * were never used.
  *
  * @author Kyler Deggs
- * @version 1.0.1
+ * @version 1.6.0
  */
 @Configuration
 public class AWSConfig {
+    public static final String PENDING_UPLOAD_TAGGING = "upload=pending";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AWSConfig.class);
     private final MimeTypes types = MimeTypes.getDefaultMimeTypes();
 
     private AmazonS3 s3Client;
+    private S3StreamUploader uploader;
 
     @Value("${aws.bucket.name}")
     private String bucketName;
@@ -41,6 +65,21 @@ public class AWSConfig {
     @Value("${aws.credentials.secret-key}")
     private String secretKey;
 
+    @Value("${aws.upload.multipart-threshold}")
+    private DataSize multipartThreshold;
+
+    @Value("${aws.upload.part-size}")
+    private DataSize partSize;
+
+    @Value("${aws.upload.max-parts-in-flight}")
+    private int maxPartsInFlight;
+
+    @Value("${aws.upload.presign-expiration}")
+    private Duration presignExpiration;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxMediaSize;
+
     @PostConstruct
     private void initializeAmazon() {
         AWSCredentials credentials = new BasicAWSCredentials(accessKey, secretKey);
@@ -49,10 +88,17 @@ public class AWSConfig {
                 .withCredentials(new AWSStaticCredentialsProvider(credentials))
                 .withRegion(Regions.US_EAST_1)
                 .build();
+        uploader = new S3StreamUploader(s3Client, multipartThreshold.toBytes(), Math.toIntExact(partSize.toBytes()),
+                maxPartsInFlight);
 
         LOGGER.info("AWS S3 client has been built");
     }
 
+    @PreDestroy
+    private void shutdownUploader() {
+        uploader.shutdown();
+    }
+
     /**
      * Uploads a image or video to the specified S3 bucket.
      *
@@ -63,21 +109,114 @@ public class AWSConfig {
      * @throws MimeTypeException Trying to upload a restricted file type
      */
     public String processUpload(String userId, MultipartFile media) throws IOException, MimeTypeException {
-        LOGGER.info("Processing media upload for user ID: " + userId);
-        MimeType currentType = types.forName(media.getContentType());
-        String key;
+        try (InputStream input = media.getInputStream()) {
+            return processUpload(userId, timestampedName(userId), input, media.getSize(), media.getContentType());
+        }
+    }
 
-        if (currentType.toString().contains("image") || currentType.toString().contains("video")) {
-            String fileName = LocalDateTime.now().toString() + "-" + userId.toLowerCase() + currentType.getExtension();
-            key = userId.toLowerCase() + "/" + fileName;
+    /**
+     * Uploads a image or video from a local file to the specified S3 bucket. The location of the media is derived
+     * from the upload ID, so uploading the same media again overwrites the same object.
+     *
+     * @param userId      User ID that corresponds to the upload
+     * @param uploadId    ID that identifies the upload below the prefix of the user
+     * @param media       File that needs to be uploaded
+     * @param contentType Content type of the media
+     * @return A string that represents the location of the media in the bucket
+     * @throws IOException       Media file processing error
+     * @throws MimeTypeException Trying to upload a restricted file type
+     */
+    public String processUpload(String userId, String uploadId, Path media, String contentType)
+            throws IOException, MimeTypeException {
+        try (InputStream input = Files.newInputStream(media)) {
+            return processUpload(userId, uploadId, input, Files.size(media), contentType);
+        }
+    }
 
-            s3Client.putObject(bucketName, key, media.getInputStream(), null);
-            LOGGER.info("Media has been added to S3 at s3://" + bucketName + "/" + key);
-        } else
+    /**
+     * Parses the content type of media and rejects everything but images and videos.
+     *
+     * @param contentType Content type of the media
+     * @return The parsed content type
+     * @throws MimeTypeException             The content type could not be parsed
+     * @throws UnsupportedOperationException Trying to upload a restricted file type
+     */
+    public MimeType verifyMediaType(String contentType) throws MimeTypeException {
+        MimeType currentType = types.forName(contentType);
+
+        if (!currentType.toString().contains("image") && !currentType.toString().contains("video"))
             throw new UnsupportedOperationException("The media type must be an image or video");
 
+        return currentType;
+    }
 
-        return key;
+    /**
+     * Creates a presigned URL that lets a user upload one image or video directly to the S3 bucket. The URL is only
+     * valid for a PUT with the specified content type and tagging to a new key below the prefix of the user.
+     *
+     * @param userId      User ID that corresponds to the upload
+     * @param contentType Content type of the media
+     * @return Location of the media and the URL to upload it to
+     * @throws MimeTypeException Trying to upload a restricted file type
+     */
+    public MediaUpload presignUpload(String userId, String contentType) throws MimeTypeException {
+        MimeType currentType = verifyMediaType(contentType);
+        String key = mediaKey(userId, timestampedName(userId), currentType);
+        Date expiration = Date.from(Instant.now().plus(presignExpiration));
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, key, HttpMethod.PUT)
+                .withExpiration(expiration)
+                .withContentType(currentType.toString());
+
+        request.putCustomRequestHeader(Headers.S3_TAGGING, PENDING_UPLOAD_TAGGING);
+        LOGGER.info("Presigned a media upload for user ID: " + userId + " to s3://" + bucketName + "/" + key);
+        return new MediaUpload(key, s3Client.generatePresignedUrl(request).toString(), PENDING_UPLOAD_TAGGING,
+                LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Verifies with a HEAD request that media has been uploaded by a user. Media that exceeds the maximum file size
+     * is deleted.
+     *
+     * @param userId User ID that corresponds to the upload
+     * @param key    Location of the media in the bucket
+     * @throws SecurityException             The media is not below the prefix of the user
+     * @throws NoSuchElementException        The media does not exist
+     * @throws UnsupportedOperationException The media is not an image or video
+     * @throws IllegalArgumentException      The media exceeds the maximum file size
+     */
+    public void verifyUpload(String userId, String key) {
+        if (!key.startsWith(userId.toLowerCase() + "/") || key.contains(".."))
+            throw new SecurityException("The media at " + key + " does not belong to the user with ID: " + userId);
+
+        ObjectMetadata metadata;
+
+        try {
+            metadata = s3Client.getObjectMetadata(bucketName, key);
+        } catch (AmazonS3Exception exception) {
+            if (exception.getStatusCode() == 404)
+                throw new NoSuchElementException("Media at " + key + " does not exist");
+            throw exception;
+        }
+
+        String contentType = metadata.getContentType();
+
+        if (contentType == null || !(contentType.startsWith("image/") || contentType.startsWith("video/")))
+            throw new UnsupportedOperationException("The media type must be an image or video");
+        if (metadata.getContentLength() > maxMediaSize.toBytes()) {
+            deleteMedia(key);
+            throw new IllegalArgumentException("The media at " + key + " exceeds the maximum size of "
+                    + maxMediaSize);
+        }
+    }
+
+    /**
+     * Removes the pending tag from uploaded media once a post that uses it has been saved, so the lifecycle rule for
+     * unused uploads does not expire it. Media without the tag is left unchanged.
+     *
+     * @param key Location of the media in the bucket
+     */
+    public void claimUpload(String key) {
+        s3Client.deleteObjectTagging(new DeleteObjectTaggingRequest(bucketName, key));
     }
 
     /**
@@ -88,4 +227,50 @@ public class AWSConfig {
     public void deleteMedia(String key) {
         s3Client.deleteObject(bucketName, key);
     }
+
+    /**
+     * Helper method that streams media to a key below the prefix of a user.
+     *
+     * @param userId        User ID that corresponds to the upload
+     * @param name          File name of the media without its extension
+     * @param input         Content of the media
+     * @param contentLength Size of the media
+     * @param contentType   Content type of the media
+     * @return Location of the media in the bucket
+     * @throws IOException       Media file processing error
+     * @throws MimeTypeException Trying to upload a restricted file type
+     */
+    private String processUpload(String userId, String name, InputStream input, long contentLength,
+                                 String contentType) throws IOException, MimeTypeException {
+        LOGGER.info("Processing media upload for user ID: " + userId);
+        MimeType currentType = verifyMediaType(contentType);
+        String key = mediaKey(userId, name, currentType);
+
+        uploader.upload(bucketName, key, input, contentLength, currentType.toString());
+        LOGGER.info("Media has been added to S3 at s3://" + bucketName + "/" + key);
+
+        return key;
+    }
+
+    /**
+     * Helper method that creates a key below the prefix of a user.
+     *
+     * @param userId      User ID that corresponds to the upload
+     * @param name        File name of the media without its extension
+     * @param currentType Content type of the media
+     * @return Location of the media in the bucket
+     */
+    private static String mediaKey(String userId, String name, MimeType currentType) {
+        return userId.toLowerCase() + "/" + name + currentType.getExtension();
+    }
+
+    /**
+     * Helper method that creates a new file name from the current time for media that is uploaded once.
+     *
+     * @param userId User ID that corresponds to the upload
+     * @return File name of the media without its extension
+     */
+    private static String timestampedName(String userId) {
+        return LocalDateTime.now().toString() + "-" + userId.toLowerCase();
+    }
 }
@@ -0,0 +1,230 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.kylerdeggs.javaconnected.service.PostService;
+import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Converts queue messages to a compact binary format. Every body starts with a format version and a type tag
+ * followed by the fields of the message, where numbers are written as variable length integers and strings as
+ * their length followed by their UTF-8 bytes. Messages of other types, and messages that were sent as serialized
+ * Java objects before this format existed, are handled by a {@link SimpleMessageConverter}. The request ID of a
+ * post is written last and is optional, so posts written before it existed are still read.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+public class BinaryMessageConverter implements MessageConverter {
+    public static final String CONTENT_TYPE = "application/x-connected-binary";
+    static final byte VERSION = 1;
+
+    private static final byte POST = 1;
+    private static final byte COMMENT = 2;
+    private static final byte LIKE = 3;
+    private static final byte ID = 4;
+
+    private final MessageConverter fallbackConverter = new SimpleMessageConverter();
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        byte[] body = encode(object);
+
+        if (body == null)
+            return fallbackConverter.toMessage(object, messageProperties);
+
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (!CONTENT_TYPE.equals(message.getMessageProperties().getContentType()))
+            return fallbackConverter.fromMessage(message);
+
+        return decode(message.getBody());
+    }
+
+    /**
+     * Encodes a message payload.
+     *
+     * @param object Message payload
+     * @return The encoded payload or null if the type is not supported
+     */
+    public byte[] encode(Object object) {
+        Writer writer = new Writer();
+
+        writer.writeByte(VERSION);
+        if (object instanceof PostDto) {
+            PostDto postDto = (PostDto) object;
+
+            writer.writeByte(POST);
+            writer.writeString(postDto.getAuthorId());
+            writer.writeString(postDto.getTitle());
+            writer.writeString(postDto.getMediaLocation());
+            writer.writeString(postDto.getCaption());
+            writer.writeString(postDto.getRequestId());
+        } else if (object instanceof CommentDto) {
+            CommentDto commentDto = (CommentDto) object;
+
+            writer.writeByte(COMMENT);
+            writer.writeVarLong(commentDto.getPostId());
+            writer.writeString(commentDto.getAuthorId());
+            writer.writeString(commentDto.getCaption());
+        } else if (object instanceof PostService.LikeDto) {
+            PostService.LikeDto likeDto = (PostService.LikeDto) object;
+
+            writer.writeByte(LIKE);
+            writer.writeVarLong(likeDto.getPostId());
+            writer.writeString(likeDto.getUserId());
+            writer.writeByte(likeDto.isAddLike() ? 1 : 0);
+        } else if (object instanceof Long) {
+            writer.writeByte(ID);
+            writer.writeVarLong((Long) object);
+        } else
+            return null;
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a message payload.
+     *
+     * @param body Encoded payload
+     * @return The decoded payload
+     * @throws MessageConversionException The body has an unknown version or type or is truncated
+     */
+    public Object decode(byte[] body) {
+        Reader reader = new Reader(body);
+        byte version = reader.readByte();
+
+        if (version != VERSION)
+            throw new MessageConversionException("Messages of format version " + version + " are not supported");
+
+        byte type = reader.readByte();
+
+        switch (type) {
+            case POST:
+                PostDto postDto = new PostDto(reader.readString(), reader.readString(), reader.readString(),
+                        reader.readString());
+
+                if (reader.hasRemaining())
+                    postDto.setRequestId(reader.readString());
+                return postDto;
+            case COMMENT:
+                return new CommentDto(reader.readVarLong(), reader.readString(), reader.readString());
+            case LIKE:
+                return new PostService.LikeDto(reader.readVarLong(), reader.readString(), reader.readByte() != 0);
+            case ID:
+                return reader.readVarLong();
+            default:
+                throw new MessageConversionException("Messages of type " + type + " are not supported");
+        }
+    }
+
+    private static class Writer {
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        /**
+         * Writes the length of a string plus one so that 0 can stand for null, followed by its UTF-8 bytes.
+         *
+         * @param value String to write or null
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarLong(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private boolean hasRemaining() {
+            return position < bytes.length;
+        }
+
+        private byte readByte() {
+            if (position >= bytes.length)
+                throw new MessageConversionException("The message body ended unexpectedly");
+
+            return bytes[position++];
+        }
+
+        private long readVarLong() {
+            long value = 0;
+
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte current = readByte();
+
+                value |= (long) (current & 0x7F) << shift;
+                if (current >= 0)
+                    return value;
+            }
+
+            throw new MessageConversionException("The message body contains a malformed number");
+        }
+
+        private String readString() {
+            long encodedLength = readVarLong();
+
+            if (encodedLength == 0)
+                return null;
+            if (encodedLength < 0 || encodedLength - 1 > bytes.length - position)
+                throw new MessageConversionException("The message body ended unexpectedly");
+
+            int length = (int) encodedLength - 1;
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+
+            position += length;
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.service.UserOrdinalSet;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration class that declares the in process caches. The hit, miss, and eviction counters of the caches are
+ * published as the {@code cache.*} metrics of the {@code users}, {@code likes}, and {@code tags} caches.
+ *
+ * @author Kyler Deggs
+ * @version 1.4.0
+ */
+@Configuration
+public class CacheConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheConfig.class);
+
+    @Value("${cache.user.maximum-size}")
+    private long userMaximumSize;
+
+    @Value("${cache.user.expire-after-write}")
+    private Duration userExpireAfterWrite;
+
+    @Value("${cache.likes.maximum-size}")
+    private long likesMaximumSize;
+
+    @Value("${cache.likes.expire-after-write}")
+    private Duration likesExpireAfterWrite;
+
+    @Value("${cache.tags.maximum-size}")
+    private long tagsMaximumSize;
+
+    @Value("${cache.tags.expire-after-write}")
+    private Duration tagsExpireAfterWrite;
+
+    @Bean
+    public Cache<String, User> userCache() {
+        LOGGER.info("Creating user cache with a maximum size of " + userMaximumSize + " and an expiration of "
+                + userExpireAfterWrite);
+        return Caffeine.newBuilder()
+                .maximumSize(userMaximumSize)
+                .expireAfterWrite(userExpireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public Cache<Long, UserOrdinalSet> likeCache() {
+        LOGGER.info("Creating like cache with a maximum size of " + likesMaximumSize + " and an expiration of "
+                + likesExpireAfterWrite);
+        return Caffeine.newBuilder()
+                .maximumSize(likesMaximumSize)
+                .expireAfterWrite(likesExpireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public Cache<String, String> tagCache() {
+        LOGGER.info("Creating tag cache with a maximum size of " + tagsMaximumSize + " and an expiration of "
+                + tagsExpireAfterWrite);
+        return Caffeine.newBuilder()
+                .maximumSize(tagsMaximumSize)
+                .expireAfterWrite(tagsExpireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(Cache<String, User> userCache, Cache<Long, UserOrdinalSet> likeCache,
+                                    Cache<String, String> tagCache) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, userCache, "users");
+            CaffeineCacheMetrics.monitor(registry, likeCache, "likes");
+            CaffeineCacheMetrics.monitor(registry, tagCache, "tags");
+        };
+    }
+}
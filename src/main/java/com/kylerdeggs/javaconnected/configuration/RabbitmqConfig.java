@@ -1,22 +1,38 @@
 package com.kylerdeggs.javaconnected.configuration;
 
+import com.kylerdeggs.javaconnected.service.PostPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Configuration class for RabbitMQ that declares the exchange/queues and binds it together.
+ * Configuration class for RabbitMQ that declares the exchange/queues, binds it together, and creates the batch
+ * listener container factory and the binary message converter. Comments, comment deletions, and likes are spread
+ * over {@code amqp.partitions} queues each that are assigned by post ID. The queues are durable so confirmed messages
+ * survive a broker restart. RabbitMQ is only configured when it is the selected message transport.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.6.0
  */
 @Configuration
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "rabbitmq", matchIfMissing = true)
 public class RabbitmqConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger(RabbitmqConfig.class);
 
@@ -38,34 +54,60 @@ public class RabbitmqConfig {
     @Value("${amqp.queue.like-name}")
     private String likeQueueName;
 
-    @Bean
-    public Queue postQueue() {
-        LOGGER.info("Creating queue " + postQueueName);
-        return new Queue(postQueueName, false);
-    }
+    @Value("${amqp.partitions}")
+    private int partitions;
+
+    @Value("${amqp.batch.size}")
+    private int batchSize;
 
+    @Value("${amqp.batch.receive-timeout}")
+    private Duration batchReceiveTimeout;
+
+    /**
+     * Creates the converter that is used by the RabbitMQ template and every listener container to write queue
+     * messages in a compact binary format.
+     *
+     * @return The binary message converter
+     */
     @Bean
-    public Queue postDeletionQueue() {
-        LOGGER.info("Creating queue " + postDeletionQueueName);
-        return new Queue(postDeletionQueueName, false);
+    public MessageConverter messageConverter() {
+        return new BinaryMessageConverter();
     }
 
+    /**
+     * Creates a listener container factory whose listeners receive a list of up to {@code amqp.batch.size}
+     * messages. A batch is delivered once it is full or no message arrived within {@code amqp.batch.receive-timeout}.
+     *
+     * @param configurer        Configurer that applies the Spring Boot listener properties
+     * @param connectionFactory RabbitMQ connection factory
+     * @return The batch listener container factory
+     */
     @Bean
-    public Queue commentQueue() {
-        LOGGER.info("Creating queue " + commentQueueName);
-        return new Queue(commentQueueName, false);
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setDeBatchingEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeout.toMillis());
+
+        return factory;
     }
 
     @Bean
-    public Queue commentDeletionQueue() {
-        LOGGER.info("Creating queue " + commentDeletionQueueName);
-        return new Queue(commentDeletionQueueName, false);
+    public Queue postQueue() {
+        LOGGER.info("Creating queue " + postQueueName);
+        return new Queue(postQueueName, true);
     }
 
     @Bean
-    public Queue likeQueue() {
-        LOGGER.info("Creating queue " + likeQueueName);
-        return new Queue(likeQueueName, false);
+    public Queue postDeletionQueue() {
+        LOGGER.info("Creating queue " + postDeletionQueueName);
+        return new Queue(postDeletionQueueName, true);
     }
 
     @Bean
@@ -86,22 +128,40 @@ public class RabbitmqConfig {
         return BindingBuilder.bind(postDeletionQueue()).to(directExchange).with(postDeletionQueueName);
     }
 
-
     @Bean
-    public Binding commentBinding(DirectExchange directExchange) {
-        LOGGER.info("Binding exchange " + exchangeName + " to queue " + commentQueueName);
-        return BindingBuilder.bind(commentQueue()).to(directExchange).with(commentQueueName);
+    public Declarables commentPartitions(DirectExchange directExchange) {
+        return partitionedQueues(commentQueueName, directExchange);
     }
 
     @Bean
-    public Binding commentDeletionBinding(DirectExchange directExchange) {
-        LOGGER.info("Binding exchange " + exchangeName + " to queue " + commentDeletionQueueName);
-        return BindingBuilder.bind(commentDeletionQueue()).to(directExchange).with(commentDeletionQueueName);
+    public Declarables commentDeletionPartitions(DirectExchange directExchange) {
+        return partitionedQueues(commentDeletionQueueName, directExchange);
     }
 
     @Bean
-    public Binding likeBinding(DirectExchange directExchange) {
-        LOGGER.info("Binding exchange " + exchangeName + " to queue " + likeQueueName);
-        return BindingBuilder.bind(likeQueue()).to(directExchange).with(likeQueueName);
+    public Declarables likePartitions(DirectExchange directExchange) {
+        return partitionedQueues(likeQueueName, directExchange);
+    }
+
+    /**
+     * Helper method that declares a queue per partition and binds each one to the exchange.
+     *
+     * @param baseName       Name of the partitioned queue
+     * @param directExchange Exchange to bind the queues to
+     * @return The queues and their bindings
+     */
+    private Declarables partitionedQueues(String baseName, DirectExchange directExchange) {
+        List<Declarable> declarables = new ArrayList<>(partitions * 2);
+
+        for (int partition = 0; partition < partitions; partition++) {
+            String queueName = PostPartitioner.partitionName(baseName, partition);
+            Queue queue = new Queue(queueName, true);
+
+            LOGGER.info("Creating queue " + queueName + " and binding it to exchange " + exchangeName);
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(directExchange).with(queueName));
+        }
+
+        return new Declarables(declarables);
     }
 }
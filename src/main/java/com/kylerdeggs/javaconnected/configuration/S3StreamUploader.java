@@ -0,0 +1,240 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams uploads to S3 without holding whole files in memory. Uploads up to the multipart threshold are sent with
+ * their content length in one request. Larger uploads are read into part buffers that are uploaded in parallel as a
+ * multipart upload. The part buffers are reused and shared by all uploads, so uploads wait for a free buffer once
+ * the maximum number of parts is in flight and never use more than that many buffers in total.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class S3StreamUploader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3StreamUploader.class);
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final AmazonS3 s3Client;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final Semaphore buffersAvailable;
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final ExecutorService partExecutor;
+
+    /**
+     * Creates an uploader with its own pool of part upload threads.
+     *
+     * @param s3Client           Client used for the uploads
+     * @param multipartThreshold Size above which uploads are split into parts
+     * @param partSize           Size of each part and part buffer of at least 5MB
+     * @param maxPartsInFlight   Maximum number of parts that are buffered or uploaded at once
+     */
+    public S3StreamUploader(AmazonS3 s3Client, long multipartThreshold, int partSize, int maxPartsInFlight) {
+        if (partSize < MIN_PART_SIZE)
+            throw new IllegalArgumentException("The part size has to be at least 5MB but was " + partSize + " bytes");
+        if (maxPartsInFlight < 1)
+            throw new IllegalArgumentException("At least one part has to be in flight but " + maxPartsInFlight
+                    + " were configured");
+
+        this.s3Client = s3Client;
+        this.multipartThreshold = Math.max(multipartThreshold, partSize);
+        this.partSize = partSize;
+        this.buffersAvailable = new Semaphore(maxPartsInFlight);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.partExecutor = Executors.newFixedThreadPool(maxPartsInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "s3-part-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Uploads a stream to S3.
+     *
+     * @param bucketName    Name of the target bucket
+     * @param key           Key of the uploaded object
+     * @param input         Content of the object
+     * @param contentLength Number of bytes in the stream
+     * @param contentType   Content type of the object
+     * @throws IOException Reading the stream failed or the upload was interrupted
+     */
+    public void upload(String bucketName, String key, InputStream input, long contentLength, String contentType)
+            throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+
+        metadata.setContentType(contentType);
+        if (contentLength <= multipartThreshold) {
+            metadata.setContentLength(contentLength);
+            s3Client.putObject(new PutObjectRequest(bucketName, key, input, metadata));
+        } else
+            uploadParts(bucketName, key, input, metadata);
+    }
+
+    /**
+     * Stops the part upload threads.
+     */
+    public void shutdown() {
+        partExecutor.shutdownNow();
+    }
+
+    /**
+     * Helper method that reads a stream part by part and uploads every part as soon as it has been read. The
+     * multipart upload is aborted if a part could not be read or uploaded.
+     *
+     * @param bucketName Name of the target bucket
+     * @param key        Key of the uploaded object
+     * @param input      Content of the object
+     * @param metadata   Metadata of the object
+     * @throws IOException Reading the stream failed or the upload was interrupted
+     */
+    private void uploadParts(String bucketName, String key, InputStream input, ObjectMetadata metadata)
+            throws IOException {
+        String uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key,
+                metadata)).getUploadId();
+        List<Future<PartETag>> parts = new ArrayList<>();
+
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                byte[] buffer = acquireBuffer();
+                int length;
+
+                try {
+                    length = readFully(input, buffer);
+                } catch (IOException | RuntimeException exception) {
+                    releaseBuffer(buffer);
+                    throw exception;
+                }
+
+                if (length == 0) {
+                    releaseBuffer(buffer);
+                    break;
+                }
+
+                UploadPartRequest request = new UploadPartRequest().withBucketName(bucketName).withKey(key)
+                        .withUploadId(uploadId).withPartNumber(partNumber).withPartSize(length)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, length));
+                try {
+                    parts.add(partExecutor.submit(() -> {
+                        try {
+                            return s3Client.uploadPart(request).getPartETag();
+                        } finally {
+                            releaseBuffer(buffer);
+                        }
+                    }));
+                } catch (RejectedExecutionException exception) {
+                    releaseBuffer(buffer);
+                    throw exception;
+                }
+
+                if (length < buffer.length)
+                    break;
+            }
+
+            s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId,
+                    awaitParts(parts)));
+            LOGGER.info("Uploaded " + parts.size() + " parts to s3://" + bucketName + "/" + key);
+        } catch (IOException | RuntimeException exception) {
+            awaitQuietly(parts);
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+            throw exception;
+        }
+    }
+
+    /**
+     * Helper method that waits until every part has been uploaded.
+     *
+     * @param parts Part uploads in the order of their part numbers
+     * @return ETags of the parts
+     * @throws IOException The upload was interrupted
+     */
+    private List<PartETag> awaitParts(List<Future<PartETag>> parts) throws IOException {
+        List<PartETag> partETags = new ArrayList<>(parts.size());
+
+        for (Future<PartETag> part : parts) {
+            try {
+                partETags.add(part.get());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("The upload was interrupted");
+            } catch (ExecutionException exception) {
+                if (exception.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) exception.getCause();
+                throw new IOException("A part could not be uploaded", exception.getCause());
+            }
+        }
+
+        return partETags;
+    }
+
+    private void awaitQuietly(List<Future<PartETag>> parts) {
+        for (Future<PartETag> part : parts) {
+            try {
+                part.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException exception) {
+                LOGGER.debug("A part of an aborted upload failed", exception.getCause());
+            }
+        }
+    }
+
+    private byte[] acquireBuffer() throws InterruptedIOException {
+        try {
+            buffersAvailable.acquire();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The upload was interrupted while waiting for a part buffer");
+        }
+
+        byte[] buffer = freeBuffers.poll();
+
+        return buffer != null ? buffer : new byte[partSize];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        freeBuffers.offer(buffer);
+        buffersAvailable.release();
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int length = 0;
+
+        while (length < buffer.length) {
+            int read = input.read(buffer, length, buffer.length - length);
+
+            if (read < 0)
+                break;
+            length += read;
+        }
+
+        return length;
+    }
+}
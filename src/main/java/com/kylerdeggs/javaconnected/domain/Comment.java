@@ -7,13 +7,18 @@ import java.time.LocalDateTime;
  * The fields of this class represent a post comment.
  *
  * @author Kyler Deggs
- * @version 1.1.0
+ * @version 1.3.0
  */
 @Entity
-@Table(name = "post_comment")
+@Table(name = "post_comment",
+        indexes = @Index(name = "post_comment_published_created_idx", columnList = "published, createdAt, id"))
 public class Comment {
+    public static final int CAPTION_LENGTH = 255;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_comment_id")
+    @TableGenerator(name = "post_comment_id", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "nextValue", pkColumnValue = "post_comment", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -24,7 +29,7 @@ public class Comment {
     @JoinColumn(name = "authorId", nullable = false)
     private User author;
 
-    @Column(name = "caption", nullable = false)
+    @Column(name = "caption", length = CAPTION_LENGTH, nullable = false)
     private String caption;
 
     @Column(name = "published", nullable = false)
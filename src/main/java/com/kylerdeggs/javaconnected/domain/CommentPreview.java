@@ -0,0 +1,106 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * The fields of this class represent one of the latest comments of a post that is stored with the post. Previews
+ * are compared by value so an unchanged preview is not written again when the post is flushed.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+public class CommentPreview {
+    private long id;
+
+    private String authorId;
+
+    private String authorFirstName;
+
+    private String authorLastName;
+
+    private String caption;
+
+    private LocalDateTime createdAt;
+
+    public CommentPreview() {
+    }
+
+    public CommentPreview(long id, String authorId, String authorFirstName, String authorLastName, String caption,
+                          LocalDateTime createdAt) {
+        this.id = id;
+        this.authorId = authorId;
+        this.authorFirstName = authorFirstName;
+        this.authorLastName = authorLastName;
+        this.caption = caption;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(String authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getAuthorFirstName() {
+        return authorFirstName;
+    }
+
+    public void setAuthorFirstName(String authorFirstName) {
+        this.authorFirstName = authorFirstName;
+    }
+
+    public String getAuthorLastName() {
+        return authorLastName;
+    }
+
+    public void setAuthorLastName(String authorLastName) {
+        this.authorLastName = authorLastName;
+    }
+
+    public String getCaption() {
+        return caption;
+    }
+
+    public void setCaption(String caption) {
+        this.caption = caption;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CommentPreview))
+            return false;
+
+        CommentPreview that = (CommentPreview) o;
+
+        return id == that.id && Objects.equals(authorId, that.authorId)
+                && Objects.equals(authorFirstName, that.authorFirstName)
+                && Objects.equals(authorLastName, that.authorLastName) && Objects.equals(caption, that.caption)
+                && Objects.equals(createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, authorId, authorFirstName, authorLastName, caption, createdAt);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the comment preview of a post as a JSON array in a single column.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Converter
+public class CommentPreviewConverter implements AttributeConverter<List<CommentPreview>, String> {
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final TypeReference<List<CommentPreview>> PREVIEW_TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<CommentPreview> preview) {
+        if (preview == null)
+            return null;
+
+        try {
+            return MAPPER.writeValueAsString(preview);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("The comment preview could not be converted to JSON", exception);
+        }
+    }
+
+    @Override
+    public List<CommentPreview> convertToEntityAttribute(String json) {
+        if (json == null)
+            return new ArrayList<>();
+
+        try {
+            return MAPPER.readValue(json, PREVIEW_TYPE);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("The comment preview could not be read from JSON", exception);
+        }
+    }
+}
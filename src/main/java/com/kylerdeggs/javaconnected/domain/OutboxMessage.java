@@ -0,0 +1,85 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of this class represent a queue message that has been accepted by a request but not yet published.
+ * The body is stored already converted, so the relay can publish it without knowing its type. A relay claims a
+ * message by writing its claim and the end of its lease, and a message is not relayed again before
+ * {@code availableAt}.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@Entity
+@Table(name = "outbox_message")
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "routingKey", nullable = false)
+    private String routingKey;
+
+    @Column(name = "contentType")
+    private String contentType;
+
+    @Lob
+    @Column(name = "body", nullable = false)
+    private byte[] body;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimedBy")
+    private String claimedBy;
+
+    @Column(name = "availableAt")
+    private LocalDateTime availableAt;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String routingKey, String contentType, byte[] body, LocalDateTime createdAt) {
+        this.routingKey = routingKey;
+        this.contentType = contentType;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+}
@@ -0,0 +1,89 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of this class represent an outbox message that could not be published within the maximum number of
+ * attempts. Parked messages are kept with their last error so they can be inspected and published again by hand.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "outbox_parked_message")
+public class ParkedOutboxMessage {
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    private Long id;
+
+    @Column(name = "routingKey", nullable = false)
+    private String routingKey;
+
+    @Column(name = "contentType")
+    private String contentType;
+
+    @Lob
+    @Column(name = "body", nullable = false)
+    private byte[] body;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "parkedAt", nullable = false)
+    private LocalDateTime parkedAt;
+
+    @Column(name = "lastError", length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    public ParkedOutboxMessage() {
+    }
+
+    public ParkedOutboxMessage(OutboxMessage message, int attempts, String lastError, LocalDateTime parkedAt) {
+        this.id = message.getId();
+        this.routingKey = message.getRoutingKey();
+        this.contentType = message.getContentType();
+        this.body = message.getBody();
+        this.attempts = attempts;
+        this.createdAt = message.getCreatedAt();
+        this.parkedAt = parkedAt;
+        this.lastError = lastError != null && lastError.length() > MAX_ERROR_LENGTH
+                ? lastError.substring(0, MAX_ERROR_LENGTH) : lastError;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getParkedAt() {
+        return parkedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
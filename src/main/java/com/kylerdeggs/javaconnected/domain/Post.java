@@ -1,40 +1,67 @@
 package com.kylerdeggs.javaconnected.domain;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * The fields of this class represent a post.
+ * The fields of this class represent a post. The version is incremented by every change to the post, including
+ * its like count and comment summary, and is used to derive ETags. The request ID identifies the request that
+ * created the post, so a request that is delivered more than once creates a single post. Media can only be used
+ * by one post at a time, so deleting a post never deletes media of another post.
  *
  * @author Kyler Deggs
- * @version 1.1.0
+ * @version 1.7.0
  */
 @Entity
-@Table(name = "post")
+@DynamicUpdate
+@Table(name = "post",
+        indexes = @Index(name = "post_published_created_idx", columnList = "published, createdAt, id"),
+        uniqueConstraints = {@UniqueConstraint(name = "post_request_id_uq", columnNames = "requestId"),
+                @UniqueConstraint(name = "post_media_location_uq", columnNames = "mediaLocation")})
 public class Post {
+    public static final int COMMENT_PREVIEW_SIZE = 3;
+    public static final int TITLE_LENGTH = 45;
+    public static final int MEDIA_LOCATION_LENGTH = 100;
+    public static final int CAPTION_LENGTH = 3000;
+    public static final int REQUEST_ID_LENGTH = 36;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_id")
+    @TableGenerator(name = "post_id", table = "id_generator", pkColumnName = "name", valueColumnName = "nextValue",
+            pkColumnValue = "post", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "authorId", nullable = false)
     private User author;
 
-    @Column(name = "title", length = 45, nullable = false)
+    @Column(name = "title", length = TITLE_LENGTH, nullable = false)
     private String title;
 
     @Column(name = "media", nullable = false)
     private Boolean hasMedia;
 
-    @Column(name = "mediaLocation", length = 100)
+    @Column(name = "mediaLocation", length = MEDIA_LOCATION_LENGTH)
     private String mediaLocation;
 
-    @Column(name = "caption", length = 3000)
+    @Column(name = "caption", length = CAPTION_LENGTH)
     private String caption;
 
     @Column(name = "likeCount")
     private Integer likeCount;
 
+    @Column(name = "commentCount")
+    private Integer commentCount;
+
+    @Lob
+    @Convert(converter = CommentPreviewConverter.class)
+    @Column(name = "commentPreview")
+    private List<CommentPreview> commentPreview;
+
     @Column(name = "published", nullable = false)
     private Boolean published;
 
@@ -44,6 +71,13 @@ public class Post {
     @Column(name = "deletedAt")
     private LocalDateTime deletedAt;
 
+    @Column(name = "requestId", length = REQUEST_ID_LENGTH)
+    private String requestId;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Post() {
     }
 
@@ -55,6 +89,8 @@ public class Post {
         this.mediaLocation = mediaLocation;
         this.caption = caption;
         likeCount = 0;
+        commentCount = 0;
+        commentPreview = new ArrayList<>();
         this.published = published;
         this.createdAt = createdAt;
     }
@@ -115,6 +151,22 @@ public class Post {
         this.likeCount = likeCount;
     }
 
+    public Integer getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public List<CommentPreview> getCommentPreview() {
+        return commentPreview;
+    }
+
+    public void setCommentPreview(List<CommentPreview> commentPreview) {
+        this.commentPreview = commentPreview;
+    }
+
     public Boolean getPublished() {
         return published;
     }
@@ -138,4 +190,16 @@ public class Post {
     public void setDeletedAt(LocalDateTime deletedAt) {
         this.deletedAt = deletedAt;
     }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,63 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of this class represent a like that a user gave a post. The key is assigned by the application, so
+ * the entity tracks whether it is new to be inserted without being looked up first.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@Entity
+@Table(name = "post_like", indexes = {@Index(name = "post_like_user_idx", columnList = "userId"),
+        @Index(name = "post_like_created_idx", columnList = "createdAt")})
+public class PostLike implements Persistable<PostLikeId> {
+    @EmbeddedId
+    private PostLikeId id;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public PostLike() {
+    }
+
+    public PostLike(PostLikeId id, LocalDateTime createdAt) {
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public PostLikeId getId() {
+        return id;
+    }
+
+    public void setId(PostLikeId id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.kylerdeggs.javaconnected.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The fields of this class represent the key of a like, which is the liked post and the user who liked it.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.1
+ */
+@Embeddable
+public class PostLikeId implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "postId", nullable = false)
+    private Long postId;
+
+    @Column(name = "userId", nullable = false)
+    private String userId;
+
+    public PostLikeId() {
+    }
+
+    public PostLikeId(Long postId, String userId) {
+        this.postId = postId;
+        this.userId = userId;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PostLikeId))
+            return false;
+
+        PostLikeId that = (PostLikeId) o;
+
+        return Objects.equals(postId, that.postId) && Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(postId, userId);
+    }
+}
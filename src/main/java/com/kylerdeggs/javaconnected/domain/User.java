@@ -1,19 +1,25 @@
 package com.kylerdeggs.javaconnected.domain;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 /**
- * The fields of this class represent a user.
+ * The fields of this class represent a user. Updates only write the columns that changed and increment the
+ * version, which is used to derive ETags.
  *
  * @author Kyler Deggs
- * @version 1.0.1
+ * @version 1.2.0
  */
 @Entity
-@Table(name = "user")
+@DynamicUpdate
+@Table(name = "user", indexes = @Index(name = "user_registered_idx", columnList = "registeredAt, id"))
 public class User {
     @Id
     @Column(name = "id")
@@ -37,6 +43,10 @@ public class User {
     @Column(name = "lastLogin", nullable = false)
     private LocalDateTime lastLogin;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public User() {
     }
 
@@ -106,4 +116,8 @@ public class User {
     public void setLastLogin(LocalDateTime lastLogin) {
         this.lastLogin = lastLogin;
     }
+
+    public long getVersion() {
+        return version;
+    }
 }
@@ -1,11 +1,17 @@
 package com.kylerdeggs.javaconnected.repository;
 
 import com.kylerdeggs.javaconnected.domain.Comment;
-import com.kylerdeggs.javaconnected.domain.Post;
-import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.CommentView;
+import com.kylerdeggs.javaconnected.repository.projections.EngagementCount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,32 +19,52 @@ import java.util.Optional;
  * Repository for comments.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.6.0
  */
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long>, Queries<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, Queries<Comment, Long, CommentView> {
+    String SELECT_VIEW = "SELECT new com.kylerdeggs.javaconnected.repository.projections.CommentView(c.id, "
+            + "c.post.id, c.caption, c.createdAt, a.id, a.firstName, a.lastName) FROM Comment c JOIN c.author a ";
+
     /**
-     * Finds all published comments.
+     * Finds a published comment with the specified ID.
      *
-     * @return List of published comments
+     * @param id ID of the target comment
+     * @return The published comment
      */
-    List<Comment> findByPublishedTrue();
+    Optional<Comment> findByIdAndPublishedTrue(Long id);
 
     /**
-     * Finds all published comments by the specified user.
+     * Finds the first page of published comments ordered from newest to oldest.
      *
-     * @param author User to find comments from
-     * @return List of published comments from the specified user
+     * @param pageable Page size of the result
+     * @return List of the newest published comments
      */
-    List<Comment> findAllByAuthorAndPublishedTrue(User author);
+    @Query(SELECT_VIEW + "WHERE c.published = true ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentView> findPublishedViews(Pageable pageable);
 
     /**
-     * Finds all published comments that correspond to a post.
+     * Finds the page of published comments that were created before the specified keyset position ordered from
+     * newest to oldest.
      *
-     * @param post Post to find the comments from
-     * @return List of published comments for a specific post
+     * @param createdAt Creation time of the last comment of the previous page
+     * @param id        ID of the last comment of the previous page
+     * @param pageable  Page size of the result
+     * @return List of published comments after the keyset position
      */
-    List<Comment> findAllByPostAndPublishedTrue(Post post);
+    @Query(SELECT_VIEW + "WHERE c.published = true AND (c.createdAt < :createdAt "
+            + "OR (c.createdAt = :createdAt AND c.id < :id)) ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentView> findPublishedViewsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                               Pageable pageable);
+
+    /**
+     * Finds all published comments by the specified user.
+     *
+     * @param authorId ID of the user to find comments from
+     * @return List of published comments from the specified user
+     */
+    @Query(SELECT_VIEW + "WHERE a.id = :authorId AND c.published = true")
+    List<CommentView> findPublishedViewsByAuthor(@Param("authorId") String authorId);
 
     /**
      * Finds a published comment with the specified ID.
@@ -46,5 +72,58 @@ public interface CommentRepository extends JpaRepository<Comment, Long>, Queries
      * @param id ID of the target comment
      * @return The published comment
      */
-    Optional<Comment> findByIdAndPublishedTrue(Long id);
+    @Query(SELECT_VIEW + "WHERE c.id = :id AND c.published = true")
+    Optional<CommentView> findPublishedViewById(@Param("id") Long id);
+
+    /**
+     * Finds the newest published comments of a post.
+     *
+     * @param postId   ID of the post to find the comments from
+     * @param pageable Page size of the result
+     * @return List of the newest published comments of the post
+     */
+    @Query(SELECT_VIEW + "WHERE c.post.id = :postId AND c.published = true ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentView> findLatestViewsByPostId(@Param("postId") long postId, Pageable pageable);
+
+    /**
+     * Counts the published comments of a post.
+     *
+     * @param postId ID of the target post
+     * @return Number of published comments of the post
+     */
+    long countByPostIdAndPublishedTrue(long postId);
+
+    /**
+     * Finds all published comments that correspond to any of the specified posts.
+     *
+     * @param postIds IDs of the posts to find the comments from
+     * @return List of published comments for the specified posts
+     */
+    @Query(SELECT_VIEW + "WHERE c.post.id IN :postIds AND c.published = true ORDER BY c.id")
+    List<CommentView> findPublishedViewsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Unpublishes all published comments of a post with a single statement.
+     *
+     * @param postId    ID of the target post
+     * @param deletedAt Time of the deletion
+     * @return Number of unpublished comments
+     */
+    @Modifying
+    @Query("UPDATE Comment c SET c.published = false, c.deletedAt = :deletedAt "
+            + "WHERE c.post.id = :postId AND c.published = true")
+    int unpublishByPostId(@Param("postId") long postId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Counts the published comments that were created within a period per post.
+     *
+     * @param from Start of the period
+     * @param to   End of the period, exclusive
+     * @return List of comment counts of the posts that were commented on within the period
+     */
+    @Query("SELECT new com.kylerdeggs.javaconnected.repository.projections.EngagementCount(c.post.id, COUNT(c)) "
+            + "FROM Comment c WHERE c.published = true AND c.createdAt >= :from AND c.createdAt < :to "
+            + "GROUP BY c.post.id")
+    List<EngagementCount> countByPostCreatedBetween(@Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
 }
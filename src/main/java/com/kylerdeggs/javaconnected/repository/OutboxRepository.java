@@ -0,0 +1,99 @@
+package com.kylerdeggs.javaconnected.repository;
+
+import com.kylerdeggs.javaconnected.domain.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the messages of the outbox.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * Finds the routing keys of the oldest messages that are neither claimed by a relay nor waiting for a retry,
+     * and that are not held back by an older message with the same routing key that is. The rows are not locked.
+     *
+     * @param now      Current time
+     * @param pageable Size of the batch
+     * @return List of the routing keys of the messages from oldest to newest
+     */
+    @Query("SELECT m.routingKey FROM OutboxMessage m WHERE (m.availableAt IS NULL OR m.availableAt <= :now) "
+            + "AND NOT EXISTS (SELECT o.id FROM OutboxMessage o WHERE o.routingKey = m.routingKey AND o.id < m.id "
+            + "AND o.availableAt > :now) ORDER BY m.id")
+    List<String> findAvailableRoutingKeys(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Finds and locks the oldest messages of the specified routing keys, including the ones that are claimed or
+     * waiting for a retry, so a relay can claim messages without another relay claiming the messages in between.
+     *
+     * @param routingKeys Routing keys of the messages
+     * @param pageable    Maximum number of messages
+     * @return List of messages from oldest to newest
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM OutboxMessage m WHERE m.routingKey IN :routingKeys ORDER BY m.id")
+    List<OutboxMessage> lockOldest(@Param("routingKeys") Collection<String> routingKeys, Pageable pageable);
+
+    /**
+     * Claims messages for a relay until its lease ends. Messages that another relay claimed in the meantime are
+     * skipped.
+     *
+     * @param ids        IDs of the messages to claim
+     * @param claim      Claim of the relay
+     * @param leaseUntil End of the lease
+     * @param now        Current time
+     * @return Number of claimed messages
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimedBy = :claim, m.availableAt = :leaseUntil WHERE m.id IN :ids "
+            + "AND (m.availableAt IS NULL OR m.availableAt <= :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes published messages.
+     *
+     * @param ids IDs of the published messages
+     * @return Number of deleted messages
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts a failed publishing attempt for messages and releases their claim until they are retried.
+     *
+     * @param ids     IDs of the failed messages
+     * @param retryAt Time the messages are relayed again
+     * @return Number of updated messages
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.claimedBy = NULL, m.availableAt = :retryAt "
+            + "WHERE m.id IN :ids")
+    int releaseFailed(@Param("ids") Collection<Long> ids, @Param("retryAt") LocalDateTime retryAt);
+
+    /**
+     * Releases the claim of messages that were not published because an older message with the same routing key
+     * failed. No attempt is counted.
+     *
+     * @param ids IDs of the held back messages
+     * @return Number of updated messages
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimedBy = NULL, m.availableAt = NULL WHERE m.id IN :ids")
+    int releaseHeldBack(@Param("ids") Collection<Long> ids);
+}
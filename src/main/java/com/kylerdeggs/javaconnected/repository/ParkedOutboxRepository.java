@@ -0,0 +1,15 @@
+package com.kylerdeggs.javaconnected.repository;
+
+import com.kylerdeggs.javaconnected.domain.ParkedOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the outbox messages that could not be published.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Repository
+public interface ParkedOutboxRepository extends JpaRepository<ParkedOutboxMessage, Long> {
+}
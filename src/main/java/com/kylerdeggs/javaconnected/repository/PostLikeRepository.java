@@ -0,0 +1,64 @@
+package com.kylerdeggs.javaconnected.repository;
+
+import com.kylerdeggs.javaconnected.domain.PostLike;
+import com.kylerdeggs.javaconnected.domain.PostLikeId;
+import com.kylerdeggs.javaconnected.repository.projections.EngagementCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the likes of posts.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@Repository
+public interface PostLikeRepository extends JpaRepository<PostLike, PostLikeId> {
+    /**
+     * Finds the IDs of all users who liked the specified post.
+     *
+     * @param postId ID of the target post
+     * @return List of user IDs
+     */
+    @Query("SELECT l.id.userId FROM PostLike l WHERE l.id.postId = :postId")
+    List<String> findUserIdsByPostId(@Param("postId") long postId);
+
+    /**
+     * Finds which of the specified posts a user liked.
+     *
+     * @param userId  ID of the target user
+     * @param postIds IDs of the target posts
+     * @return List of IDs of the liked posts
+     */
+    @Query("SELECT l.id.postId FROM PostLike l WHERE l.id.userId = :userId AND l.id.postId IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Finds the keys of the likes whose post and user are among the specified IDs. The result can contain keys of
+     * combinations that were not asked for.
+     *
+     * @param postIds IDs of the target posts
+     * @param userIds IDs of the target users
+     * @return List of like keys
+     */
+    @Query("SELECT l.id FROM PostLike l WHERE l.id.postId IN :postIds AND l.id.userId IN :userIds")
+    List<PostLikeId> findIds(@Param("postIds") Collection<Long> postIds, @Param("userIds") Collection<String> userIds);
+
+    /**
+     * Counts the likes that were given within a period per post.
+     *
+     * @param from Start of the period
+     * @param to   End of the period, exclusive
+     * @return List of like counts of the posts that were liked within the period
+     */
+    @Query("SELECT new com.kylerdeggs.javaconnected.repository.projections.EngagementCount(l.id.postId, COUNT(l)) "
+            + "FROM PostLike l WHERE l.createdAt >= :from AND l.createdAt < :to GROUP BY l.id.postId")
+    List<EngagementCount> countByPostCreatedBetween(@Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+}
@@ -1,35 +1,89 @@
 package com.kylerdeggs.javaconnected.repository;
 
 import com.kylerdeggs.javaconnected.domain.Post;
-import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Repository for posts.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.17.0
  */
 @Repository
-public interface PostRepository extends JpaRepository<Post, Long>, Queries<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long>, Queries<Post, Long, PostView> {
+    int STREAM_FETCH_SIZE = 500;
+
+    String SELECT_VIEW = "SELECT new com.kylerdeggs.javaconnected.repository.projections.PostView(p.id, p.title, "
+            + "p.hasMedia, p.mediaLocation, p.caption, p.likeCount, p.commentCount, p.commentPreview, p.createdAt, "
+            + "a.id, a.firstName, a.lastName) FROM Post p JOIN p.author a ";
+
     /**
-     * Finds all published posts.
+     * Finds a published post with the specified ID.
      *
-     * @return List of published posts
+     * @param id ID of the target post
+     * @return The published post
      */
-    List<Post> findByPublishedTrue();
+    Optional<Post> findByIdAndPublishedTrue(Long id);
+
+    /**
+     * Finds a published post with the specified ID and locks its row until the end of the transaction.
+     *
+     * @param id ID of the target post
+     * @return The locked published post
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Post p WHERE p.id = :id AND p.published = true")
+    Optional<Post> findPublishedByIdForUpdate(@Param("id") long id);
+
+    /**
+     * Finds the first page of published posts ordered from newest to oldest.
+     *
+     * @param pageable Page size of the result
+     * @return List of the newest published posts
+     */
+    @Query(SELECT_VIEW + "WHERE p.published = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostView> findPublishedViews(Pageable pageable);
+
+    /**
+     * Finds the page of published posts that were created before the specified keyset position ordered from
+     * newest to oldest.
+     *
+     * @param createdAt Creation time of the last post of the previous page
+     * @param id        ID of the last post of the previous page
+     * @param pageable  Page size of the result
+     * @return List of published posts after the keyset position
+     */
+    @Query(SELECT_VIEW + "WHERE p.published = true AND (p.createdAt < :createdAt "
+            + "OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostView> findPublishedViewsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                            Pageable pageable);
 
     /**
      * Finds all published posts by the specified user.
      *
-     * @param author User to find posts from
+     * @param authorId ID of the user to find posts from
      * @return List of published posts from the specified user
      */
-    List<Post> findAllByAuthorAndPublishedTrue(User author);
+    @Query(SELECT_VIEW + "WHERE a.id = :authorId AND p.published = true")
+    List<PostView> findPublishedViewsByAuthor(@Param("authorId") String authorId);
 
     /**
      * Finds a published post with the specified ID.
@@ -37,5 +91,139 @@ public interface PostRepository extends JpaRepository<Post, Long>, Queries<Post,
      * @param id ID of the target post
      * @return The published post
      */
-    Optional<Post> findByIdAndPublishedTrue(Long id);
+    @Query(SELECT_VIEW + "WHERE p.id = :id AND p.published = true")
+    Optional<PostView> findPublishedViewById(@Param("id") Long id);
+
+    /**
+     * Finds the IDs of published posts that are greater than the specified ID in ascending order.
+     *
+     * @param id       ID after which the IDs start
+     * @param pageable Page size of the result
+     * @return List of published post IDs
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.published = true AND p.id > :id ORDER BY p.id")
+    List<Long> findPublishedIdsAfter(@Param("id") long id, Pageable pageable);
+
+    /**
+     * Finds the published posts that were created after the specified keyset position ordered from oldest to
+     * newest.
+     *
+     * @param createdAt Creation time of the last post of the previous page
+     * @param id        ID of the last post of the previous page
+     * @param pageable  Page size of the result
+     * @return List of published posts after the keyset position
+     */
+    @Query(SELECT_VIEW + "WHERE p.published = true AND (p.createdAt > :createdAt OR (p.createdAt = :createdAt "
+            + "AND p.id > :id)) ORDER BY p.createdAt, p.id")
+    List<PostView> findPublishedViewsCreatedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id,
+                                                  Pageable pageable);
+
+    /**
+     * Finds the IDs of the published posts that have been created since the specified time.
+     *
+     * @param since Earliest creation time
+     * @return List of IDs of the created posts
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.published = true AND p.createdAt >= :since")
+    List<Long> findPublishedIdsCreatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Finds the IDs of the posts that have been deleted since the specified time.
+     *
+     * @param since Earliest deletion time
+     * @return List of IDs of the deleted posts
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.published = false AND p.deletedAt >= :since")
+    List<Long> findIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Finds the published posts with the specified IDs.
+     *
+     * @param ids IDs of the target posts
+     * @return List of published posts in no particular order
+     */
+    @Query(SELECT_VIEW + "WHERE p.id IN :ids AND p.published = true")
+    List<PostView> findPublishedViewsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Determines if media is used by a post. The media location of a post is cleared when it is unpublished.
+     *
+     * @param mediaLocation Location of the media in the bucket
+     * @return True if a post uses the media
+     */
+    boolean existsByMediaLocation(String mediaLocation);
+
+    /**
+     * Finds which of the specified request IDs have already created a post.
+     *
+     * @param requestIds Request IDs to look up
+     * @return The request IDs that belong to a post
+     */
+    @Query("SELECT p.requestId FROM Post p WHERE p.requestId IN :requestIds")
+    List<String> findUsedRequestIds(@Param("requestIds") Collection<String> requestIds);
+
+    /**
+     * Finds the version of a published post.
+     *
+     * @param id ID of the target post
+     * @return The version of the published post
+     */
+    @Query("SELECT p.version FROM Post p WHERE p.id = :id AND p.published = true")
+    Optional<Long> findPublishedVersion(@Param("id") long id);
+
+    /**
+     * Atomically adds to the like count of a published post without letting it drop below zero.
+     *
+     * @param id    ID of the target post
+     * @param delta Change of the like count
+     * @return Number of updated posts
+     */
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = GREATEST(p.likeCount + :delta, 0), p.version = p.version + 1 "
+            + "WHERE p.id = :id AND p.published = true")
+    int addLikes(@Param("id") long id, @Param("delta") int delta);
+
+    /**
+     * Unpublishes a published post and clears its media.
+     *
+     * @param id        ID of the target post
+     * @param deletedAt Time of the deletion
+     * @return Number of unpublished posts
+     */
+    @Modifying
+    @Query("UPDATE Post p SET p.published = false, p.deletedAt = :deletedAt, p.hasMedia = false, "
+            + "p.mediaLocation = null, p.version = p.version + 1 WHERE p.id = :id AND p.published = true")
+    int unpublish(@Param("id") long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Finds the IDs of published posts whose comment count and comment preview have not been initialized yet that
+     * are greater than the specified ID in ascending order.
+     *
+     * @param id       ID after which the IDs start
+     * @param pageable Page size of the result
+     * @return List of IDs of posts without a comment summary
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.published = true AND p.commentCount IS NULL AND p.id > :id ORDER BY p.id")
+    List<Long> findIdsWithoutCommentSummaryAfter(@Param("id") long id, Pageable pageable);
+
+    /**
+     * Streams all published posts. The stream must be consumed inside a transaction and closed once it has been
+     * consumed.
+     *
+     * @return Stream of published posts
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(SELECT_VIEW + "WHERE p.published = true")
+    Stream<PostView> streamPublishedViews();
+
+    /**
+     * Streams all published posts by the specified user. The stream must be consumed inside a transaction
+     * and closed once it has been consumed.
+     *
+     * @param authorId ID of the user to stream posts from
+     * @return Stream of published posts from the specified user
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(SELECT_VIEW + "WHERE a.id = :authorId AND p.published = true")
+    Stream<PostView> streamPublishedViewsByAuthor(@Param("authorId") String authorId);
 }
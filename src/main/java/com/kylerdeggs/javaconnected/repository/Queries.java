@@ -1,7 +1,8 @@
 package com.kylerdeggs.javaconnected.repository;
 
-import com.kylerdeggs.javaconnected.domain.User;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,11 +11,16 @@ import java.util.Optional;
  *
  * @param <T>  Type that will be returned
  * @param <ID> ID of the specified database entity
+ * @param <V>  Read only projection of the specified database entity
  */
-public interface Queries<T, ID> {
-    List<T> findByPublishedTrue();
+public interface Queries<T, ID, V> {
+    Optional<T> findByIdAndPublishedTrue(ID id);
 
-    List<T> findAllByAuthorAndPublishedTrue(User user);
+    List<V> findPublishedViews(Pageable pageable);
 
-    Optional<T> findByIdAndPublishedTrue(ID id);
+    List<V> findPublishedViewsBefore(LocalDateTime createdAt, ID id, Pageable pageable);
+
+    List<V> findPublishedViewsByAuthor(String authorId);
+
+    Optional<V> findPublishedViewById(ID id);
 }
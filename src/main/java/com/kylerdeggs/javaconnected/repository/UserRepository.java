@@ -1,15 +1,70 @@
 package com.kylerdeggs.javaconnected.repository;
 
 import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.AuthorVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repository for users.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.3.0
  */
 @Repository
 public interface UserRepository extends CrudRepository<User, String> {
+    /**
+     * Finds the name of a user together with the number of their posts added to the sum of the post versions.
+     * Posts are never removed and their versions only grow, so the sum grows with every post that is created or
+     * changed.
+     *
+     * @param id ID of the target user
+     * @return The name and the combined post version of the user
+     */
+    @Query("SELECT new com.kylerdeggs.javaconnected.repository.projections.AuthorVersion(u.firstName, u.lastName, "
+            + "COUNT(p) + COALESCE(SUM(p.version), 0)) FROM User u LEFT JOIN Post p ON p.author = u "
+            + "WHERE u.id = :id GROUP BY u.id, u.firstName, u.lastName")
+    Optional<AuthorVersion> findAuthorVersion(@Param("id") String id);
+
+    /**
+     * Sets the last sign-in of users with one statement without changing their version.
+     *
+     * @param lastLogin Time of the last sign-in
+     * @param ids       IDs of the users that signed in at that time
+     * @return Number of updated users
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.lastLogin = :lastLogin WHERE u.id IN :ids")
+    int updateLastLogin(@Param("lastLogin") LocalDateTime lastLogin, @Param("ids") Collection<String> ids);
+
+    /**
+     * Finds the first page of users ordered from newest to oldest registration.
+     *
+     * @param pageable Page size of the result
+     * @return List of the newest users
+     */
+    List<User> findAllByOrderByRegisteredAtDescIdDesc(Pageable pageable);
+
+    /**
+     * Finds the page of users that registered before the specified keyset position ordered from newest to
+     * oldest registration.
+     *
+     * @param registeredAt Registration time of the last user of the previous page
+     * @param id           ID of the last user of the previous page
+     * @param pageable     Page size of the result
+     * @return List of users after the keyset position
+     */
+    @Query("SELECT u FROM User u WHERE u.registeredAt < :registeredAt "
+            + "OR (u.registeredAt = :registeredAt AND u.id < :id) ORDER BY u.registeredAt DESC, u.id DESC")
+    List<User> findRegisteredBefore(@Param("registeredAt") LocalDateTime registeredAt, @Param("id") String id,
+                                    Pageable pageable);
 }
@@ -0,0 +1,31 @@
+package com.kylerdeggs.javaconnected.repository.projections;
+
+/**
+ * Read only projection of the state of a user that the list of their posts depends on.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class AuthorVersion {
+    private final String firstName, lastName;
+
+    private final long postVersions;
+
+    public AuthorVersion(String firstName, String lastName, long postVersions) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.postVersions = postVersions;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public long getPostVersions() {
+        return postVersions;
+    }
+}
@@ -0,0 +1,60 @@
+package com.kylerdeggs.javaconnected.repository.projections;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read only projection of a published comment with the author information flattened in.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class CommentView {
+    private final long id;
+
+    private final long postId;
+
+    private final String caption;
+
+    private final LocalDateTime createdAt;
+
+    private final String authorId, authorFirstName, authorLastName;
+
+    public CommentView(long id, long postId, String caption, LocalDateTime createdAt, String authorId,
+                       String authorFirstName, String authorLastName) {
+        this.id = id;
+        this.postId = postId;
+        this.caption = caption;
+        this.createdAt = createdAt;
+        this.authorId = authorId;
+        this.authorFirstName = authorFirstName;
+        this.authorLastName = authorLastName;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+
+    public String getCaption() {
+        return caption;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public String getAuthorFirstName() {
+        return authorFirstName;
+    }
+
+    public String getAuthorLastName() {
+        return authorLastName;
+    }
+}
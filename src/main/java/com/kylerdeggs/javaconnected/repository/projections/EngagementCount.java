@@ -0,0 +1,26 @@
+package com.kylerdeggs.javaconnected.repository.projections;
+
+/**
+ * Read only projection of the number of likes or comments a post received within a period.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class EngagementCount {
+    private final long postId;
+
+    private final long count;
+
+    public EngagementCount(long postId, long count) {
+        this.postId = postId;
+        this.count = count;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,139 @@
+package com.kylerdeggs.javaconnected.repository.projections;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kylerdeggs.javaconnected.domain.CommentPreview;
+import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.domain.User;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read only projection of a published post with the author information flattened in.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+public class PostView {
+    private final long id;
+
+    private final String title;
+
+    private final boolean hasMedia;
+
+    private final String mediaLocation;
+
+    private final String caption;
+
+    private final int likeCount;
+
+    private final int commentCount;
+
+    private final List<CommentPreview> commentPreview;
+
+    private final LocalDateTime createdAt;
+
+    private final String authorId, authorFirstName, authorLastName;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean likedByMe;
+
+    public PostView(long id, String title, boolean hasMedia, String mediaLocation, String caption,
+                    Integer likeCount, Integer commentCount, List<CommentPreview> commentPreview,
+                    LocalDateTime createdAt, String authorId, String authorFirstName, String authorLastName) {
+        this.id = id;
+        this.title = title;
+        this.hasMedia = hasMedia;
+        this.mediaLocation = mediaLocation;
+        this.caption = caption;
+        this.likeCount = likeCount != null ? likeCount : 0;
+        this.commentCount = commentCount != null ? commentCount : 0;
+        this.commentPreview = commentPreview != null ? commentPreview : Collections.emptyList();
+        this.createdAt = createdAt;
+        this.authorId = authorId;
+        this.authorFirstName = authorFirstName;
+        this.authorLastName = authorLastName;
+    }
+
+    /**
+     * Creates a view of a post entity.
+     *
+     * @param post Post entity with a loaded author
+     * @return View of the post
+     */
+    public static PostView of(Post post) {
+        User author = post.getAuthor();
+
+        return new PostView(post.getId(), post.getTitle(), post.getHasMedia(), post.getMediaLocation(),
+                post.getCaption(), post.getLikeCount(), post.getCommentCount(), post.getCommentPreview(),
+                post.getCreatedAt(), author.getId(), author.getFirstName(), author.getLastName());
+    }
+
+    /**
+     * Creates a copy of this view that is flagged with whether the requesting user liked the post.
+     *
+     * @param likedByMe True if the requesting user liked the post
+     * @return Flagged copy of the view
+     */
+    public PostView withLikedByMe(boolean likedByMe) {
+        PostView view = new PostView(id, title, hasMedia, mediaLocation, caption, likeCount, commentCount,
+                commentPreview, createdAt, authorId, authorFirstName, authorLastName);
+
+        view.likedByMe = likedByMe;
+
+        return view;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean getHasMedia() {
+        return hasMedia;
+    }
+
+    public String getMediaLocation() {
+        return mediaLocation;
+    }
+
+    public String getCaption() {
+        return caption;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public List<CommentPreview> getCommentPreview() {
+        return commentPreview;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public String getAuthorFirstName() {
+        return authorFirstName;
+    }
+
+    public String getAuthorLastName() {
+        return authorLastName;
+    }
+
+    public Boolean getLikedByMe() {
+        return likedByMe;
+    }
+}
@@ -2,14 +2,17 @@ package com.kylerdeggs.javaconnected.security;
 
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.service.UserService;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.Optional;
+
 /**
  * Stores a User object that represents the user sending the request and stores their JSON Web Token.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.1.0
  */
 public class UserSecurityContext {
     private final User user;
@@ -22,6 +25,20 @@ public class UserSecurityContext {
         user = userService.verifyUser(jwt.getClaimAsString("uid"));
     }
 
+    /**
+     * Retrieves the ID of the user sending the request without loading the user.
+     *
+     * @return The ID of the user or empty if the request is not authenticated with a JSON Web Token
+     */
+    public static Optional<String> currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt))
+            return Optional.empty();
+
+        return Optional.ofNullable(((Jwt) authentication.getPrincipal()).getClaimAsString("uid"));
+    }
+
     public User getUser() {
         return user;
     }
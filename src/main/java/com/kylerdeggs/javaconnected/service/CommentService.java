@@ -1,39 +1,57 @@
 package com.kylerdeggs.javaconnected.service;
 
 import com.kylerdeggs.javaconnected.domain.Comment;
+import com.kylerdeggs.javaconnected.domain.CommentPreview;
 import com.kylerdeggs.javaconnected.domain.Post;
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.projections.CommentView;
 import com.kylerdeggs.javaconnected.security.UserSecurityContext;
+import com.kylerdeggs.javaconnected.web.Cursor;
 import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
- * Provides methods for retrieving, creating, updating, and deleting a comment.
+ * Provides methods for retrieving, creating, updating, and deleting a comment. The comment summary of a post is
+ * only changed while its post is locked, so comment creations and deletions of the same post cannot overwrite each
+ * other.
  *
  * @author Kyler Deggs
- * @version 1.2.2
+ * @version 1.13.0
  */
 @Service
 public class CommentService {
     private final static Logger LOGGER = LoggerFactory.getLogger(CommentService.class);
+    private static final int POST_ID_CHUNK_SIZE = 1000;
+    private static final int SUMMARY_BATCH_SIZE = 500;
 
-    private final RabbitTemplate rabbitTemplate;
+    private final MessageTransport messageTransport;
+    private final PostPartitioner postPartitioner;
     private final CommentRepository commentRepository;
     private final PostService postService;
     private final UserService userService;
-
-    @Value("${amqp.exchange.name}")
-    private String exchangeName;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${amqp.queue.comment-name}")
     private String commentQueueName;
@@ -42,43 +60,68 @@ public class CommentService {
     private String commentDeletionQueueName;
 
     @Autowired
-    public CommentService(RabbitTemplate rabbitTemplate, CommentRepository commentRepository,
-                          PostService postService, UserService userService) {
-        this.rabbitTemplate = rabbitTemplate;
+    public CommentService(MessageTransport messageTransport, PostPartitioner postPartitioner,
+                          CommentRepository commentRepository, PostService postService, UserService userService,
+                          PlatformTransactionManager transactionManager) {
+        this.messageTransport = messageTransport;
+        this.postPartitioner = postPartitioner;
         this.commentRepository = commentRepository;
         this.postService = postService;
         this.userService = userService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Retrieves all comments.
+     * Retrieves a page of comments ordered from newest to oldest.
      *
-     * @return List of all comments
+     * @param cursor Cursor returned with the previous page or null for the first page
+     * @param limit  Requested page size
+     * @return A page of comments and the cursor for the next page
      */
-    public List<Comment> allComments() {
-        return commentRepository.findByPublishedTrue();
+    public CursorPage<CommentView> commentPage(String cursor, int limit) {
+        int size = CursorPage.clampSize(limit);
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+        List<CommentView> rows;
+
+        if (cursor == null)
+            rows = commentRepository.findPublishedViews(pageRequest);
+        else {
+            Cursor position = Cursor.decode(cursor);
+            rows = commentRepository.findPublishedViewsBefore(position.getCreatedAt(), position.getNumericId(),
+                    pageRequest);
+        }
+
+        return CursorPage.of(rows, size, comment ->
+                new Cursor(comment.getCreatedAt(), String.valueOf(comment.getId())));
     }
 
     /**
-     * Retrieves all comments by a specific user.
+     * Retrieves all comments by a specific user as read only views.
      *
      * @param authorId ID of the target user
      * @return List of comments by the target user
      */
-    public List<Comment> allCommentsByUser(String authorId) {
-        User author = userService.verifyUser(authorId);
+    public List<CommentView> allCommentViewsByUser(String authorId) {
+        userService.verifyUser(authorId);
 
-        return commentRepository.findAllByAuthorAndPublishedTrue(author);
+        return commentRepository.findPublishedViewsByAuthor(authorId);
     }
 
     /**
-     * Retrieves all comments that relate to a specific post.
+     * Retrieves all comments that relate to any of the specified posts with a single query per chunk of
+     * {@value #POST_ID_CHUNK_SIZE} posts.
      *
-     * @param post Target post
-     * @return List of comments for a specific post
+     * @param postIds IDs of the target posts
+     * @return List of comments for the specified posts
      */
-    public List<Comment> allCommentsForPost(Post post) {
-        return commentRepository.findAllByPostAndPublishedTrue(post);
+    public List<CommentView> allCommentsForPosts(List<Long> postIds) {
+        List<CommentView> comments = new ArrayList<>();
+
+        for (int start = 0; start < postIds.size(); start += POST_ID_CHUNK_SIZE)
+            comments.addAll(commentRepository.findPublishedViewsByPostIds(
+                    postIds.subList(start, Math.min(start + POST_ID_CHUNK_SIZE, postIds.size()))));
+
+        return comments;
     }
 
     /**
@@ -93,6 +136,18 @@ public class CommentService {
                 new NoSuchElementException("A comment with ID " + commentId + " does not exist"));
     }
 
+    /**
+     * Finds a read only view of the comment with the specified ID or throws an exception if none is found.
+     *
+     * @param commentId ID of the target comment
+     * @return The found comment
+     * @throws NoSuchElementException A comment with the specified ID was not found
+     */
+    public CommentView verifyCommentView(long commentId) {
+        return commentRepository.findPublishedViewById(commentId).orElseThrow(() ->
+                new NoSuchElementException("A comment with ID " + commentId + " does not exist"));
+    }
+
     /**
      * Determines if a comment with the specified ID exists.
      *
@@ -104,16 +159,145 @@ public class CommentService {
     }
 
     /**
-     * Saves a comment.
+     * Saves new comments in a single transaction so their inserts are sent in JDBC batches and adds them to the
+     * comment counts and comment previews of their posts. The posts are locked in ID order before the comments are
+     * saved.
      *
-     * @param comment Comment to save
+     * @param comments Comments to save in the order they were created
+     * @return A list of the updated posts
      */
-    public void saveComment(Comment comment) {
+    @Transactional
+    public List<Post> saveComments(List<Comment> comments) {
+        Map<Long, List<Comment>> commentsByPost = comments.stream().collect(Collectors.groupingBy(
+                comment -> comment.getPost().getId(), TreeMap::new, Collectors.toList()));
+        Map<Long, Post> posts = new LinkedHashMap<>();
+
+        commentsByPost.keySet().forEach(postId -> posts.put(postId, lockPost(postId)));
+        commentRepository.saveAll(comments);
+        commentsByPost.forEach((postId, postComments) -> {
+            Post post = posts.get(postId);
+
+            if (post.getCommentCount() == null)
+                refreshCommentSummary(post);
+            else
+                postComments.forEach(comment -> prependToCommentSummary(post, comment));
+        });
+
+        return new ArrayList<>(posts.values());
+    }
+
+    /**
+     * Unpublishes a comment and removes it from the comment summary of its post in one transaction. The post is
+     * locked before the comment is loaded.
+     *
+     * @param commentId ID of the target comment
+     * @return The updated post or an empty optional if the post is not published anymore
+     * @throws NoSuchElementException A comment with the specified ID was not found
+     */
+    @Transactional
+    public Optional<Post> unpublishComment(long commentId) {
+        Optional<Post> post = postService.lockPost(verifyCommentView(commentId).getPostId());
+        Comment comment = verifyComment(commentId);
+
+        comment.setPublished(false);
+        comment.setDeletedAt(LocalDateTime.now());
         commentRepository.save(comment);
+        post.ifPresent(target -> subtractFromCommentSummary(target, comment));
+
+        return post;
     }
 
     /**
-     * Processes a comment creation request by sending the comment to the correct RabbitMQ queue.
+     * Recalculates the comment count and comment preview of a post from its published comments. The post is not
+     * saved.
+     *
+     * @param post Target post
+     */
+    public void refreshCommentSummary(Post post) {
+        List<CommentPreview> preview = new ArrayList<>(Post.COMMENT_PREVIEW_SIZE);
+
+        commentRepository.findLatestViewsByPostId(post.getId(), PageRequest.of(0, Post.COMMENT_PREVIEW_SIZE))
+                .forEach(comment -> preview.add(new CommentPreview(comment.getId(), comment.getAuthorId(),
+                        comment.getAuthorFirstName(), comment.getAuthorLastName(), comment.getCaption(),
+                        comment.getCreatedAt())));
+        post.setCommentCount((int) commentRepository.countByPostIdAndPublishedTrue(post.getId()));
+        post.setCommentPreview(preview);
+    }
+
+    /**
+     * Helper method that adds a new comment to the comment count and the front of the comment preview of a post.
+     *
+     * @param post    Target post
+     * @param comment Comment that was created
+     */
+    private void prependToCommentSummary(Post post, Comment comment) {
+        List<CommentPreview> preview = new ArrayList<>(Post.COMMENT_PREVIEW_SIZE);
+        User author = comment.getAuthor();
+
+        preview.add(new CommentPreview(comment.getId(), author.getId(), author.getFirstName(), author.getLastName(),
+                comment.getCaption(), comment.getCreatedAt()));
+        post.getCommentPreview().stream().limit(Post.COMMENT_PREVIEW_SIZE - 1).forEach(preview::add);
+        post.setCommentCount(post.getCommentCount() + 1);
+        post.setCommentPreview(preview);
+    }
+
+    /**
+     * Helper method that removes an unpublished comment from the comment count and comment preview of a post. The
+     * preview is only reloaded if it contained the comment.
+     *
+     * @param post    Target post
+     * @param comment Comment that was unpublished
+     */
+    private void subtractFromCommentSummary(Post post, Comment comment) {
+        if (post.getCommentCount() == null || post.getCommentPreview().stream()
+                .anyMatch(preview -> preview.getId() == comment.getId()))
+            refreshCommentSummary(post);
+        else
+            post.setCommentCount(Math.max(post.getCommentCount() - 1, 0));
+    }
+
+    /**
+     * Initializes the comment count and comment preview of posts that were created before they were stored with
+     * the post. Each batch of {@value #SUMMARY_BATCH_SIZE} posts is initialized in one transaction that locks the
+     * posts in ID order like comment changes do, and posts that were initialized by a comment change in the meantime
+     * are skipped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCommentSummaries() {
+        try {
+            List<Long> postIds;
+            long lastId = 0;
+            int count = 0;
+
+            while (!(postIds = postService.postIdsWithoutCommentSummary(lastId, SUMMARY_BATCH_SIZE)).isEmpty()) {
+                List<Long> batch = postIds;
+
+                count += transactionTemplate.execute(status -> {
+                    int initialized = 0;
+
+                    for (long postId : batch) {
+                        Optional<Post> post = postService.lockPost(postId);
+
+                        if (post.isPresent() && post.get().getCommentCount() == null) {
+                            refreshCommentSummary(post.get());
+                            initialized++;
+                        }
+                    }
+
+                    return initialized;
+                });
+                lastId = postIds.get(postIds.size() - 1);
+            }
+
+            if (count > 0)
+                LOGGER.info("The comment summaries of " + count + " posts have been initialized");
+        } catch (RuntimeException exception) {
+            LOGGER.warn("The comment summaries of existing posts could not be initialized", exception);
+        }
+    }
+
+    /**
+     * Processes a comment creation request by sending the comment to the correct queue.
      *
      * @param commentDto Comment to be created
      */
@@ -122,9 +306,10 @@ public class CommentService {
 
         if (userId.equals(commentDto.getAuthorId())) {
             if (postService.postExists(commentDto.getPostId())) {
-                LOGGER.info("A new comment is being sent to the exchange " + exchangeName
-                        + " to be routed to the queue " + commentQueueName);
-                rabbitTemplate.convertAndSend(commentQueueName, commentDto);
+                String queueName = postPartitioner.queueName(commentQueueName, commentDto.getPostId());
+
+                LOGGER.info("A new comment is being sent to the queue " + queueName);
+                messageTransport.send(queueName, commentDto);
             } else
                 throw new NoSuchElementException("A post with ID " + commentDto.getPostId() + " does not exist");
         } else
@@ -133,35 +318,34 @@ public class CommentService {
     }
 
     /**
-     * Processes a comment deletion request by sending the comment ID to the correct RabbitMQ queue.
+     * Processes a comment deletion request by sending the comment ID to the correct queue.
      *
      * @param commentId ID of the target comment
      */
     public void processCommentDeletion(long commentId) {
         String userId = new UserSecurityContext(userService).getUser().getId();
+        Comment comment = verifyComment(commentId);
 
-        if (userId.equals(verifyComment(commentId).getAuthor().getId())) {
-            LOGGER.info("A comment deletion is being sent to exchange " + exchangeName
-                    + " to be routed to the queue " + commentDeletionQueueName);
-            rabbitTemplate.convertAndSend(commentDeletionQueueName, commentId);
+        if (userId.equals(comment.getAuthor().getId())) {
+            String queueName = postPartitioner.queueName(commentDeletionQueueName, comment.getPost().getId());
+
+            LOGGER.info("A comment deletion is being sent to the queue " + queueName);
+            messageTransport.send(queueName, commentId);
         } else
             throw new SecurityException("The comment trying to be deleted was not created by "
                     + "the requesting user");
     }
 
     /**
-     * Processes an internal comment deletion request by sending the comment ID to the correct RabbitMQ queue.
-     * This method should not be used with external request as it provides no user verification.
+     * Helper method that locks the post of a comment summary change.
      *
-     * @param commentId ID of the target comment
+     * @param postId ID of the target post
+     * @return The locked post
+     * @throws NoSuchElementException A post with the specified ID was not found
      */
-    protected void processCommentDeletionInternal(long commentId) {
-        if (commentExists(commentId)) {
-            LOGGER.info("A comment deletion is being sent to exchange " + exchangeName
-                    + " to be routed to the queue " + commentDeletionQueueName);
-            rabbitTemplate.convertAndSend(commentDeletionQueueName, commentId);
-        } else
-            throw new NoSuchElementException("A comment with ID " + commentId + " does not exist");
+    private Post lockPost(long postId) {
+        return postService.lockPost(postId).orElseThrow(() ->
+                new NoSuchElementException("A post with ID " + postId + " does not exist"));
     }
 
     /**
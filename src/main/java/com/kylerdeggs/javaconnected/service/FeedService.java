@@ -0,0 +1,355 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.Cursor;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the newest published posts in a bounded lock free ring buffer so the first pages of the global feed can
+ * be served from memory. Every published post that is newer than the oldest entry of the buffer is held by the
+ * buffer, so a page that starts inside the buffer is complete without querying the database. Posts are only
+ * appended by the node that consumes their queue, so the buffer is reloaded from the database every
+ * {@code feed.refresh-interval} to pick up the changes made by other nodes. Changes that arrive while the buffer is
+ * reloaded are applied to the reloaded buffer as well.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@Service
+public class FeedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeedService.class);
+
+    private final PostRepository postRepository;
+    private final int capacity;
+    private final long refreshIntervalMillis;
+    private final ReentrantReadWriteLock ringLock = new ReentrantReadWriteLock();
+
+    private volatile Ring ring;
+    private Queue<Consumer<Ring>> pendingChanges;
+    private volatile boolean running;
+    private Thread refreshThread;
+
+    @Autowired
+    public FeedService(PostRepository postRepository, @Value("${feed.capacity}") int capacity,
+                       @Value("${feed.refresh-interval}") Duration refreshInterval) {
+        if (capacity <= CursorPage.MAX_SIZE)
+            throw new IllegalArgumentException("The feed capacity must be greater than " + CursorPage.MAX_SIZE);
+
+        this.postRepository = postRepository;
+        this.capacity = capacity;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        ring = new Ring(capacity);
+    }
+
+    /**
+     * Loads the newest published posts into the buffer before any queue consumer can append to it and starts the
+     * thread that reloads the buffer.
+     */
+    @PostConstruct
+    void warm() {
+        try {
+            LOGGER.info("The feed has been warmed with " + refresh() + " posts");
+        } catch (RuntimeException exception) {
+            LOGGER.warn("The feed could not be warmed and will only hold new posts until it is refreshed", exception);
+        }
+
+        running = true;
+        refreshThread = new Thread(this::refreshLoop, "feed-refresh");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+    }
+
+    /**
+     * Stops the thread that reloads the buffer.
+     *
+     * @throws InterruptedException Interrupted while waiting for the refresh thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(refreshThread);
+        refreshThread.join(refreshIntervalMillis);
+    }
+
+    /**
+     * Replaces the buffer with the newest published posts of the database. Changes that arrive while the posts are
+     * loaded are recorded and applied to the new buffer before it replaces the current one.
+     *
+     * @return Number of posts that were loaded
+     */
+    int refresh() {
+        List<PostView> newest;
+        Ring fresh = new Ring(capacity);
+
+        ringLock.writeLock().lock();
+        try {
+            pendingChanges = new ConcurrentLinkedQueue<>();
+        } finally {
+            ringLock.writeLock().unlock();
+        }
+
+        try {
+            newest = postRepository.findPublishedViews(PageRequest.of(0, capacity));
+            for (int i = newest.size() - 1; i >= 0; i--)
+                fresh.append(newest.get(i));
+            fresh.complete = newest.size() < capacity;
+        } catch (RuntimeException exception) {
+            fresh = null;
+            throw exception;
+        } finally {
+            ringLock.writeLock().lock();
+            try {
+                if (fresh != null) {
+                    for (Consumer<Ring> change : pendingChanges)
+                        change.accept(fresh);
+                    ring = fresh;
+                }
+                pendingChanges = null;
+            } finally {
+                ringLock.writeLock().unlock();
+            }
+        }
+
+        return newest.size();
+    }
+
+    /**
+     * Adds a newly created post to the top of the feed.
+     *
+     * @param post Post that was created
+     */
+    public void append(PostView post) {
+        apply(current -> current.append(post), fresh -> {
+            if (!fresh.contains(post.getId()))
+                fresh.append(post);
+        });
+    }
+
+    /**
+     * Replaces a post in the feed with a newer version of it.
+     *
+     * @param post Updated post
+     */
+    public void replace(PostView post) {
+        Consumer<Ring> change = current -> current.swap(post.getId(),
+                entry -> new Entry(entry.sequence, post, entry.published));
+
+        apply(change, change);
+    }
+
+    /**
+     * Removes a post from the feed.
+     *
+     * @param postId ID of the post that was deleted
+     */
+    public void remove(long postId) {
+        Consumer<Ring> change = current -> current.swap(postId,
+                entry -> new Entry(entry.sequence, entry.post, false));
+
+        apply(change, change);
+    }
+
+    /**
+     * Removes a deleted post from the feed once its deletion has been committed.
+     *
+     * @param event Deletion of the post
+     */
+    @TransactionalEventListener
+    public void onPostDeleted(PostDeletedEvent event) {
+        remove(event.getPostId());
+    }
+
+    /**
+     * Retrieves a page of the feed from memory.
+     *
+     * @param cursor Position after which the page starts or null for the first page
+     * @param size   Page size
+     * @return The page or an empty optional if the page is not fully held in memory
+     */
+    public Optional<CursorPage<PostView>> page(Cursor cursor, int size) {
+        return ring.page(cursor, size);
+    }
+
+    /**
+     * Helper method that applies a change to the current buffer and records it for the buffer that is being
+     * loaded, if any.
+     *
+     * @param change Change of the current buffer
+     * @param replay Change of the buffer that is being loaded
+     */
+    private void apply(Consumer<Ring> change, Consumer<Ring> replay) {
+        ringLock.readLock().lock();
+        try {
+            change.accept(ring);
+            if (pendingChanges != null)
+                pendingChanges.add(replay);
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            if (!running)
+                return;
+
+            try {
+                refresh();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The feed could not be refreshed and keeps the posts it holds", exception);
+            }
+        }
+    }
+
+    /**
+     * Helper method that determines if a post comes after the cursor in the newest to oldest feed order.
+     *
+     * @param post   Target post
+     * @param cursor Position of the last post of the previous page
+     * @return True if the post belongs after the cursor
+     */
+    private static boolean isBefore(PostView post, Cursor cursor) {
+        LocalDateTime createdAt = post.getCreatedAt();
+        int comparison = createdAt.compareTo(cursor.getCreatedAt());
+
+        return comparison < 0 || (comparison == 0 && post.getId() < cursor.getNumericId());
+    }
+
+    /**
+     * Ring buffer of the newest posts. Appends are serialized by sequence and entries are replaced atomically.
+     */
+    private static class Ring {
+        private final int capacity;
+        private final AtomicReferenceArray<Entry> slots;
+        private final AtomicLong claimed = new AtomicLong();
+        private final AtomicLong published = new AtomicLong();
+
+        private volatile boolean complete;
+
+        private Ring(int capacity) {
+            this.capacity = capacity;
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void append(PostView post) {
+            long sequence = claimed.getAndIncrement();
+
+            slots.set(slotIndex(sequence), new Entry(sequence, post, true));
+            while (!published.compareAndSet(sequence, sequence + 1))
+                Thread.onSpinWait();
+            if (sequence >= capacity)
+                complete = false;
+        }
+
+        private boolean contains(long postId) {
+            long end = published.get();
+
+            for (long sequence = end - 1; sequence >= Math.max(0, end - capacity); sequence--) {
+                Entry entry = slots.get(slotIndex(sequence));
+
+                if (entry != null && entry.sequence == sequence && entry.post.getId() == postId)
+                    return true;
+            }
+
+            return false;
+        }
+
+        private Optional<CursorPage<PostView>> page(Cursor cursor, int size) {
+            long end = published.get();
+            long start = Math.max(0, end - capacity);
+            boolean completeAtStart = complete;
+            List<PostView> rows = new ArrayList<>(size + 1);
+
+            for (long sequence = end - 1; sequence >= start && rows.size() <= size; sequence--) {
+                Entry entry = slots.get(slotIndex(sequence));
+
+                if (entry == null || entry.sequence != sequence)
+                    return Optional.empty();
+                if (entry.published && (cursor == null || isBefore(entry.post, cursor)))
+                    rows.add(entry.post);
+            }
+
+            if (rows.size() <= size && !(completeAtStart && complete))
+                return Optional.empty();
+
+            return Optional.of(CursorPage.of(rows, size, post ->
+                    new Cursor(post.getCreatedAt(), String.valueOf(post.getId()))));
+        }
+
+        /**
+         * Atomically replaces the entry of the specified post.
+         *
+         * @param postId  ID of the target post
+         * @param updater Function that creates the replacement entry
+         */
+        private void swap(long postId, UnaryOperator<Entry> updater) {
+            long end = published.get();
+
+            for (long sequence = end - 1; sequence >= Math.max(0, end - capacity); sequence--) {
+                int index = slotIndex(sequence);
+                Entry entry;
+
+                do {
+                    entry = slots.get(index);
+                    if (entry == null || entry.sequence != sequence || !entry.published
+                            || entry.post.getId() != postId)
+                        break;
+                } while (!slots.compareAndSet(index, entry, updater.apply(entry)));
+
+                if (entry != null && entry.sequence == sequence && entry.post.getId() == postId)
+                    return;
+            }
+        }
+
+        private int slotIndex(long sequence) {
+            return (int) (sequence % capacity);
+        }
+    }
+
+    /**
+     * Immutable slot of the ring buffer.
+     */
+    private static class Entry {
+        private final long sequence;
+
+        private final PostView post;
+
+        private final boolean published;
+
+        private Entry(long sequence, PostView post, boolean published) {
+            this.sequence = sequence;
+            this.post = post;
+            this.published = published;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Transport that hands messages to the queue consumers of this process through a ring buffer per queue. Messages are
+ * passed by reference without being serialized and are lost when the process stops, so it is meant for single node
+ * deployments and benchmarks. Messages sent within a transaction are published once the transaction commits.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "in-process")
+public class InProcessTransport implements MessageTransport {
+    private final Map<String, RingBuffer<Object>> ringBuffers = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final String waitStrategy;
+    private final int maxBatchSize;
+
+    @Autowired
+    public InProcessTransport(@Value("${messaging.in-process.buffer-size}") int bufferSize,
+                              @Value("${messaging.in-process.wait-strategy}") String waitStrategy,
+                              @Value("${messaging.in-process.max-batch-size}") int maxBatchSize) {
+        this.bufferSize = bufferSize;
+        this.waitStrategy = waitStrategy;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void send(String queueName, Object payload) {
+        RingBuffer<Object> ringBuffer = ringBuffers.get(queueName);
+
+        if (ringBuffer == null)
+            throw new IllegalArgumentException("No consumer has subscribed to the queue " + queueName);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            ringBuffer.publish(payload);
+        else
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    ringBuffer.publish(payload);
+                }
+            });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(String queueName, Consumer<List<T>> consumer) {
+        ringBuffers.compute(queueName, (name, existing) -> {
+            if (existing != null)
+                throw new IllegalArgumentException("A consumer has already subscribed to the queue " + name);
+
+            return new RingBuffer<>(name, bufferSize, WaitStrategy.of(waitStrategy), maxBatchSize,
+                    messages -> consumer.accept((List<T>) messages));
+        });
+    }
+
+    /**
+     * Closes every ring buffer after its consumer processed the messages that have been published.
+     *
+     * @throws InterruptedException Interrupted while waiting for a consumer
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (RingBuffer<Object> ringBuffer : ringBuffers.values())
+            ringBuffer.close();
+    }
+}
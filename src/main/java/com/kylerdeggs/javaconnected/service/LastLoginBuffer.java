@@ -0,0 +1,131 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind buffer for the last sign-in of users. Only the latest sign-in of each user is kept to the second, and
+ * a flush thread writes all pending sign-ins in one transaction every {@code user.last-login.flush-interval} with one
+ * update per second that the users signed in at, so a burst of sign-ins becomes a few statements. The updates do not
+ * change the version of the users. Pending sign-ins are flushed on shutdown.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@Service
+public class LastLoginBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LastLoginBuffer.class);
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> userCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMillis;
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread flushThread;
+
+    @Autowired
+    public LastLoginBuffer(UserRepository userRepository, Cache<String, User> userCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${user.last-login.flush-interval}") Duration flushInterval) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMillis = flushInterval.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flushThread = new Thread(this::flushLoop, "last-login-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    /**
+     * Stops the flush thread and flushes the sign-ins that are still pending.
+     *
+     * @throws InterruptedException Interrupted while waiting for the flush thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flushThread);
+        flushThread.join(flushIntervalMillis);
+        flush();
+    }
+
+    /**
+     * Records a sign-in to be written with the next flush. Earlier sign-ins of the same user are replaced.
+     *
+     * @param userId   ID of the user that signed in
+     * @param signedIn Time of the sign-in
+     */
+    public void record(String userId, LocalDateTime signedIn) {
+        pending.merge(userId, signedIn.truncatedTo(ChronoUnit.SECONDS),
+                (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Writes the pending sign-ins in one transaction with one update for all users that signed in at the same
+     * second. Sign-ins that are recorded during the flush stay pending for the next one.
+     *
+     * @return Number of updated users
+     */
+    int flush() {
+        if (pending.isEmpty())
+            return 0;
+
+        Map<String, LocalDateTime> signIns = new HashMap<>(pending);
+        Map<LocalDateTime, List<String>> usersBySignIn = new HashMap<>();
+
+        signIns.forEach((userId, signedIn) ->
+                usersBySignIn.computeIfAbsent(signedIn, time -> new ArrayList<>()).add(userId));
+
+        Integer updated = transactionTemplate.execute(status -> usersBySignIn.entrySet().stream()
+                .mapToInt(entry -> userRepository.updateLastLogin(entry.getKey(), entry.getValue())).sum());
+
+        signIns.forEach(pending::remove);
+        userCache.invalidateAll(signIns.keySet());
+        LOGGER.info("The last sign-in of " + updated + " users has been updated");
+
+        return updated != null ? updated : 0;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            try {
+                flush();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The last sign-ins could not be written and will be retried", exception);
+            }
+        }
+    }
+}
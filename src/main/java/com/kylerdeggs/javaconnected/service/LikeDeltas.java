@@ -0,0 +1,109 @@
+package com.kylerdeggs.javaconnected.service;
+
+import java.util.Arrays;
+
+/**
+ * Sums of like count changes per post ID for a batch of like messages. Post IDs and sums are kept in primitive
+ * arrays with open addressing so a batch allocates nothing per message.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class LikeDeltas {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] postIds;
+    private int[] deltas;
+    private int size;
+
+    public LikeDeltas(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+
+        postIds = new long[capacity];
+        deltas = new int[capacity];
+        Arrays.fill(postIds, EMPTY);
+    }
+
+    /**
+     * Adds a like count change to a post.
+     *
+     * @param postId ID of the target post
+     * @param delta  Change of the like count
+     */
+    public void add(long postId, int delta) {
+        int slot = slot(postIds, postId);
+
+        if (postIds[slot] == EMPTY) {
+            if ((size + 1) * 2 > postIds.length) {
+                resize();
+                slot = slot(postIds, postId);
+            }
+            postIds[slot] = postId;
+            size++;
+        }
+        deltas[slot] += delta;
+    }
+
+    /**
+     * Retrieves the summed like count change of a post.
+     *
+     * @param postId ID of the target post
+     * @return The summed change or 0 if the post is not part of the batch
+     */
+    public int get(long postId) {
+        int slot = slot(postIds, postId);
+
+        return postIds[slot] == EMPTY ? 0 : deltas[slot];
+    }
+
+    /**
+     * Retrieves the IDs of the posts whose like count changed in ascending order so that concurrent batches lock
+     * the rows in the same order.
+     *
+     * @return Sorted array of post IDs with a non zero change
+     */
+    public long[] changedPostIds() {
+        long[] changed = new long[size];
+        int count = 0;
+
+        for (int slot = 0; slot < postIds.length; slot++)
+            if (postIds[slot] != EMPTY && deltas[slot] != 0)
+                changed[count++] = postIds[slot];
+
+        changed = Arrays.copyOf(changed, count);
+        Arrays.sort(changed);
+
+        return changed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] oldPostIds = postIds;
+        int[] oldDeltas = deltas;
+
+        postIds = new long[oldPostIds.length * 2];
+        deltas = new int[postIds.length];
+        Arrays.fill(postIds, EMPTY);
+        for (int oldSlot = 0; oldSlot < oldPostIds.length; oldSlot++)
+            if (oldPostIds[oldSlot] != EMPTY) {
+                int slot = slot(postIds, oldPostIds[oldSlot]);
+
+                postIds[slot] = oldPostIds[oldSlot];
+                deltas[slot] = oldDeltas[oldSlot];
+            }
+    }
+
+    private static int slot(long[] postIds, long postId) {
+        long hash = postId * 0x9E3779B97F4A7C15L;
+        int mask = postIds.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (postIds[slot] != EMPTY && postIds[slot] != postId)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+}
@@ -0,0 +1,201 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.kylerdeggs.javaconnected.domain.PostLike;
+import com.kylerdeggs.javaconnected.domain.PostLikeId;
+import com.kylerdeggs.javaconnected.repository.PostLikeRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Provides methods for recording which users liked which posts. Every like is stored in the like ledger, so
+ * repeated likes and unlikes from the same user do not change the like count. The users who liked recently used
+ * posts are kept in memory as sets of user ordinals, which are small integers assigned to user IDs in the order
+ * they are first seen. Once more than {@code cache.likes.maximum-users} users have an ordinal, the ordinals and the
+ * sets that use them are dropped and assigned again as posts are loaded, so the ordinals stay bounded. Only the
+ * node that consumes the likes of a post updates its set, so the sets expire after
+ * {@code cache.likes.expire-after-write} to pick up likes recorded by other nodes.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@Service
+public class LikeService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LikeService.class);
+
+    private final PostLikeRepository postLikeRepository;
+    private final Cache<Long, UserOrdinalSet> likeCache;
+    private final int maximumUsers;
+    private final ConcurrentHashMap<String, Integer> userOrdinals = new ConcurrentHashMap<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+    private final ReentrantReadWriteLock ordinalLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public LikeService(PostLikeRepository postLikeRepository, Cache<Long, UserOrdinalSet> likeCache,
+                       @Value("${cache.likes.maximum-users}") int maximumUsers) {
+        this.postLikeRepository = postLikeRepository;
+        this.likeCache = likeCache;
+        this.maximumUsers = maximumUsers;
+    }
+
+    /**
+     * Determines if a user liked a post.
+     *
+     * @param postId ID of the target post
+     * @param userId ID of the target user
+     * @return True if the user liked the post
+     */
+    public boolean likedBy(long postId, String userId) {
+        resetOrdinalsIfFull();
+        ordinalLock.readLock().lock();
+        try {
+            UserOrdinalSet likers = likeCache.get(postId, this::loadLikers);
+            Integer ordinal = userOrdinals.get(userId);
+
+            return ordinal != null && likers.contains(ordinal);
+        } finally {
+            ordinalLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flags the posts that a user liked with a single query for the whole list.
+     *
+     * @param posts  Posts to flag
+     * @param userId ID of the target user
+     * @return A list of copies of the posts with the liked by me flag set
+     */
+    public List<PostView> markLiked(List<PostView> posts, String userId) {
+        if (posts.isEmpty())
+            return posts;
+
+        Set<Long> liked = new HashSet<>(postLikeRepository.findLikedPostIds(userId,
+                posts.stream().map(PostView::getId).collect(Collectors.toSet())));
+
+        return posts.stream().map(post -> post.withLikedByMe(liked.contains(post.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Records a batch of likes and unlikes in the like ledger. Only the last request of a user for a post counts,
+     * and only requests that change the ledger are added to the like count changes. The in memory sets are updated
+     * once the surrounding transaction commits.
+     *
+     * @param likeDtos   Batch of likes and unlikes
+     * @param likeDeltas Like count changes that the effective requests are added to
+     */
+    @Transactional
+    public void recordLikes(List<PostService.LikeDto> likeDtos, LikeDeltas likeDeltas) {
+        Map<PostLikeId, Boolean> requests = new LinkedHashMap<>();
+
+        likeDtos.forEach(likeDto ->
+                requests.put(new PostLikeId(likeDto.getPostId(), likeDto.getUserId()), likeDto.isAddLike()));
+
+        Set<Long> postIds = requests.keySet().stream().map(PostLikeId::getPostId).collect(Collectors.toSet());
+        Set<String> userIds = requests.keySet().stream().map(PostLikeId::getUserId).collect(Collectors.toSet());
+        Set<PostLikeId> existing = new HashSet<>(postLikeRepository.findIds(postIds, userIds));
+        List<PostLike> added = new ArrayList<>();
+        List<PostLike> removed = new ArrayList<>();
+        LocalDateTime currentTime = LocalDateTime.now();
+
+        requests.forEach((id, addLike) -> {
+            if (addLike && !existing.contains(id)) {
+                added.add(new PostLike(id, currentTime));
+                likeDeltas.add(id.getPostId(), 1);
+            } else if (!addLike && existing.contains(id)) {
+                removed.add(new PostLike(id, currentTime));
+                likeDeltas.add(id.getPostId(), -1);
+            }
+        });
+
+        postLikeRepository.saveAll(added);
+        postLikeRepository.deleteInBatch(removed);
+        afterCommit(() -> {
+            resetOrdinalsIfFull();
+            added.forEach(like -> updateLikers(like.getId(), true));
+            removed.forEach(like -> updateLikers(like.getId(), false));
+        });
+    }
+
+    /**
+     * Helper method that updates the users who liked a post if they are held in memory.
+     *
+     * @param id      Post and user of the like
+     * @param addLike True if the like was added or false if it was removed
+     */
+    private void updateLikers(PostLikeId id, boolean addLike) {
+        ordinalLock.readLock().lock();
+        try {
+            likeCache.asMap().computeIfPresent(id.getPostId(), (postId, likers) -> {
+                if (addLike)
+                    likers.add(ordinal(id.getUserId()));
+                else
+                    likers.remove(ordinal(id.getUserId()));
+                return likers;
+            });
+        } finally {
+            ordinalLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Helper method that drops every ordinal and every set of likers once more than the maximum number of users
+     * have an ordinal. Sets are only loaded and changed while holding the read lock, so no set can keep ordinals
+     * from before the reset.
+     */
+    private void resetOrdinalsIfFull() {
+        if (userOrdinals.size() <= maximumUsers)
+            return;
+
+        ordinalLock.writeLock().lock();
+        try {
+            if (userOrdinals.size() > maximumUsers) {
+                LOGGER.info("Resetting the likers held in memory after " + userOrdinals.size()
+                        + " users have been assigned an ordinal");
+                likeCache.invalidateAll();
+                userOrdinals.clear();
+                nextOrdinal.set(0);
+            }
+        } finally {
+            ordinalLock.writeLock().unlock();
+        }
+    }
+
+    private UserOrdinalSet loadLikers(long postId) {
+        UserOrdinalSet likers = new UserOrdinalSet();
+
+        postLikeRepository.findUserIdsByPostId(postId).forEach(userId -> likers.add(ordinal(userId)));
+
+        return likers;
+    }
+
+    private int ordinal(String userId) {
+        return userOrdinals.computeIfAbsent(userId, id -> nextOrdinal.getAndIncrement());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        else
+            action.run();
+    }
+}
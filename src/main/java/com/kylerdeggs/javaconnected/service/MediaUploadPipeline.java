@@ -0,0 +1,315 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.apache.tika.mime.MimeTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads the media of new posts in the background. The media of a post is spooled to local disk together with the
+ * post, and a bounded pool of workers uploads it to S3 and then sends the post to the post queue. Failed uploads
+ * are retried with an exponential backoff until they reach {@code media.upload.max-attempts}. New posts are
+ * rejected while the spool holds {@code media.spool.max-size} of media, and posts that are still spooled when the
+ * application stops are uploaded after the next start. The location of uploaded media is written back to the spool
+ * so it is not uploaded again. The media is stored under its spool ID and the post is sent with its spool ID as
+ * request ID, so media that is uploaded again overwrites the same object and a post that is sent again after a
+ * restart is only created once.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@Service
+public class MediaUploadPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaUploadPipeline.class);
+    private static final String MEDIA_SUFFIX = ".media";
+    private static final String POST_SUFFIX = ".json";
+
+    private final AWSConfig aws;
+    private final MessageTransport messageTransport;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path spoolDirectory;
+    private final long maxSpoolBytes;
+    private final int workers;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final String postQueueName;
+    private final AtomicLong spooledBytes = new AtomicLong();
+
+    private ScheduledExecutorService uploadExecutor;
+
+    @Autowired
+    public MediaUploadPipeline(AWSConfig aws, MessageTransport messageTransport,
+                               @Value("${media.spool.directory}") String spoolDirectory,
+                               @Value("${media.spool.max-size}") DataSize maxSpoolSize,
+                               @Value("${media.upload.workers}") int workers,
+                               @Value("${media.upload.max-attempts}") int maxAttempts,
+                               @Value("${media.upload.retry-backoff}") Duration retryBackoff,
+                               @Value("${amqp.queue.post-name}") String postQueueName) {
+        this.aws = aws;
+        this.messageTransport = messageTransport;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.maxSpoolBytes = maxSpoolSize.toBytes();
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoff.toMillis();
+        this.postQueueName = postQueueName;
+    }
+
+    /**
+     * Starts the upload workers and resumes the uploads of the posts that are still spooled. Media without its post
+     * was not spooled completely and is deleted.
+     *
+     * @throws IOException The spool directory could not be read
+     */
+    @PostConstruct
+    void start() throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        Files.createDirectories(spoolDirectory);
+        uploadExecutor = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "media-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int recovered = 0;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+
+                if (fileName.endsWith(POST_SUFFIX)) {
+                    String id = fileName.substring(0, fileName.length() - POST_SUFFIX.length());
+
+                    if (Files.exists(mediaFile(id))) {
+                        spooledBytes.addAndGet(Files.size(mediaFile(id)));
+                        schedule(new Upload(id), 0);
+                        recovered++;
+                    } else {
+                        LOGGER.error("The spooled post " + id + " has been dropped because its media is missing");
+                        Files.delete(file);
+                    }
+                } else if (!fileName.endsWith(MEDIA_SUFFIX) || !Files.exists(postFile(mediaId(fileName))))
+                    Files.delete(file);
+            }
+        }
+
+        if (recovered > 0)
+            LOGGER.info(recovered + " spooled media uploads have been resumed");
+    }
+
+    /**
+     * Stops the upload workers. Posts whose upload has not finished stay spooled and are uploaded after the next
+     * start.
+     */
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    /**
+     * Spools the media of a post to local disk and schedules its upload. The post is sent to the post queue once
+     * its media has been uploaded.
+     *
+     * @param postDto Post to be created
+     * @param media   Media of the post
+     * @throws IOException                   The media could not be spooled
+     * @throws MimeTypeException             The content type could not be parsed
+     * @throws UnsupportedOperationException Trying to upload a restricted file type
+     * @throws RejectedExecutionException    The spool is full
+     */
+    public void submit(PostDto postDto, MultipartFile media) throws IOException, MimeTypeException {
+        aws.verifyMediaType(media.getContentType());
+
+        long size = media.getSize();
+        long spooled;
+
+        do {
+            spooled = spooledBytes.get();
+            if (spooled > 0 && spooled + size > maxSpoolBytes)
+                throw new RejectedExecutionException("Too many media uploads are in progress, please try again "
+                        + "later");
+        } while (!spooledBytes.compareAndSet(spooled, spooled + size));
+
+        String id = UUID.randomUUID().toString();
+
+        try {
+            media.transferTo(mediaFile(id));
+            writeAtomically(postFile(id), objectMapper.writeValueAsBytes(new SpooledPost(postDto,
+                    media.getContentType())));
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(mediaFile(id));
+            spooledBytes.addAndGet(-size);
+            throw exception;
+        }
+
+        schedule(new Upload(id), 0);
+        LOGGER.info("The media of a new post has been spooled as " + id);
+    }
+
+    /**
+     * Retrieves the number of bytes of media that are spooled.
+     *
+     * @return Spooled bytes
+     */
+    public long spooledBytes() {
+        return spooledBytes.get();
+    }
+
+    private void schedule(Upload upload, long delayMillis) {
+        try {
+            uploadExecutor.schedule(upload, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exception) {
+            LOGGER.info("The upload of " + upload.id + " stays spooled until the next start");
+        }
+    }
+
+    private Path mediaFile(String id) {
+        return spoolDirectory.resolve(id + MEDIA_SUFFIX);
+    }
+
+    private Path postFile(String id) {
+        return spoolDirectory.resolve(id + POST_SUFFIX);
+    }
+
+    private static String mediaId(String fileName) {
+        return fileName.substring(0, fileName.length() - MEDIA_SUFFIX.length());
+    }
+
+    /**
+     * Helper method that writes a file under a temporary name and then renames it, so a file is either complete or
+     * does not exist.
+     *
+     * @param file    Target file
+     * @param content Content of the file
+     * @throws IOException The file could not be written
+     */
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        Files.write(temporary, content);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Upload of one spooled post. The location of its media is written to the spooled post once it has been
+     * uploaded, so a retry after a failed send or a restart does not upload the media again. Once the post has been
+     * passed to the queue the media is kept when the upload is dropped, because a failed send may still have
+     * delivered the post.
+     */
+    private class Upload implements Runnable {
+        private final String id;
+        private int attempts;
+        private String mediaLocation;
+        private boolean sendAttempted;
+
+        private Upload(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            try {
+                SpooledPost spooledPost = objectMapper.readValue(postFile(id).toFile(), SpooledPost.class);
+                PostDto postDto = spooledPost.getPost();
+
+                if (postDto.getMediaLocation() == null) {
+                    if (mediaLocation == null)
+                        mediaLocation = aws.processUpload(postDto.getAuthorId(), id, mediaFile(id),
+                                spooledPost.getContentType());
+
+                    postDto.setMediaLocation(mediaLocation);
+                    writeAtomically(postFile(id), objectMapper.writeValueAsBytes(spooledPost));
+                }
+
+                mediaLocation = postDto.getMediaLocation();
+                postDto.setRequestId(id);
+                sendAttempted = true;
+                messageTransport.send(postQueueName, postDto);
+                LOGGER.info("The spooled post " + id + " has been sent to the queue " + postQueueName);
+            } catch (IOException | MimeTypeException | RuntimeException exception) {
+                retry(exception);
+                return;
+            }
+
+            remove();
+        }
+
+        private void retry(Exception exception) {
+            if (++attempts < maxAttempts) {
+                long backoffMillis = retryBackoffMillis << Math.min(attempts - 1, 20);
+
+                LOGGER.warn("The upload of spooled post " + id + " failed and will be retried in " + backoffMillis
+                        + "ms", exception);
+                schedule(this, backoffMillis);
+            } else {
+                LOGGER.error("The spooled post " + id + " has been dropped after " + maxAttempts + " attempts",
+                        exception);
+                if (mediaLocation != null && !sendAttempted)
+                    aws.deleteMedia(mediaLocation);
+                remove();
+            }
+        }
+
+        private void remove() {
+            try {
+                long size = Files.size(mediaFile(id));
+
+                Files.delete(postFile(id));
+                Files.delete(mediaFile(id));
+                spooledBytes.addAndGet(-size);
+            } catch (IOException exception) {
+                LOGGER.error("The spooled post " + id + " could not be removed from the spool", exception);
+            }
+        }
+    }
+
+    /**
+     * Post and the content type of its media as they are written to the spool.
+     */
+    private static class SpooledPost {
+        private PostDto post;
+
+        private String contentType;
+
+        private SpooledPost() {
+        }
+
+        private SpooledPost(PostDto post, String contentType) {
+            this.post = post;
+            this.contentType = contentType;
+        }
+
+        public PostDto getPost() {
+            return post;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+}
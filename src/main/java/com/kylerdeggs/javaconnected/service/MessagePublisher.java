@@ -0,0 +1,200 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes messages to RabbitMQ without blocking the calling thread. Messages from many requests are queued and
+ * a single publisher thread sends them in batches over one channel. Every message is published with a publisher
+ * confirm that completes the future returned to the caller, and is marked persistent, so a completed future means
+ * the broker has written the message to its durable queue. Messages waiting for their confirm are tracked by
+ * a single sweeper thread that fails the futures of the messages that were not confirmed in time.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+@Service
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "rabbitmq", matchIfMissing = true)
+public class MessagePublisher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessagePublisher.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final MessagePostProcessor PERSISTENT = message -> {
+        message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        return message;
+    };
+
+    private final RabbitTemplate rabbitTemplate;
+    private final BlockingQueue<PendingMessage> pending;
+    private final Set<PendingMessage> unconfirmed = ConcurrentHashMap.newKeySet();
+    private final int batchSize;
+    private final long confirmTimeoutMillis;
+
+    private volatile boolean running;
+    private Thread publisherThread;
+    private Thread sweeperThread;
+
+    @Autowired
+    public MessagePublisher(RabbitTemplate rabbitTemplate, @Value("${amqp.publisher.capacity}") int capacity,
+                            @Value("${amqp.publisher.batch-size}") int batchSize,
+                            @Value("${amqp.publisher.confirm-timeout}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.confirmTimeoutMillis = confirmTimeout.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        publisherThread = new Thread(this::publishLoop, "message-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+        sweeperThread = new Thread(this::sweepLoop, "message-confirm-sweeper");
+        sweeperThread.setDaemon(true);
+        sweeperThread.start();
+    }
+
+    /**
+     * Stops accepting messages and waits for the publisher thread to send the messages that are still queued.
+     *
+     * @throws InterruptedException Interrupted while waiting for the publisher thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        publisherThread.join(confirmTimeoutMillis);
+    }
+
+    /**
+     * Queues a message to be published to a queue through the default exchange.
+     *
+     * @param routingKey Name of the target queue
+     * @param payload    Message payload
+     * @return Future that completes once the broker confirmed the message or fails if it was rejected
+     */
+    public CompletableFuture<Void> publish(String routingKey, Object payload) {
+        PendingMessage message = new PendingMessage(routingKey, payload,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMillis));
+
+        if (!running || !pending.offer(message))
+            message.future.completeExceptionally(new AmqpException("The message to " + routingKey
+                    + " was rejected because the publisher is " + (running ? "at capacity" : "shut down")));
+        else {
+            unconfirmed.add(message);
+            message.future.whenComplete((result, exception) -> unconfirmed.remove(message));
+        }
+
+        return message.future;
+    }
+
+    private void publishLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingMessage first = pending.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sweepLoop() {
+        while (running || !unconfirmed.isEmpty()) {
+            try {
+                Thread.sleep(POLL_TIMEOUT_MILLIS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            for (PendingMessage message : unconfirmed)
+                if (now - message.deadline >= 0)
+                    message.future.completeExceptionally(new AmqpTimeoutException("The message to "
+                            + message.routingKey + " was not confirmed within " + confirmTimeoutMillis + "ms"));
+        }
+    }
+
+    /**
+     * Helper method that sends a batch of messages over a single channel. The confirm of each message is
+     * correlated back to its future.
+     *
+     * @param batch Messages to send
+     */
+    private void publishBatch(List<PendingMessage> batch) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (PendingMessage message : batch) {
+                    CorrelationData correlationData = new CorrelationData();
+
+                    correlationData.getFuture().addCallback(confirm -> {
+                        if (!confirm.isAck())
+                            message.future.completeExceptionally(new AmqpException("The message to "
+                                    + message.routingKey + " was rejected by the broker: " + confirm.getReason()));
+                        else if (correlationData.getReturnedMessage() != null)
+                            message.future.completeExceptionally(new AmqpException("The message to "
+                                    + message.routingKey + " could not be routed"));
+                        else
+                            message.future.complete(null);
+                    }, message.future::completeExceptionally);
+                    operations.convertAndSend(message.routingKey, message.payload, PERSISTENT, correlationData);
+                }
+
+                return null;
+            });
+        } catch (AmqpException exception) {
+            LOGGER.error("A batch of " + batch.size() + " messages could not be published", exception);
+            batch.forEach(message -> message.future.completeExceptionally(exception));
+        }
+    }
+
+    private static class PendingMessage {
+        private final String routingKey;
+
+        private final Object payload;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private final long deadline;
+
+        private PendingMessage(String routingKey, Object payload, long deadline) {
+            this.routingKey = routingKey;
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+    }
+}
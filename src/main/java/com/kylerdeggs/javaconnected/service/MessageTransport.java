@@ -0,0 +1,31 @@
+package com.kylerdeggs.javaconnected.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transport that carries queue messages from the request path to the queue consumers. The implementation is
+ * selected with the {@code messaging.transport} property.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public interface MessageTransport {
+    /**
+     * Sends a message to a queue.
+     *
+     * @param queueName Name of the target queue
+     * @param payload   Message payload
+     */
+    void send(String queueName, Object payload);
+
+    /**
+     * Subscribes the single consumer of a queue. The consumer receives the messages in the order they were sent
+     * in batches of one or more messages. Subscriptions have to be made while the application starts.
+     *
+     * @param queueName Name of the queue
+     * @param consumer  Consumer of a batch of messages
+     * @param <T>       Type of the messages
+     */
+    <T> void subscribe(String queueName, Consumer<List<T>> consumer);
+}
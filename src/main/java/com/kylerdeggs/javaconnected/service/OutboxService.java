@@ -0,0 +1,325 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.domain.OutboxMessage;
+import com.kylerdeggs.javaconnected.domain.ParkedOutboxMessage;
+import com.kylerdeggs.javaconnected.repository.OutboxRepository;
+import com.kylerdeggs.javaconnected.repository.ParkedOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for queue messages. Requests only write their messages to the outbox table, and a relay
+ * thread publishes them in batches, oldest first. A batch is claimed with a lease of {@code outbox.lease} in a short
+ * transaction, published and confirmed outside of any transaction, and settled in a second short transaction, so
+ * no database lock is held while the relay waits for the broker. Confirmed messages are deleted. Failed messages
+ * are released and retried with an exponential backoff, and are moved to the {@code outbox_parked_message} table
+ * once they reach {@code outbox.max-attempts}.
+ * <p>
+ * Messages are delivered at least once and in the order they were written per routing key, so the messages of a
+ * post keep their order within its partition. The messages of a routing key are published one after the other, a
+ * failed message holds back the messages behind it until it is published or parked, and a relay only claims the
+ * messages of a routing key up to the first message that another relay claimed. A message is published again if
+ * its relay stops or its lease ends before it is settled.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+@Service
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "rabbitmq", matchIfMissing = true)
+public class OutboxService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxRepository outboxRepository;
+    private final ParkedOutboxRepository parkedOutboxRepository;
+    private final MessageConverter messageConverter;
+    private final MessagePublisher messagePublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long maxBackoffMillis;
+    private final int maxAttempts;
+    private final Duration lease;
+
+    private volatile boolean running;
+    private volatile Thread relayThread;
+
+    @Autowired
+    public OutboxService(OutboxRepository outboxRepository, ParkedOutboxRepository parkedOutboxRepository,
+                         MessageConverter messageConverter, MessagePublisher messagePublisher,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${outbox.batch-size}") int batchSize,
+                         @Value("${outbox.poll-interval}") Duration pollInterval,
+                         @Value("${outbox.max-backoff}") Duration maxBackoff,
+                         @Value("${outbox.max-attempts}") int maxAttempts,
+                         @Value("${outbox.lease}") Duration lease) {
+        this.outboxRepository = outboxRepository;
+        this.parkedOutboxRepository = parkedOutboxRepository;
+        this.messageConverter = messageConverter;
+        this.messagePublisher = messagePublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        relayThread = new Thread(this::relayLoop, "outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    /**
+     * Stops the relay after its current batch. Messages that are still in the outbox are published after the next
+     * start.
+     *
+     * @throws InterruptedException Interrupted while waiting for the relay thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(relayThread);
+        relayThread.join(maxBackoffMillis);
+    }
+
+    /**
+     * Writes a message to the outbox as part of the current transaction. The relay is woken up once the
+     * transaction commits.
+     *
+     * @param routingKey Name of the target queue
+     * @param payload    Message payload
+     */
+    @Transactional
+    public void enqueue(String routingKey, Object payload) {
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+
+        outboxRepository.save(new OutboxMessage(routingKey, message.getMessageProperties().getContentType(),
+                message.getBody(), LocalDateTime.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                Thread relay = relayThread;
+
+                if (relay != null)
+                    LockSupport.unpark(relay);
+            }
+        });
+    }
+
+    /**
+     * Claims the oldest available batch of messages, publishes it and waits for the confirms, and then deletes the
+     * confirmed messages. Messages with the same routing key are published one after the other, and the messages
+     * behind a failed message are held back without counting an attempt. Failed messages are released for a retry or
+     * parked once they failed for the last time.
+     *
+     * @return Number of published messages or -1 if no message of the batch could be published
+     */
+    int relayBatch() {
+        String claim = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> claimBatch(claim, now));
+
+        if (batch == null || batch.isEmpty())
+            return 0;
+
+        Map<String, CompletableFuture<Void>> lastByRoutingKey = new HashMap<>();
+        Set<OutboxMessage> attempted = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+        List<Long> published = new ArrayList<>(batch.size());
+        List<Long> heldBack = new ArrayList<>();
+        Map<OutboxMessage, Throwable> failed = new LinkedHashMap<>();
+
+        for (OutboxMessage outboxMessage : batch) {
+            CompletableFuture<Void> previous = lastByRoutingKey.get(outboxMessage.getRoutingKey());
+            CompletableFuture<Void> future = previous == null ? publish(outboxMessage, attempted)
+                    : previous.thenCompose(confirmed -> publish(outboxMessage, attempted));
+
+            lastByRoutingKey.put(outboxMessage.getRoutingKey(), future);
+            futures.add(future);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage outboxMessage = batch.get(i);
+
+            try {
+                futures.get(i).join();
+                published.add(outboxMessage.getId());
+            } catch (CompletionException exception) {
+                if (attempted.contains(outboxMessage))
+                    failed.put(outboxMessage, exception.getCause());
+                else
+                    heldBack.add(outboxMessage.getId());
+            }
+        }
+
+        transactionTemplate.execute(status -> {
+            settle(published, heldBack, failed);
+            return null;
+        });
+
+        return published.isEmpty() ? -1 : published.size();
+    }
+
+    /**
+     * Helper method that claims the oldest available messages. The oldest messages of their routing keys are locked
+     * first, so the messages of a routing key are only claimed up to the first message that another relay claimed
+     * or that waits for a retry.
+     *
+     * @param claim Claim of the relay
+     * @param now   Current time
+     * @return The claimed messages from oldest to newest
+     */
+    private List<OutboxMessage> claimBatch(String claim, LocalDateTime now) {
+        Set<String> routingKeys = new HashSet<>(outboxRepository.findAvailableRoutingKeys(now,
+                PageRequest.of(0, batchSize)));
+        Set<String> blocked = new HashSet<>();
+        List<OutboxMessage> batch = new ArrayList<>(batchSize);
+
+        if (routingKeys.isEmpty())
+            return Collections.emptyList();
+
+        for (OutboxMessage outboxMessage : outboxRepository.lockOldest(routingKeys, PageRequest.of(0, batchSize))) {
+            if (blocked.contains(outboxMessage.getRoutingKey()))
+                continue;
+
+            if (outboxMessage.getAvailableAt() != null && outboxMessage.getAvailableAt().isAfter(now))
+                blocked.add(outboxMessage.getRoutingKey());
+            else
+                batch.add(outboxMessage);
+        }
+
+        if (batch.isEmpty() || outboxRepository.claim(batch.stream().map(OutboxMessage::getId)
+                .collect(Collectors.toList()), claim, now.plus(lease), now) == 0)
+            return Collections.emptyList();
+
+        return batch;
+    }
+
+    /**
+     * Helper method that publishes a message and remembers that it has been attempted.
+     *
+     * @param outboxMessage Message to publish
+     * @param attempted     Messages that have been attempted
+     * @return Future that completes once the broker confirmed the message
+     */
+    private CompletableFuture<Void> publish(OutboxMessage outboxMessage, Set<OutboxMessage> attempted) {
+        MessageProperties messageProperties = new MessageProperties();
+
+        attempted.add(outboxMessage);
+        messageProperties.setContentType(outboxMessage.getContentType());
+        return messagePublisher.publish(outboxMessage.getRoutingKey(),
+                new Message(outboxMessage.getBody(), messageProperties));
+    }
+
+    /**
+     * Helper method that deletes published messages, releases held back messages, releases failed messages until
+     * their retry, and parks failed messages that reached the maximum number of attempts.
+     *
+     * @param published IDs of the published messages
+     * @param heldBack  IDs of the messages that were held back by a failed message
+     * @param failed    Failed messages and the cause of their failure
+     */
+    private void settle(List<Long> published, List<Long> heldBack, Map<OutboxMessage, Throwable> failed) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, List<Long>> retriesByAttempts = new TreeMap<>();
+        List<Long> parked = new ArrayList<>();
+
+        failed.forEach((outboxMessage, cause) -> {
+            int attempts = outboxMessage.getAttempts() + 1;
+
+            if (attempts < maxAttempts)
+                retriesByAttempts.computeIfAbsent(attempts, key -> new ArrayList<>()).add(outboxMessage.getId());
+            else {
+                LOGGER.error("Outbox message " + outboxMessage.getId() + " to " + outboxMessage.getRoutingKey()
+                        + " has been parked after " + attempts + " attempts", cause);
+                parkedOutboxRepository.save(new ParkedOutboxMessage(outboxMessage, attempts, String.valueOf(cause),
+                        now));
+                parked.add(outboxMessage.getId());
+            }
+        });
+
+        if (!published.isEmpty())
+            outboxRepository.deleteByIds(published);
+        if (!parked.isEmpty())
+            outboxRepository.deleteByIds(parked);
+        if (!heldBack.isEmpty())
+            outboxRepository.releaseHeldBack(heldBack);
+        retriesByAttempts.forEach((attempts, ids) ->
+                outboxRepository.releaseFailed(ids, now.plus(Duration.ofMillis(backoffMillis(attempts)))));
+    }
+
+    /**
+     * Helper method that calculates the exponential backoff before the next attempt of a message.
+     *
+     * @param attempts Number of failed attempts of the message
+     * @return Backoff in milliseconds
+     */
+    private long backoffMillis(int attempts) {
+        return Math.min(pollIntervalMillis << Math.min(attempts, 30), maxBackoffMillis);
+    }
+
+    private void relayLoop() {
+        long backoffMillis = pollIntervalMillis;
+
+        while (running) {
+            int relayed;
+
+            try {
+                relayed = relayBatch();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The outbox could not be relayed and will be retried in " + backoffMillis + "ms",
+                        exception);
+                relayed = -1;
+            }
+
+            if (relayed < 0) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+
+                while (running && System.nanoTime() < deadline)
+                    LockSupport.parkNanos(deadline - System.nanoTime());
+                backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+            } else {
+                backoffMillis = pollIntervalMillis;
+                if (relayed < batchSize)
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis));
+            }
+        }
+    }
+}
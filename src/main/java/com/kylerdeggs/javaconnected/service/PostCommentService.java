@@ -1,23 +1,31 @@
 package com.kylerdeggs.javaconnected.service;
 
-import com.kylerdeggs.javaconnected.domain.Post;
-import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.CommentView;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.NotNull;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Provides methods for retrieving a combination of posts and comments.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.4.0
  */
 @Service
 public class PostCommentService {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final PostService postService;
     private final CommentService commentService;
 
@@ -28,16 +36,17 @@ public class PostCommentService {
     }
 
     /**
-     * Retrieves all posts and corresponding comments for the post.
+     * Retrieves a page of posts ordered from newest to oldest with the corresponding comments for each post.
      *
-     * @return A list of all posts and corresponding comments
+     * @param cursor Cursor returned with the previous page or null for the first page
+     * @param limit  Requested page size
+     * @return A page of posts and corresponding comments and the cursor for the next page
      */
-    public List<PostCommentDto> allPostsAndComments() {
-        List<PostCommentDto> output = new ArrayList<>();
-
-        postService.allPosts().forEach(post -> output.add(new PostCommentDto(post, retrieveCommentsForPost(post))));
+    @Transactional(readOnly = true)
+    public CursorPage<PostCommentDto> postAndCommentPage(String cursor, int limit) {
+        CursorPage<PostView> page = postService.postPage(cursor, limit);
 
-        return output;
+        return new CursorPage<>(combinePostsAndComments(page.getItems()), page.getNextCursor());
     }
 
     /**
@@ -46,93 +55,106 @@ public class PostCommentService {
      * @param authorId ID of the target user
      * @return A list of all posts by the target user with the corresponding comments
      */
+    @Transactional(readOnly = true)
     public List<PostCommentDto> allPostsByUserAndComments(String authorId) {
-        List<PostCommentDto> output = new ArrayList<>();
-
-        postService.allPostsByUser(authorId).forEach(post ->
-                output.add(new PostCommentDto(post, retrieveCommentsForPost(post))));
-
-        return output;
+        return combinePostsAndComments(postService.allPostViewsByUser(authorId));
     }
 
     /**
-     * Helper method that transforms comments of a post into a list of CommentData objects.
+     * Streams all posts and corresponding comments for the post in batches. Posts are read as projections so
+     * nothing is held by the persistence context and memory stays flat regardless of the number of posts.
      *
-     * @param post Target post
-     * @return List of CommentData objects corresponding to the current post
+     * @param batchConsumer Consumer that receives each batch of posts and corresponding comments
      */
-    private List<CommentData> retrieveCommentsForPost(Post post) {
-        List<CommentData> comments = new ArrayList<>();
-
-        commentService.allCommentsForPost(post).forEach(comment ->
-                comments.add(new CommentData(comment.getId(), comment.getAuthor(), comment.getCaption(),
-                        comment.getCreatedAt())));
-
-        return comments;
+    @Transactional(readOnly = true)
+    public void streamPostsAndComments(Consumer<List<PostCommentDto>> batchConsumer) {
+        try (Stream<PostView> posts = postService.streamPosts()) {
+            consumeInBatches(posts, batchConsumer);
+        }
     }
 
     /**
-     * Post and comment combination object.
+     * Streams all posts by a specific user with the corresponding comments in batches. Posts are read as
+     * projections so nothing is held by the persistence context and memory stays flat regardless of the number
+     * of posts.
      *
-     * @author Kyler Deggs
-     * @version 1.0.0
+     * @param authorId      ID of the target user
+     * @param batchConsumer Consumer that receives each batch of posts and corresponding comments
      */
-    public static class PostCommentDto {
-        @NotNull
-        private final Post post;
-
-        private final @NotNull List<CommentData> comments;
-
-        public PostCommentDto(Post post, List<CommentData> comments) {
-            this.post = post;
-            this.comments = comments;
+    @Transactional(readOnly = true)
+    public void streamPostsByUserAndComments(String authorId, Consumer<List<PostCommentDto>> batchConsumer) {
+        try (Stream<PostView> posts = postService.streamPostsByUser(authorId)) {
+            consumeInBatches(posts, batchConsumer);
         }
+    }
 
-        public Post getPost() {
-            return post;
-        }
+    /**
+     * Helper method that groups a stream of posts into batches and combines each batch with its comments.
+     *
+     * @param posts         Stream of target posts
+     * @param batchConsumer Consumer that receives each batch of posts and corresponding comments
+     */
+    private void consumeInBatches(Stream<PostView> posts, Consumer<List<PostCommentDto>> batchConsumer) {
+        Iterator<PostView> iterator = posts.iterator();
+        List<PostView> batch = new ArrayList<>(STREAM_BATCH_SIZE);
 
-        public List<CommentData> getComments() {
-            return comments;
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+
+            if (batch.size() == STREAM_BATCH_SIZE || !iterator.hasNext()) {
+                batchConsumer.accept(combinePostsAndComments(batch));
+                batch.clear();
+            }
         }
     }
 
     /**
-     * Comment representation object used specifically for the PostComment service.
+     * Helper method that retrieves the comments of all the posts in one batch and groups them by post. The
+     * comments are grouped using the sorted post IDs as a primitive key index instead of boxing every ID.
      *
-     * @author Kyler Deggs
-     * @version 1.0.0
+     * @param posts Target posts
+     * @return List of posts with the comments corresponding to each post
      */
-    private static class CommentData {
-        private final long id;
+    private List<PostCommentDto> combinePostsAndComments(List<PostView> posts) {
+        long[] postIds = posts.stream().mapToLong(PostView::getId).sorted().toArray();
+        List<List<CommentView>> groupedComments = new ArrayList<>(postIds.length);
+        List<PostCommentDto> output = new ArrayList<>(posts.size());
 
-        private final User author;
+        for (int i = 0; i < postIds.length; i++)
+            groupedComments.add(new ArrayList<>());
 
-        private final String caption;
+        commentService.allCommentsForPosts(Arrays.stream(postIds).boxed().collect(Collectors.toList()))
+                .forEach(comment -> groupedComments.get(Arrays.binarySearch(postIds, comment.getPostId()))
+                        .add(comment));
+        posts.forEach(post -> output.add(new PostCommentDto(post,
+                groupedComments.get(Arrays.binarySearch(postIds, post.getId())))));
 
-        private final LocalDateTime createdAt;
+        return output;
+    }
 
-        public CommentData(long id, User author, String caption, LocalDateTime createdAt) {
-            this.id = id;
-            this.author = author;
-            this.caption = caption;
-            this.createdAt = createdAt;
-        }
+    /**
+     * Post and comment combination object.
+     *
+     * @author Kyler Deggs
+     * @version 1.1.0
+     */
+    public static class PostCommentDto {
+        @NotNull
+        private final PostView post;
 
-        public long getId() {
-            return id;
-        }
+        private final @NotNull List<CommentView> comments;
 
-        public User getAuthor() {
-            return author;
+        public PostCommentDto(PostView post, List<CommentView> comments) {
+            this.post = post;
+            this.comments = comments;
         }
 
-        public String getCaption() {
-            return caption;
+        public PostView getPost() {
+            return post;
         }
 
-        public LocalDateTime getCreatedAt() {
-            return createdAt;
+        public List<CommentView> getComments() {
+            return comments;
         }
     }
 }
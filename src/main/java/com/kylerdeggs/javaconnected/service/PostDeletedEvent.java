@@ -0,0 +1,33 @@
+package com.kylerdeggs.javaconnected.service;
+
+/**
+ * Event that is published once for a deleted post together with all of its comments.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class PostDeletedEvent {
+    private final long postId;
+
+    private final String authorId;
+
+    private final int commentCount;
+
+    public PostDeletedEvent(long postId, String authorId, int commentCount) {
+        this.postId = postId;
+        this.authorId = authorId;
+        this.commentCount = commentCount;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+}
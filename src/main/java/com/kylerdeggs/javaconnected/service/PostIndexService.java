@@ -0,0 +1,205 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In memory existence index over the IDs of published posts. IDs are stored in a bitmap that is split into
+ * chunks of {@value #CHUNK_SIZE} IDs which are only allocated once an ID in their range is published, so sparse
+ * ID ranges cost nothing. A positive answer means the post was published when the index last heard of it, so cheap
+ * existence checks can skip the database, while a negative answer has to be confirmed by the database. IDs are
+ * reserved in blocks per node, so a new post can have any ID and the index never rules one out. Posts are added
+ * when they are consumed and when a lookup finds them in the database, and the posts created or deleted since the
+ * previous refresh are read every {@code post-index.refresh-interval} to pick up the changes made by other nodes.
+ * The refresh reaches back {@value #OVERLAP_MINUTES} minutes to cover transactions that committed after the previous
+ * one.
+ *
+ * @author Kyler Deggs
+ * @version 2.0.0
+ */
+@Service
+public class PostIndexService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostIndexService.class);
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int WARM_BATCH_SIZE = 10000;
+    private static final int OVERLAP_MINUTES = 5;
+
+    private final PostRepository postRepository;
+    private final long refreshIntervalMillis;
+    private final ConcurrentHashMap<Long, AtomicLongArray> chunks = new ConcurrentHashMap<>();
+
+    private LocalDateTime refreshedAt;
+    private volatile boolean running;
+    private Thread refreshThread;
+
+    @Autowired
+    public PostIndexService(PostRepository postRepository,
+                            @Value("${post-index.refresh-interval}") Duration refreshInterval) {
+        this.postRepository = postRepository;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    /**
+     * Loads the IDs of all published posts in batches before any queue consumer can modify the index and starts the
+     * thread that refreshes the index.
+     */
+    @PostConstruct
+    void warm() {
+        try {
+            LOGGER.info("The post index has been warmed with " + load() + " posts");
+        } catch (RuntimeException exception) {
+            LOGGER.warn("The post index could not be warmed and only holds new posts until it is refreshed",
+                    exception);
+        }
+
+        running = true;
+        refreshThread = new Thread(this::refreshLoop, "post-index-refresh");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+    }
+
+    /**
+     * Stops the thread that refreshes the index.
+     *
+     * @throws InterruptedException Interrupted while waiting for the refresh thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(refreshThread);
+        refreshThread.join(refreshIntervalMillis);
+    }
+
+    /**
+     * Adds the posts created since the previous refresh to the index and removes the posts deleted since then. The
+     * index is warmed instead if that failed at startup.
+     *
+     * @return Number of posts that were read
+     */
+    int refresh() {
+        if (refreshedAt == null)
+            return load();
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = refreshedAt.minusMinutes(OVERLAP_MINUTES);
+        List<Long> created = postRepository.findPublishedIdsCreatedSince(since);
+        List<Long> deleted = postRepository.findIdsDeletedSince(since);
+
+        created.forEach(this::add);
+        deleted.forEach(this::remove);
+        refreshedAt = startedAt;
+
+        return created.size() + deleted.size();
+    }
+
+    /**
+     * Adds the ID of a published post to the index.
+     *
+     * @param postId ID of the published post
+     */
+    public void add(long postId) {
+        chunks.computeIfAbsent(postId >>> CHUNK_SHIFT, chunk -> new AtomicLongArray(CHUNK_SIZE / Long.SIZE))
+                .getAndAccumulate(wordIndex(postId), bit(postId), (word, mask) -> word | mask);
+    }
+
+    /**
+     * Removes the ID of an unpublished post from the index.
+     *
+     * @param postId ID of the unpublished post
+     */
+    public void remove(long postId) {
+        AtomicLongArray words = chunks.get(postId >>> CHUNK_SHIFT);
+
+        if (words != null)
+            words.getAndAccumulate(wordIndex(postId), bit(postId), (word, mask) -> word & ~mask);
+    }
+
+    /**
+     * Removes a deleted post from the index once its deletion has been committed.
+     *
+     * @param event Deletion of the post
+     */
+    @TransactionalEventListener
+    public void onPostDeleted(PostDeletedEvent event) {
+        remove(event.getPostId());
+    }
+
+    /**
+     * Determines if a post with the specified ID is known to be published.
+     *
+     * @param postId ID of the target post
+     * @return True if the post is indexed or false if it has to be looked up in the database
+     */
+    public boolean contains(long postId) {
+        AtomicLongArray words = chunks.get(postId >>> CHUNK_SHIFT);
+
+        return words != null && (words.get(wordIndex(postId)) & bit(postId)) != 0;
+    }
+
+    /**
+     * Helper method that adds the IDs of all published posts in batches.
+     *
+     * @return Number of loaded posts
+     */
+    private int load() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long lastId = 0;
+        int count = 0;
+        List<Long> ids;
+
+        do {
+            ids = postRepository.findPublishedIdsAfter(lastId, PageRequest.of(0, WARM_BATCH_SIZE));
+            for (long id : ids)
+                add(id);
+            if (!ids.isEmpty())
+                lastId = ids.get(ids.size() - 1);
+            count += ids.size();
+        } while (ids.size() == WARM_BATCH_SIZE);
+        refreshedAt = startedAt;
+
+        return count;
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            if (!running)
+                return;
+
+            try {
+                refresh();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The post index could not be refreshed and keeps the posts it holds", exception);
+            }
+        }
+    }
+
+    private static int wordIndex(long postId) {
+        return (int) (postId & (CHUNK_SIZE - 1)) >>> 6;
+    }
+
+    private static long bit(long postId) {
+        return 1L << postId;
+    }
+}
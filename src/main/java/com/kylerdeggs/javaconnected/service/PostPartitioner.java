@@ -0,0 +1,73 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Assigns posts to queue partitions with a jump consistent hash of their ID. Every message about a post is routed
+ * to the same partition, so the single consumer of that partition processes them in order. When the number of
+ * partitions changes, only the posts that have to move to a new partition change their partition.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Service
+public class PostPartitioner {
+    private final int partitions;
+
+    @Autowired
+    public PostPartitioner(@Value("${amqp.partitions}") int partitions) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("At least one partition is required but " + partitions
+                    + " were configured");
+
+        this.partitions = partitions;
+    }
+
+    /**
+     * Determines the partition of a post.
+     *
+     * @param postId ID of the target post
+     * @return Partition between 0 and the number of partitions
+     */
+    public int partition(long postId) {
+        long key = postId;
+        long bucket = -1;
+        long next = 0;
+
+        while (next < partitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+
+        return (int) bucket;
+    }
+
+    /**
+     * Determines the name of the partitioned queue that receives the messages of a post.
+     *
+     * @param baseName Name of the partitioned queue
+     * @param postId   ID of the target post
+     * @return Name of the partition queue
+     */
+    public String queueName(String baseName, long postId) {
+        return partitionName(baseName, partition(postId));
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    /**
+     * Determines the name of a partition queue.
+     *
+     * @param baseName  Name of the partitioned queue
+     * @param partition Partition of the queue
+     * @return Name of the partition queue
+     */
+    public static String partitionName(String baseName, int partition) {
+        return baseName + "." + partition;
+    }
+}
@@ -3,42 +3,60 @@ package com.kylerdeggs.javaconnected.service;
 import com.kylerdeggs.javaconnected.configuration.AWSConfig;
 import com.kylerdeggs.javaconnected.domain.Post;
 import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
 import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
 import com.kylerdeggs.javaconnected.security.UserSecurityContext;
+import com.kylerdeggs.javaconnected.web.Cursor;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import com.kylerdeggs.javaconnected.web.dtos.MediaUpload;
 import com.kylerdeggs.javaconnected.web.dtos.PostDto;
 import org.apache.tika.mime.MimeTypeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.constraints.NotNull;
 import java.io.IOException;
 import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Provides methods for retrieving, creating, updating, and deleting a post.
  *
  * @author Kyler Deggs
- * @version 1.2.2
+ * @version 1.24.0
  */
 @Service
 public class PostService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PostService.class);
 
-    private final RabbitTemplate rabbitTemplate;
+    private final MessageTransport messageTransport;
+    private final PostPartitioner postPartitioner;
     private final AWSConfig aws;
+    private final MediaUploadPipeline mediaUploadPipeline;
     private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
     private final UserService userService;
-
-    @Value("${amqp.exchange.name}")
-    private String exchangeName;
+    private final FeedService feedService;
+    private final PostIndexService postIndexService;
+    private final LikeService likeService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${amqp.queue.post-name}")
     private String postQueueName;
@@ -50,33 +68,81 @@ public class PostService {
     private String likeQueueName;
 
     @Autowired
-    public PostService(RabbitTemplate rabbitTemplate, AWSConfig aws, PostRepository postRepository,
-                       UserService userService) {
-        this.rabbitTemplate = rabbitTemplate;
+    public PostService(MessageTransport messageTransport, PostPartitioner postPartitioner, AWSConfig aws,
+                       MediaUploadPipeline mediaUploadPipeline, PostRepository postRepository,
+                       CommentRepository commentRepository, UserService userService, FeedService feedService,
+                       PostIndexService postIndexService, LikeService likeService,
+                       ApplicationEventPublisher eventPublisher) {
+        this.messageTransport = messageTransport;
+        this.postPartitioner = postPartitioner;
         this.aws = aws;
+        this.mediaUploadPipeline = mediaUploadPipeline;
         this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
         this.userService = userService;
+        this.feedService = feedService;
+        this.postIndexService = postIndexService;
+        this.likeService = likeService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Retrieves all posts.
+     * Retrieves a page of posts ordered from newest to oldest. Pages that are held by the in memory feed are
+     * served without querying the database.
      *
-     * @return A list of all posts
+     * @param cursor Cursor returned with the previous page or null for the first page
+     * @param limit  Requested page size
+     * @return A page of posts and the cursor for the next page
      */
-    public List<Post> allPosts() {
-        return postRepository.findByPublishedTrue();
+    public CursorPage<PostView> postPage(String cursor, int limit) {
+        int size = CursorPage.clampSize(limit);
+        Cursor position = cursor != null ? Cursor.decode(cursor) : null;
+        Optional<CursorPage<PostView>> cachedPage = feedService.page(position, size);
+
+        if (cachedPage.isPresent())
+            return markLiked(cachedPage.get());
+
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+        List<PostView> rows = position == null ? postRepository.findPublishedViews(pageRequest)
+                : postRepository.findPublishedViewsBefore(position.getCreatedAt(), position.getNumericId(),
+                pageRequest);
+
+        return markLiked(CursorPage.of(rows, size,
+                post -> new Cursor(post.getCreatedAt(), String.valueOf(post.getId()))));
     }
 
     /**
-     * Retrieves all posts by a specific user.
+     * Retrieves all posts by a specific user as read only views.
      *
      * @param authorId ID of the target user
      * @return A list of posts by the target user
      */
-    public List<Post> allPostsByUser(String authorId) {
-        User author = userService.verifyUser(authorId);
+    public List<PostView> allPostViewsByUser(String authorId) {
+        userService.verifyUser(authorId);
+
+        return markLiked(postRepository.findPublishedViewsByAuthor(authorId));
+    }
+
+    /**
+     * Streams all posts. The stream must be consumed inside a transaction and closed once it has been consumed.
+     *
+     * @return A stream of all posts
+     */
+    public Stream<PostView> streamPosts() {
+        return postRepository.streamPublishedViews();
+    }
+
+    /**
+     * Streams all posts by a specific user. The stream must be consumed inside a transaction and closed once it
+     * has been consumed.
+     *
+     * @param authorId ID of the target user
+     * @return A stream of posts by the target user
+     */
+    public Stream<PostView> streamPostsByUser(String authorId) {
+        userService.verifyUser(authorId);
 
-        return postRepository.findAllByAuthorAndPublishedTrue(author);
+        return postRepository.streamPublishedViewsByAuthor(authorId);
     }
 
     /**
@@ -92,35 +158,149 @@ public class PostService {
     }
 
     /**
-     * Determines if a post with the specified ID exists.
+     * Finds a post with the specified ID and locks it until the current transaction ends, so changes to its comment
+     * summary are applied one after another. Must be called within a transaction.
+     *
+     * @param postId ID of the target post
+     * @return The locked post or an empty optional if the post is not published
+     */
+    public Optional<Post> lockPost(long postId) {
+        return postRepository.findPublishedByIdForUpdate(postId);
+    }
+
+    /**
+     * Finds a read only view of the post with the specified ID or throws an exception if none is found.
+     *
+     * @param postId ID of the target post
+     * @return The found post
+     * @throws NoSuchElementException A post with the specified ID was not found
+     */
+    public PostView verifyPostView(long postId) {
+        PostView post = postRepository.findPublishedViewById(postId).orElseThrow(() ->
+                new NoSuchElementException("A post with ID " + postId + " does not exist"));
+
+        return UserSecurityContext.currentUserId()
+                .map(userId -> post.withLikedByMe(likeService.likedBy(postId, userId)))
+                .orElse(post);
+    }
+
+    /**
+     * Determines if a post with the specified ID exists. Posts held by the post index are not looked up in the
+     * database, and posts found in the database are added to the index.
      *
      * @param postId ID of the target post
      * @return True if a post is found
      */
     public boolean postExists(long postId) {
-        return findPost(postId).isPresent();
+        if (postIndexService.contains(postId))
+            return true;
+
+        boolean exists = findPost(postId).isPresent();
+
+        if (exists)
+            postIndexService.add(postId);
+
+        return exists;
     }
 
     /**
-     * Saves a post.
+     * Retrieves the IDs of published posts whose comment count and comment preview have not been initialized yet
+     * in ascending order.
      *
-     * @param post Post to save
+     * @param afterId ID after which the IDs start
+     * @param limit   Maximum number of IDs to retrieve
+     * @return A list of IDs of posts without a comment summary
      */
-    public void savePost(Post post) {
-        postRepository.save(post);
+    public List<Long> postIdsWithoutCommentSummary(long afterId, int limit) {
+        return postRepository.findIdsWithoutCommentSummaryAfter(afterId, PageRequest.of(0, limit));
     }
 
     /**
-     * Sends a request to the AWS service to process an upload.
+     * Unpublishes a post and all of its comments with one statement each in a single transaction and publishes a
+     * single {@link PostDeletedEvent} that is delivered once the transaction commits.
      *
-     * @param authorId ID of the author
-     * @param media    Media that needs to be uploaded
-     * @return Key of the uploaded media
-     * @throws IOException       Media file processing error
-     * @throws MimeTypeException Trying to upload a restricted file type
+     * @param post Post to unpublish
+     * @return Number of unpublished comments or -1 if the post was already unpublished
      */
-    public String saveMedia(String authorId, MultipartFile media) throws IOException, MimeTypeException {
-        return aws.processUpload(authorId, media);
+    @Transactional
+    public int unpublishPost(Post post) {
+        LocalDateTime deletedAt = LocalDateTime.now();
+
+        if (postRepository.unpublish(post.getId(), deletedAt) == 0)
+            return -1;
+
+        int commentCount = commentRepository.unpublishByPostId(post.getId(), deletedAt);
+
+        eventPublisher.publishEvent(new PostDeletedEvent(post.getId(), post.getAuthor().getId(), commentCount));
+
+        return commentCount;
+    }
+
+    /**
+     * Saves new posts in a single transaction so their inserts are sent in JDBC batches.
+     *
+     * @param posts Posts to save
+     */
+    @Transactional
+    public void savePosts(List<Post> posts) {
+        postRepository.saveAll(posts);
+    }
+
+    /**
+     * Retrieves which of the specified request IDs have already created a post.
+     *
+     * @param requestIds Request IDs to look up
+     * @return The request IDs that belong to a post
+     */
+    public Set<String> usedRequestIds(Collection<String> requestIds) {
+        if (requestIds.isEmpty())
+            return Collections.emptySet();
+
+        return new HashSet<>(postRepository.findUsedRequestIds(requestIds));
+    }
+
+    /**
+     * Applies the summed like count changes of a batch with one atomic update per post in a single transaction.
+     * Posts that no longer exist or are unpublished are skipped.
+     *
+     * @param likeDeltas Summed like count changes per post
+     * @return A list of the updated posts
+     */
+    @Transactional
+    public List<PostView> applyLikes(LikeDeltas likeDeltas) {
+        List<Long> updatedPostIds = new ArrayList<>();
+
+        for (long postId : likeDeltas.changedPostIds())
+            if (postRepository.addLikes(postId, likeDeltas.get(postId)) > 0)
+                updatedPostIds.add(postId);
+
+        return updatedPostIds.isEmpty() ? Collections.emptyList()
+                : postRepository.findPublishedViewsByIds(updatedPostIds);
+    }
+
+    /**
+     * Records a batch of likes and unlikes in the like ledger and applies the resulting like count changes in a
+     * single transaction.
+     *
+     * @param likeDtos   Batch of likes and unlikes
+     * @param likeDeltas Like count changes that the effective likes and unlikes are added to
+     * @return A list of the updated posts
+     */
+    @Transactional
+    public List<PostView> applyLikes(List<LikeDto> likeDtos, LikeDeltas likeDeltas) {
+        likeService.recordLikes(likeDtos, likeDeltas);
+
+        return applyLikes(likeDeltas);
+    }
+
+    /**
+     * Sends a request to the AWS service to claim the media of a post that has been saved, so unused uploads that
+     * expire do not include it.
+     *
+     * @param key Location of the media
+     */
+    public void claimMedia(String key) {
+        aws.claimUpload(key);
     }
 
     /**
@@ -133,47 +313,80 @@ public class PostService {
     }
 
     /**
-     * Processes a post creation request by sending the post to the correct RabbitMQ queue.
+     * Creates a presigned URL that lets the current user upload media for a post directly to S3.
+     *
+     * @param contentType Content type of the media
+     * @return Location of the media and the URL to upload it to
+     * @throws MimeTypeException Trying to upload a restricted file type
+     */
+    public MediaUpload createMediaUpload(String contentType) throws MimeTypeException {
+        return aws.presignUpload(new UserSecurityContext(userService).getUser().getId(), contentType);
+    }
+
+    /**
+     * Processes a post creation request by sending the post to the correct queue. Media that is part of the request
+     * is spooled and uploaded in the background, and the post is sent once the upload finished. Media that has
+     * been uploaded to the media location of the post with a presigned URL is verified to exist and not to be used
+     * by another post, and is deleted again if the post cannot be sent. The media is claimed once the post has been
+     * saved.
      *
      * @param postDto Post to be created
      * @param media   Media that needs to be uploaded
-     * @throws IOException       Media file processing error
-     * @throws MimeTypeException Trying to upload a restricted file type
+     * @throws IOException              Media file processing error
+     * @throws MimeTypeException        Trying to upload a restricted file type
+     * @throws IllegalArgumentException The media is already used by another post
      */
     public void processPost(PostDto postDto, MultipartFile media) throws IOException, MimeTypeException {
         String userId = new UserSecurityContext(userService).getUser().getId();
 
         if (userId.equals(postDto.getAuthorId())) {
-            if (media != null && !media.isEmpty())
-                postDto.setMediaLocation(saveMedia(postDto.getAuthorId(), media));
+            if (media != null && !media.isEmpty()) {
+                postDto.setMediaLocation(null);
+                mediaUploadPipeline.submit(postDto, media);
+            } else {
+                if (postDto.getMediaLocation() != null) {
+                    if (postRepository.existsByMediaLocation(postDto.getMediaLocation()))
+                        throw new IllegalArgumentException("The media at " + postDto.getMediaLocation()
+                                + " is already used by another post");
+                    aws.verifyUpload(postDto.getAuthorId(), postDto.getMediaLocation());
+                }
 
-            LOGGER.info("A new post is being sent to the exchange " + exchangeName
-                    + " to be routed to the queue " + postQueueName);
-            rabbitTemplate.convertAndSend(postQueueName, postDto);
+                LOGGER.info("A new post is being sent to the queue " + postQueueName);
+                try {
+                    messageTransport.send(postQueueName, postDto);
+                } catch (RuntimeException exception) {
+                    if (postDto.getMediaLocation() != null)
+                        deleteMedia(postDto.getMediaLocation());
+                    throw exception;
+                }
+            }
         } else
             throw new SecurityException("The post is trying to be created with an author ID of "
                     + postDto.getAuthorId() + " but the current user has an ID of " + userId);
     }
 
     /**
-     * Process a like request for a specific post by sending the post ID to the correct RabbitMQ queue.
+     * Process a like request of the current user for a specific post by sending the like to the correct queue.
+     * Repeated likes and unlikes are ignored when the like ledger is written.
      *
      * @param postId  ID of the target post
      * @param addLike True to add a like or false to remove a like
      */
     public void processLike(long postId, boolean addLike) {
-        LikeDto likeDto = new LikeDto(postId, addLike);
+        String userId = new UserSecurityContext(userService).getUser().getId();
+        LikeDto likeDto = new LikeDto(postId, userId, addLike);
 
         if (postExists(likeDto.getPostId())) {
-            LOGGER.info("A like message is being sent to the exchange " + exchangeName
-                    + " to be routed to the queue " + likeQueueName);
-            rabbitTemplate.convertAndSend(likeQueueName, likeDto);
+            String queueName = postPartitioner.queueName(likeQueueName, postId);
+
+            LOGGER.info("A like message is being sent to the queue " + queueName);
+            messageTransport.send(queueName, likeDto);
         } else
             throw new NoSuchElementException("A post with ID " + likeDto.getPostId() + " does not exist");
     }
 
     /**
-     * Processes a post deletion request by sending the post ID to the correct RabbitMQ queue.
+     * Processes a post deletion request by sending the post ID to the correct queue.
      *
      * @param postId ID of the target post
      */
@@ -181,9 +394,8 @@ public class PostService {
         String userId = new UserSecurityContext(userService).getUser().getId();
 
         if (userId.equals(verifyPost(postId).getAuthor().getId())) {
-            LOGGER.info("A post deletion is being sent to exchange " + exchangeName
-                    + " to be routed to the queue " + likeQueueName);
-            rabbitTemplate.convertAndSend(postDeletionQueueName, postId);
+            LOGGER.info("A post deletion is being sent to the queue " + postDeletionQueueName);
+            messageTransport.send(postDeletionQueueName, postId);
         } else
             throw new SecurityException("The post trying to be deleted was not created by "
                     + "the requesting user");
@@ -199,21 +411,47 @@ public class PostService {
         return postRepository.findByIdAndPublishedTrue(postId);
     }
 
+    /**
+     * Helper method that flags the posts of a page that the current user liked.
+     *
+     * @param page Page of posts
+     * @return The page with flagged posts or the same page if the request is not authenticated
+     */
+    private CursorPage<PostView> markLiked(CursorPage<PostView> page) {
+        return UserSecurityContext.currentUserId()
+                .map(userId -> new CursorPage<>(likeService.markLiked(page.getItems(), userId), page.getNextCursor()))
+                .orElse(page);
+    }
+
+    /**
+     * Helper method that flags the posts that the current user liked.
+     *
+     * @param posts Posts to flag
+     * @return The flagged posts or the same posts if the request is not authenticated
+     */
+    private List<PostView> markLiked(List<PostView> posts) {
+        return UserSecurityContext.currentUserId().map(userId -> likeService.markLiked(posts, userId)).orElse(posts);
+    }
+
     /**
      * Like representation object.
      *
      * @author Kyler Deggs
-     * @version 1.0.0
+     * @version 1.1.0
      */
     public static class LikeDto implements Serializable {
         @NotNull
         private final long postId;
 
+        @NotNull
+        private final String userId;
+
         @NotNull
         private final boolean addLike;
 
-        public LikeDto(long postId, boolean addLike) {
+        public LikeDto(long postId, String userId, boolean addLike) {
             this.postId = postId;
+            this.userId = userId;
             this.addLike = addLike;
         }
 
@@ -221,6 +459,10 @@ public class PostService {
             return postId;
         }
 
+        public String getUserId() {
+            return userId;
+        }
+
         public boolean isAddLike() {
             return addLike;
         }
@@ -3,21 +3,38 @@ package com.kylerdeggs.javaconnected.service;
 import com.kylerdeggs.javaconnected.domain.Comment;
 import com.kylerdeggs.javaconnected.domain.Post;
 import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
 import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
 import com.kylerdeggs.javaconnected.web.dtos.PostDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
- * RabbitMQ service that consumes all queues.
+ * Service that consumes all queues of the message transport. Every queue and every comment, comment deletion, and
+ * like partition has a single consumer, so the messages of a post are processed in order by one thread at a time.
+ * Messages are checked against the column limits before a batch is saved, and a batch that still violates a
+ * database constraint is saved again one message at a time, so only the offending messages are dropped.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.14.0
  */
 @Service
 public class QueueConsumerService {
@@ -26,100 +43,346 @@ public class QueueConsumerService {
     private final PostService postService;
     private final CommentService commentService;
     private final UserService userService;
+    private final FeedService feedService;
+    private final PostIndexService postIndexService;
+    private final TrendingService trendingService;
+    private final SearchService searchService;
+    private final PostPartitioner postPartitioner;
+    private final MessageTransport messageTransport;
+
+    @Value("${amqp.queue.post-name}")
+    private String postQueueName;
+
+    @Value("${amqp.queue.post-delete-name}")
+    private String postDeletionQueueName;
+
+    @Value("${amqp.queue.comment-delete-name}")
+    private String commentDeletionQueueName;
+
+    @Value("${amqp.queue.comment-name}")
+    private String commentQueueName;
+
+    @Value("${amqp.queue.like-name}")
+    private String likeQueueName;
 
     @Autowired
-    public QueueConsumerService(PostService postService, CommentService commentService, UserService userService) {
+    public QueueConsumerService(PostService postService, CommentService commentService, UserService userService,
+                                FeedService feedService, PostIndexService postIndexService,
+                                TrendingService trendingService,
+                                SearchService searchService, PostPartitioner postPartitioner,
+                                MessageTransport messageTransport) {
         this.postService = postService;
         this.commentService = commentService;
         this.userService = userService;
+        this.feedService = feedService;
+        this.postIndexService = postIndexService;
+        this.trendingService = trendingService;
+        this.searchService = searchService;
+        this.postPartitioner = postPartitioner;
+        this.messageTransport = messageTransport;
     }
 
     /**
-     * Creates new posts by consuming the post creation queue.
+     * Subscribes the consumers of all queues and of every comment, comment deletion, and like partition.
+     */
+    @PostConstruct
+    void subscribe() {
+        messageTransport.subscribe(postQueueName, this::postCreator);
+        messageTransport.subscribe(postDeletionQueueName, this::postDeleter);
+        for (int partition = 0; partition < postPartitioner.partitions(); partition++) {
+            messageTransport.subscribe(PostPartitioner.partitionName(commentQueueName, partition),
+                    this::commentCreator);
+            messageTransport.subscribe(PostPartitioner.partitionName(commentDeletionQueueName, partition),
+                    this::commentDeleter);
+            messageTransport.subscribe(PostPartitioner.partitionName(likeQueueName, partition), this::likeModifier);
+        }
+    }
+
+    /**
+     * Creates new posts by consuming the post creation queue in batches. Each batch is saved in one transaction and
+     * acknowledged once it has been processed. Posts from users that do not exist or that do not fit the post
+     * columns are dropped, as are posts whose request ID has already created a post. The media of the saved posts is
+     * claimed after the transaction has committed, so media of a post that was not saved still expires.
      *
-     * @param postDto Post to be created
+     * @param postDtos Batch of posts to be created
      */
-    @RabbitListener(queues = "${amqp.queue.post-name}")
-    private void postCreator(PostDto postDto) {
-        User author = userService.verifyUser(postDto.getAuthorId());
-        String mediaLocation = postDto.getMediaLocation();
-        Post post = new Post(author, postDto.getTitle(), mediaLocation != null,
-                mediaLocation, postDto.getCaption(), true, LocalDateTime.now());
+    private void postCreator(List<PostDto> postDtos) {
+        List<Post> posts = new ArrayList<>(postDtos.size());
+        Set<String> usedRequestIds = new HashSet<>(postService.usedRequestIds(postDtos.stream()
+                .map(PostDto::getRequestId).filter(Objects::nonNull).collect(Collectors.toSet())));
+
+        for (PostDto postDto : postDtos) {
+            if (postDto.getRequestId() != null && !usedRequestIds.add(postDto.getRequestId())) {
+                LOGGER.info("A post has been dropped because request " + postDto.getRequestId()
+                        + " has already created a post");
+                continue;
+            }
+
+            try {
+                posts.add(toPost(postDto));
+            } catch (NoSuchElementException | IllegalArgumentException exception) {
+                LOGGER.warn("A post has been dropped: " + exception.getMessage());
+            }
+        }
+
+        try {
+            postService.savePosts(posts);
+        } catch (DataIntegrityViolationException exception) {
+            LOGGER.warn("A batch of " + posts.size() + " posts has been rejected by the database and is saved one "
+                    + "post at a time", exception);
+            posts = saveOneByOne(posts, "post", post -> {
+                post.setId(null);
+                postService.savePosts(Collections.singletonList(post));
+            });
+        }
+
+        for (Post post : posts) {
+            PostView view = PostView.of(post);
 
-        postService.savePost(post);
-        LOGGER.info("A new post with ID " + post.getId() + " has been created");
+            if (post.getMediaLocation() != null)
+                claimMedia(post);
+            postIndexService.add(post.getId());
+            feedService.append(view);
+            searchService.add(view);
+            LOGGER.info("A new post with ID " + post.getId() + " has been created");
+        }
     }
 
     /**
-     * Modifies the like count of post by consuming the like queue.
+     * Modifies the like counts of posts by consuming a like partition in batches. The likes of a batch are recorded
+     * in the like ledger, and the changes that took effect are summed per post and applied with one atomic update
+     * per post.
      *
-     * @param likeDto Like that contains information on whether to add or remove a like
+     * @param likeDtos Batch of likes that contain information on whether to add or remove a like
      */
-    @RabbitListener(queues = "${amqp.queue.like-name}")
-    private void likeModifier(PostService.LikeDto likeDto) {
-        Post targetPost = postService.verifyPost(likeDto.getPostId());
-
-        if (likeDto.isAddLike())
-            targetPost.setLikeCount(targetPost.getLikeCount() + 1);
-        else
-            targetPost.setLikeCount(targetPost.getLikeCount() != 0 ? targetPost.getLikeCount() - 1 : 0);
-
-        postService.savePost(targetPost);
-        LOGGER.info("A like has been " + (likeDto.isAddLike() ? "added" : "removed")
-                + " to post " + targetPost.getId());
+    private void likeModifier(List<PostService.LikeDto> likeDtos) {
+        LikeDeltas likeDeltas = new LikeDeltas(likeDtos.size());
+        List<PostView> posts;
+
+        try {
+            posts = postService.applyLikes(likeDtos, likeDeltas);
+        } catch (DataIntegrityViolationException exception) {
+            LOGGER.warn("A batch of " + likeDtos.size() + " like changes has been rejected by the database and is "
+                    + "applied one like at a time", exception);
+            Map<Long, PostView> updatedPosts = new LinkedHashMap<>();
+            LikeDeltas appliedDeltas = new LikeDeltas(likeDtos.size());
+
+            saveOneByOne(likeDtos, "like change", likeDto -> {
+                LikeDeltas singleDelta = new LikeDeltas(1);
+
+                postService.applyLikes(Collections.singletonList(likeDto), singleDelta)
+                        .forEach(post -> updatedPosts.put(post.getId(), post));
+                appliedDeltas.add(likeDto.getPostId(), singleDelta.get(likeDto.getPostId()));
+            });
+            posts = new ArrayList<>(updatedPosts.values());
+            likeDeltas = appliedDeltas;
+        }
+
+        for (PostView post : posts) {
+            int delta = likeDeltas.get(post.getId());
+
+            feedService.replace(post);
+            if (delta > 0)
+                trendingService.recordLikes(post, delta);
+        }
+        LOGGER.info(likeDtos.size() + " like changes have been applied to " + posts.size() + " posts");
+    }
+
+    /**
+     * Deletes posts by consuming the post deletion queue. Posts that do not exist anymore are skipped.
+     *
+     * @param postIds Batch of posts to be deleted
+     */
+    private void postDeleter(List<Long> postIds) {
+        for (long postId : postIds) {
+            try {
+                deletePost(postId);
+            } catch (NoSuchElementException exception) {
+                LOGGER.warn("A post deletion has been dropped: " + exception.getMessage());
+            }
+        }
     }
 
     /**
-     * Deletes posts by consuming the post deletion queue.
+     * Unpublishes a post and all of its comments with one statement each, and deletes the media of the post once
+     * the post is unpublished.
      *
      * @param postId Post to be deleted
      */
-    @RabbitListener(queues = "${amqp.queue.post-delete-name}")
-    private void postDeleter(long postId) {
+    private void deletePost(long postId) {
         Post targetPost = postService.verifyPost(postId);
+        int commentCount = postService.unpublishPost(targetPost);
+
+        if (commentCount < 0) {
+            LOGGER.info("Post " + postId + " has already been unpublished");
+            return;
+        }
 
-        if (targetPost.getHasMedia()) {
+        if (targetPost.getHasMedia())
             postService.deleteMedia(targetPost.getMediaLocation());
-            targetPost.setHasMedia(false);
-            targetPost.setMediaLocation(null);
+        LOGGER.info("Post " + postId + " and its " + commentCount + " comments have been unpublished");
+    }
+
+    /**
+     * Creates new comments by consuming a comment partition in batches. Each batch is saved together with
+     * the comment summaries of its posts in one transaction and acknowledged once it has been processed. Comments
+     * from users or on posts that do not exist or that do not fit the comment columns are dropped.
+     *
+     * @param commentDtos Batch of comments to be created
+     */
+    private void commentCreator(List<CommentDto> commentDtos) {
+        List<Comment> comments = new ArrayList<>(commentDtos.size());
+
+        for (CommentDto commentDto : commentDtos) {
+            try {
+                comments.add(toComment(commentDto));
+            } catch (NoSuchElementException | IllegalArgumentException exception) {
+                LOGGER.warn("A comment has been dropped: " + exception.getMessage());
+            }
+        }
+
+        Map<Long, PostView> views = new LinkedHashMap<>();
+
+        try {
+            commentService.saveComments(comments).forEach(post -> views.put(post.getId(), PostView.of(post)));
+        } catch (DataIntegrityViolationException exception) {
+            LOGGER.warn("A batch of " + comments.size() + " comments has been rejected by the database and is saved "
+                    + "one comment at a time", exception);
+            comments = saveOneByOne(comments, "comment", comment -> {
+                comment.setId(null);
+                commentService.saveComments(Collections.singletonList(comment))
+                        .forEach(post -> views.put(post.getId(), PostView.of(post)));
+            });
         }
-        targetPost.setPublished(false);
-        targetPost.setDeletedAt(LocalDateTime.now());
-        commentService.allCommentsForPost(targetPost)
-                .forEach(comment -> commentService.processCommentDeletionInternal(comment.getId()));
 
-        postService.savePost(targetPost);
-        LOGGER.info("Post " + postId + " has been unpublished");
+        for (Comment comment : comments) {
+            trendingService.recordComment(views.get(comment.getPost().getId()));
+            LOGGER.info("A new comment with ID " + comment.getId() + " has been created");
+        }
+        for (PostView view : views.values())
+            feedService.replace(view);
     }
 
     /**
-     * Creates new comments by consuming the comment creation queue.
+     * Deletes comments by consuming a comment deletion partition. Comments that do not exist anymore are skipped.
      *
-     * @param commentDto Comment to be created
+     * @param commentIds Batch of comments to be deleted
      */
-    @RabbitListener(queues = "${amqp.queue.comment-name}")
-    private void commentCreator(CommentDto commentDto) {
+    private void commentDeleter(List<Long> commentIds) {
+        for (long commentId : commentIds) {
+            try {
+                deleteComment(commentId);
+            } catch (NoSuchElementException exception) {
+                LOGGER.warn("A comment deletion has been dropped: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Unpublishes a comment and removes it from the comment summary of its post in one transaction.
+     *
+     * @param commentId Comment to be deleted
+     */
+    private void deleteComment(long commentId) {
+        commentService.unpublishComment(commentId).ifPresent(post -> feedService.replace(PostView.of(post)));
+        LOGGER.info("Comment " + commentId + " has been unpublished");
+    }
+
+    /**
+     * Helper method that claims the media of a saved post. A failed claim does not undo the post, so it is logged
+     * for the media to be claimed manually before the lifecycle rule expires it.
+     *
+     * @param post Saved post with media
+     */
+    private void claimMedia(Post post) {
+        try {
+            postService.claimMedia(post.getMediaLocation());
+        } catch (RuntimeException exception) {
+            LOGGER.error("The media " + post.getMediaLocation() + " of post " + post.getId()
+                    + " could not be claimed", exception);
+        }
+    }
+
+    /**
+     * Helper method that creates a post from a post message.
+     *
+     * @param postDto Post message
+     * @return The new post
+     * @throws NoSuchElementException   The author does not exist
+     * @throws IllegalArgumentException The post does not fit the post columns
+     */
+    private Post toPost(PostDto postDto) {
+        User author = userService.verifyUser(postDto.getAuthorId());
+        String mediaLocation = postDto.getMediaLocation();
+
+        checkColumn("title", postDto.getTitle(), Post.TITLE_LENGTH, true);
+        checkColumn("media location", mediaLocation, Post.MEDIA_LOCATION_LENGTH, false);
+        checkColumn("caption", postDto.getCaption(), Post.CAPTION_LENGTH, false);
+        checkColumn("request ID", postDto.getRequestId(), Post.REQUEST_ID_LENGTH, false);
+
+        Post post = new Post(author, postDto.getTitle(), mediaLocation != null, mediaLocation, postDto.getCaption(),
+                true, LocalDateTime.now());
+
+        post.setRequestId(postDto.getRequestId());
+        return post;
+    }
+
+    /**
+     * Helper method that creates a comment from a comment message.
+     *
+     * @param commentDto Comment message
+     * @return The new comment
+     * @throws NoSuchElementException   The author or the post does not exist
+     * @throws IllegalArgumentException The comment does not fit the comment columns
+     */
+    private Comment toComment(CommentDto commentDto) {
         User author = userService.verifyUser(commentDto.getAuthorId());
-        Post post = postService.verifyPost(commentDto.getPostId());
-        Comment comment = new Comment(post, author, commentDto.getCaption(), true, LocalDateTime.now());
 
-        commentService.saveComment(comment);
-        LOGGER.info("A new comment with ID " + comment.getId() + " has been created");
+        checkColumn("caption", commentDto.getCaption(), Comment.CAPTION_LENGTH, true);
+
+        return new Comment(postService.verifyPost(commentDto.getPostId()), author, commentDto.getCaption(), true,
+                LocalDateTime.now());
     }
 
     /**
-     * Deletes comments by consuming the comment deletion queue.
+     * Helper method that checks a value against the limits of its column.
      *
-     * @param commentId Comment to be deleted
+     * @param name      Name of the value
+     * @param value     Value to check
+     * @param maxLength Length of the column
+     * @param required  True if the column is not nullable
+     * @throws IllegalArgumentException The value does not fit the column
+     */
+    private static void checkColumn(String name, String value, int maxLength, boolean required) {
+        if (value == null && required)
+            throw new IllegalArgumentException("The " + name + " is missing");
+        if (value != null && value.length() > maxLength)
+            throw new IllegalArgumentException("The " + name + " is longer than " + maxLength + " characters");
+    }
+
+    /**
+     * Helper method that saves the items of a batch that was rejected by the database one at a time. Items that
+     * are rejected on their own are dropped.
+     *
+     * @param items Items of the rejected batch
+     * @param type  Name of the item type
+     * @param saver Saves a single item in its own transaction
+     * @param <T>   Type of the items
+     * @return The items that were saved
      */
-    @RabbitListener(queues = "${amqp.queue.comment-delete-name}")
-    private void commentDeleter(long commentId) {
-        Comment targetComment = commentService.verifyComment(commentId);
+    private static <T> List<T> saveOneByOne(List<T> items, String type, Consumer<T> saver) {
+        List<T> saved = new ArrayList<>(items.size());
 
-        targetComment.setPublished(false);
-        targetComment.setDeletedAt(LocalDateTime.now());
+        for (T item : items) {
+            try {
+                saver.accept(item);
+                saved.add(item);
+            } catch (DataIntegrityViolationException exception) {
+                LOGGER.error("A " + type + " has been dropped because the database rejected it: "
+                        + exception.getMostSpecificCause().getMessage());
+            }
+        }
 
-        commentService.saveComment(targetComment);
-        LOGGER.info("Comment " + commentId + " has been unpublished");
+        return saved;
     }
 }
@@ -0,0 +1,85 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Transport that writes messages to the outbox to be relayed to RabbitMQ. Every subscribed queue is consumed in
+ * batches by a single exclusive consumer, and a node whose consumer cannot take over a queue because another node
+ * holds it keeps retrying as a standby.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "rabbitmq", matchIfMissing = true)
+public class RabbitTransport implements MessageTransport, RabbitListenerConfigurer {
+    private final OutboxService outboxService;
+    private final MessageConverter messageConverter;
+    private final SimpleRabbitListenerContainerFactory batchListenerContainerFactory;
+    private final Map<String, Consumer<List<Object>>> subscriptions = new LinkedHashMap<>();
+
+    @Autowired
+    public RabbitTransport(OutboxService outboxService, MessageConverter messageConverter,
+                           @Qualifier("batchListenerContainerFactory")
+                                   SimpleRabbitListenerContainerFactory batchListenerContainerFactory) {
+        this.outboxService = outboxService;
+        this.messageConverter = messageConverter;
+        this.batchListenerContainerFactory = batchListenerContainerFactory;
+    }
+
+    @Override
+    public void send(String queueName, Object payload) {
+        outboxService.enqueue(queueName, payload);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> void subscribe(String queueName, Consumer<List<T>> consumer) {
+        subscriptions.put(queueName, messages -> consumer.accept((List<T>) messages));
+    }
+
+    /**
+     * Registers a batch listener with a single exclusive consumer for every subscribed queue.
+     *
+     * @param registrar Registrar of the listener endpoints
+     */
+    @Override
+    public synchronized void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        subscriptions.forEach((queueName, consumer) -> {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+
+            endpoint.setId(queueName);
+            endpoint.setQueueNames(queueName);
+            endpoint.setConcurrency("1");
+            endpoint.setExclusive(true);
+            endpoint.setBatchListener(true);
+            endpoint.setMessageListener((BatchMessageListener) messages -> consumer.accept(convert(messages)));
+            registrar.registerEndpoint(endpoint, batchListenerContainerFactory);
+        });
+    }
+
+    private List<Object> convert(List<Message> messages) {
+        List<Object> payloads = new ArrayList<>(messages.size());
+
+        for (Message message : messages)
+            payloads.add(messageConverter.fromMessage(message));
+
+        return payloads;
+    }
+}
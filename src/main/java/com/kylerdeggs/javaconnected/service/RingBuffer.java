@@ -0,0 +1,154 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Preallocated ring buffer with many producers and a single consumer thread. Producers claim a sequence, store
+ * their message in its slot and mark the slot as published, and wait for the consumer when the buffer is full. The
+ * consumer takes every published message that is available in order, up to the maximum batch size, and hands them
+ * to its consumer as one batch.
+ *
+ * @param <T> Type of the messages
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class RingBuffer<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RingBuffer.class);
+
+    private final String name;
+    private final Object[] entries;
+    private final AtomicIntegerArray publishedRounds;
+    private final int mask;
+    private final int indexShift;
+    private final WaitStrategy waitStrategy;
+    private final int maxBatchSize;
+    private final Consumer<List<T>> consumer;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final Thread consumerThread;
+
+    private volatile long consumed = -1;
+    private volatile boolean closed;
+
+    /**
+     * Creates a ring buffer and starts its consumer thread.
+     *
+     * @param name         Name of the consumer thread
+     * @param bufferSize   Number of slots, which has to be a power of two
+     * @param waitStrategy Strategy the consumer waits for new messages with
+     * @param maxBatchSize Maximum number of messages per batch
+     * @param consumer     Consumer of the batches
+     */
+    public RingBuffer(String name, int bufferSize, WaitStrategy waitStrategy, int maxBatchSize,
+                      Consumer<List<T>> consumer) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("The buffer size has to be a power of two but was " + bufferSize);
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("The maximum batch size has to be positive but was " + maxBatchSize);
+
+        this.name = name;
+        this.entries = new Object[bufferSize];
+        this.publishedRounds = new AtomicIntegerArray(bufferSize);
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.waitStrategy = waitStrategy;
+        this.maxBatchSize = maxBatchSize;
+        this.consumer = consumer;
+
+        for (int i = 0; i < bufferSize; i++)
+            publishedRounds.set(i, -1);
+
+        consumerThread = new Thread(this::consumeLoop, name);
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Publishes a message and waits for a free slot if the buffer is full.
+     *
+     * @param message Message to be published
+     */
+    public void publish(T message) {
+        if (closed)
+            throw new IllegalStateException("The ring buffer " + name + " has been closed");
+
+        long sequence = claimed.incrementAndGet();
+        int index = (int) sequence & mask;
+
+        while (sequence - entries.length > consumed)
+            LockSupport.parkNanos(1);
+
+        entries[index] = message;
+        publishedRounds.set(index, (int) (sequence >>> indexShift));
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Stops accepting messages and waits for the consumer to process the messages that have been published.
+     *
+     * @throws InterruptedException Interrupted while waiting for the consumer thread
+     */
+    public void close() throws InterruptedException {
+        closed = true;
+        waitStrategy.signalAll();
+        consumerThread.join();
+    }
+
+    private boolean isPublished(long sequence) {
+        return publishedRounds.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    private boolean isDrained() {
+        return closed && consumed == claimed.get();
+    }
+
+    private void consumeLoop() {
+        while (!isDrained()) {
+            long next = consumed + 1;
+
+            try {
+                waitStrategy.waitFor(() -> isPublished(next) || isDrained());
+            } catch (InterruptedException exception) {
+                LOGGER.warn("The consumer of " + name + " has been interrupted");
+                return;
+            }
+
+            if (!isPublished(next))
+                continue;
+
+            long last = next;
+
+            while (last - next + 1 < maxBatchSize && isPublished(last + 1))
+                last++;
+
+            List<T> batch = new ArrayList<>((int) (last - next + 1));
+
+            for (long sequence = next; sequence <= last; sequence++) {
+                int index = (int) sequence & mask;
+
+                batch.add(message(index));
+                entries[index] = null;
+            }
+
+            try {
+                consumer.accept(batch);
+            } catch (RuntimeException exception) {
+                LOGGER.error("A batch of " + batch.size() + " messages from " + name + " could not be processed",
+                        exception);
+            }
+            consumed = last;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T message(int index) {
+        return (T) entries[index];
+    }
+}
@@ -0,0 +1,713 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In memory inverted index over the titles and captions of published posts ranked with BM25. Every post is
+ * assigned a sequential document number and the posting list of each term stores the gaps between document
+ * numbers and the term frequencies as variable length integers. Deleted posts are only marked until the index is
+ * compacted, which happens whenever it is persisted to disk every {@code search.persist-interval} and on shutdown.
+ * On startup the persisted index is loaded, the posts deleted since it was written are removed, and only the posts
+ * created after the newest indexed post are read from the database by creation time and ID. Posts are only added
+ * and removed by the node that consumes their queue, so the same lookups are repeated for the changes since the
+ * previous one every {@code search.refresh-interval} to pick up the changes made by other nodes. Both lookups reach
+ * back {@value #OVERLAP_MINUTES} minutes to cover transactions that committed after the previous lookup.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+@Service
+public class SearchService {
+    public static final int MAX_RESULTS = 100;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchService.class);
+    private static final int FILE_MAGIC = 0x4A435349;
+    private static final int FILE_VERSION = 2;
+    private static final int REFRESH_BATCH_SIZE = 1000;
+    private static final int OVERLAP_MINUTES = 5;
+    private static final LocalDateTime EMPTY_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final PostRepository postRepository;
+    private final Path indexPath;
+    private final long persistIntervalMillis;
+    private final long refreshIntervalMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object persistMonitor = new Object();
+
+    private Map<String, Postings> terms = new HashMap<>();
+    private Map<Long, Integer> documents = new HashMap<>();
+    private long[] postIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private BitSet deleted = new BitSet();
+    private int documentCount;
+    private int liveCount;
+    private long liveLength;
+    private LocalDateTime watermark = EMPTY_WATERMARK;
+    private LocalDateTime persistedAt;
+    private LocalDateTime refreshedAt;
+    private boolean dirty;
+
+    private volatile boolean running;
+    private Thread persistThread;
+    private Thread refreshThread;
+
+    @Autowired
+    public SearchService(PostRepository postRepository, @Value("${search.index-path}") String indexPath,
+                         @Value("${search.persist-interval}") Duration persistInterval,
+                         @Value("${search.refresh-interval}") Duration refreshInterval) {
+        this.postRepository = postRepository;
+        this.indexPath = Paths.get(indexPath);
+        this.persistIntervalMillis = persistInterval.toMillis();
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    /**
+     * Loads the persisted index and brings it up to date with the posts that were created or deleted after it was
+     * written before any queue consumer can modify the index. Then starts the threads that persist and refresh the
+     * index.
+     */
+    @PostConstruct
+    void warm() {
+        if (Files.exists(indexPath)) {
+            try {
+                load();
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.warn("The search index at " + indexPath + " could not be loaded and will be rebuilt", exception);
+                clear();
+            }
+        }
+
+        refreshedAt = persistedAt;
+        try {
+            int count = refresh();
+
+            LOGGER.info("The search index has been loaded with " + liveCount + " posts after "
+                    + count + " changes were read from the database");
+            if (count > 0)
+                persist();
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("The search index could not be brought up to date", exception);
+        }
+
+        running = true;
+        persistThread = new Thread(this::persistLoop, "search-index-persist");
+        persistThread.setDaemon(true);
+        persistThread.start();
+        refreshThread = new Thread(this::refreshLoop, "search-index-refresh");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+    }
+
+    /**
+     * Stops the persist and refresh threads and persists the index before the application shuts down.
+     *
+     * @throws InterruptedException Interrupted while waiting for the persist or refresh thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(persistThread);
+        LockSupport.unpark(refreshThread);
+        persistThread.join(persistIntervalMillis);
+        refreshThread.join(refreshIntervalMillis);
+        try {
+            persist();
+        } catch (IOException exception) {
+            LOGGER.warn("The search index could not be persisted to " + indexPath, exception);
+        }
+    }
+
+    /**
+     * Removes the posts deleted since the previous refresh from the index and adds the posts created after the
+     * newest indexed post. Posts that are already indexed are skipped.
+     *
+     * @return Number of posts that were added or removed
+     */
+    int refresh() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime lastCreatedAt;
+        long lastId = 0;
+        int count = 0;
+        List<PostView> posts;
+
+        if (refreshedAt != null)
+            for (long postId : postRepository.findIdsDeletedSince(refreshedAt.minusMinutes(OVERLAP_MINUTES)))
+                if (remove(postId))
+                    count++;
+
+        lock.readLock().lock();
+        try {
+            lastCreatedAt = watermark.minusMinutes(OVERLAP_MINUTES);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        do {
+            posts = postRepository.findPublishedViewsCreatedAfter(lastCreatedAt, lastId,
+                    PageRequest.of(0, REFRESH_BATCH_SIZE));
+            for (PostView post : posts)
+                if (add(post))
+                    count++;
+            if (!posts.isEmpty()) {
+                lastCreatedAt = posts.get(posts.size() - 1).getCreatedAt();
+                lastId = posts.get(posts.size() - 1).getId();
+            }
+        } while (posts.size() == REFRESH_BATCH_SIZE);
+        refreshedAt = startedAt;
+
+        return count;
+    }
+
+    /**
+     * Adds a published post to the index.
+     *
+     * @param post Published post
+     * @return True if the post was not indexed yet
+     */
+    public boolean add(PostView post) {
+        lock.readLock().lock();
+        try {
+            if (documents.containsKey(post.getId()))
+                return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+
+        Map<String, Integer> frequencies = new HashMap<>();
+
+        tokenize(post.getTitle()).forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(post.getCaption()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            if (documents.containsKey(post.getId()))
+                return false;
+
+            int document = documentCount++;
+
+            if (document == postIds.length) {
+                postIds = Arrays.copyOf(postIds, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+            }
+            postIds[document] = post.getId();
+            lengths[document] = length;
+            documents.put(post.getId(), document);
+            frequencies.forEach((term, frequency) ->
+                    terms.computeIfAbsent(term, key -> new Postings()).add(document, frequency));
+            liveCount++;
+            liveLength += length;
+            if (post.getCreatedAt().isAfter(watermark))
+                watermark = post.getCreatedAt();
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an unpublished post from the index.
+     *
+     * @param postId ID of the unpublished post
+     * @return True if the post was indexed
+     */
+    public boolean remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documents.remove(postId);
+
+            if (document == null)
+                return false;
+
+            deleted.set(document);
+            liveCount--;
+            liveLength -= lengths[document];
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted post from the index once its deletion has been committed.
+     *
+     * @param event Deletion of the post
+     */
+    @TransactionalEventListener
+    public void onPostDeleted(PostDeletedEvent event) {
+        remove(event.getPostId());
+    }
+
+    /**
+     * Searches the titles and captions of published posts.
+     *
+     * @param query Words to search for
+     * @param limit Maximum number of posts to return
+     * @return List of matching published posts from the most to the least relevant
+     */
+    public List<PostView> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().collect(Collectors.toList());
+
+        if (queryTerms.isEmpty())
+            throw new IllegalArgumentException("The search query must contain at least one word");
+
+        List<Long> ranked;
+
+        lock.readLock().lock();
+        try {
+            ranked = rank(queryTerms, Math.max(1, Math.min(limit, MAX_RESULTS)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (ranked.isEmpty())
+            return Collections.emptyList();
+
+        Map<Long, PostView> posts = postRepository.findPublishedViewsByIds(ranked).stream()
+                .collect(Collectors.toMap(PostView::getId, Function.identity()));
+
+        return ranked.stream().map(posts::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Compacts the index and takes a snapshot of it while holding the write lock, then writes the snapshot to a
+     * temporary file that replaces the index file without blocking searches or updates.
+     *
+     * @throws IOException If the index file could not be written
+     */
+    void persist() throws IOException {
+        synchronized (persistMonitor) {
+            LocalDateTime snapshotAt = LocalDateTime.now();
+            LocalDateTime snapshotWatermark;
+            int snapshotCount;
+            long[] snapshotPostIds;
+            int[] snapshotLengths;
+            Map<String, Postings> snapshotTerms = new HashMap<>();
+
+            lock.writeLock().lock();
+            try {
+                if (!dirty)
+                    return;
+
+                compact();
+                snapshotWatermark = watermark;
+                snapshotCount = documentCount;
+                snapshotPostIds = Arrays.copyOf(postIds, documentCount);
+                snapshotLengths = Arrays.copyOf(lengths, documentCount);
+                terms.forEach((term, postings) -> snapshotTerms.put(term, postings.snapshot()));
+                dirty = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                write(snapshotAt, snapshotWatermark, snapshotCount, snapshotPostIds, snapshotLengths, snapshotTerms);
+            } catch (IOException | RuntimeException exception) {
+                lock.writeLock().lock();
+                try {
+                    dirty = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw exception;
+            }
+            LOGGER.info("The search index has been persisted with " + snapshotCount + " posts");
+        }
+    }
+
+    private void persistLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(persistIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            if (!running)
+                return;
+
+            try {
+                persist();
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.warn("The search index could not be persisted to " + indexPath + " and will be retried",
+                        exception);
+            }
+        }
+    }
+
+    private void refreshLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            if (!running)
+                return;
+
+            try {
+                refresh();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The search index could not be refreshed and keeps the posts it holds", exception);
+            }
+        }
+    }
+
+    /**
+     * Helper method that writes a snapshot of the index to a temporary file that then replaces the index file.
+     *
+     * @param snapshotAt        Time the snapshot was taken
+     * @param snapshotWatermark Creation time of the newest indexed post
+     * @param count             Number of documents
+     * @param snapshotPostIds   Post ID of every document
+     * @param snapshotLengths   Length of every document
+     * @param snapshotTerms     Posting list of every term
+     * @throws IOException If the index file could not be written
+     */
+    private void write(LocalDateTime snapshotAt, LocalDateTime snapshotWatermark, int count, long[] snapshotPostIds,
+                       int[] snapshotLengths, Map<String, Postings> snapshotTerms) throws IOException {
+        Path temporaryPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+        if (indexPath.toAbsolutePath().getParent() != null)
+            Files.createDirectories(indexPath.toAbsolutePath().getParent());
+        try (DataOutputStream output =
+                     new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeUTF(snapshotAt.toString());
+            output.writeUTF(snapshotWatermark.toString());
+            output.writeInt(count);
+            for (int document = 0; document < count; document++) {
+                output.writeLong(snapshotPostIds[document]);
+                output.writeInt(snapshotLengths[document]);
+            }
+            output.writeInt(snapshotTerms.size());
+            for (Map.Entry<String, Postings> entry : snapshotTerms.entrySet()) {
+                output.writeUTF(entry.getKey());
+                entry.getValue().write(output);
+            }
+        }
+        Files.move(temporaryPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Helper method that reads the index file.
+     *
+     * @throws IOException If the index file could not be read
+     */
+    private void load() throws IOException {
+        lock.writeLock().lock();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION)
+                throw new IOException("Unsupported search index file " + indexPath);
+
+            persistedAt = LocalDateTime.parse(input.readUTF());
+            watermark = LocalDateTime.parse(input.readUTF());
+            documentCount = input.readInt();
+            postIds = new long[Math.max(documentCount, 1024)];
+            lengths = new int[postIds.length];
+            for (int document = 0; document < documentCount; document++) {
+                postIds[document] = input.readLong();
+                lengths[document] = input.readInt();
+                documents.put(postIds[document], document);
+                liveLength += lengths[document];
+            }
+            liveCount = documentCount;
+
+            for (int remaining = input.readInt(); remaining > 0; remaining--)
+                terms.put(input.readUTF(), Postings.read(input));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Helper method that ranks the live documents matching any of the terms with BM25 by walking all of their
+     * posting lists at once in document order while keeping the best documents in a bounded min heap.
+     *
+     * @param queryTerms Distinct terms to rank by
+     * @param limit      Maximum number of posts to return
+     * @return List of post IDs from the highest to the lowest score
+     */
+    private List<Long> rank(List<String> queryTerms, int limit) {
+        List<Postings.Cursor> cursors = new ArrayList<>();
+        double averageLength = liveCount == 0 ? 1 : Math.max(1, (double) liveLength / liveCount);
+
+        for (String term : queryTerms) {
+            Postings postings = terms.get(term);
+
+            if (postings != null)
+                cursors.add(postings.cursor(Math.log(1 + (documentCount - postings.count + 0.5)
+                        / (postings.count + 0.5))));
+        }
+
+        PriorityQueue<double[]> best = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[1]));
+
+        while (true) {
+            int document = Integer.MAX_VALUE;
+
+            for (Postings.Cursor cursor : cursors)
+                if (cursor.hasDocument())
+                    document = Math.min(document, cursor.document);
+            if (document == Integer.MAX_VALUE)
+                break;
+
+            double normalization = K1 * (1 - B + B * lengths[document] / averageLength);
+            double score = 0;
+
+            for (Postings.Cursor cursor : cursors)
+                if (cursor.hasDocument() && cursor.document == document) {
+                    score += cursor.idf * cursor.frequency * (K1 + 1) / (cursor.frequency + normalization);
+                    cursor.next();
+                }
+
+            if (deleted.get(document))
+                continue;
+            if (best.size() < limit)
+                best.add(new double[]{document, score});
+            else if (score > best.element()[1]) {
+                best.remove();
+                best.add(new double[]{document, score});
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(best.size());
+
+        while (!best.isEmpty())
+            ranked.add(postIds[(int) best.remove()[0]]);
+        Collections.reverse(ranked);
+
+        return ranked;
+    }
+
+    /**
+     * Helper method that renumbers the live documents and drops deleted documents from every posting list.
+     */
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int live = 0;
+
+        for (int document = 0; document < documentCount; document++)
+            renumbered[document] = deleted.get(document) ? -1 : live++;
+
+        long[] compactedPostIds = new long[Math.max(live, 1024)];
+        int[] compactedLengths = new int[compactedPostIds.length];
+        Map<Long, Integer> compactedDocuments = new HashMap<>();
+        Map<String, Postings> compactedTerms = new HashMap<>();
+
+        for (int document = 0; document < documentCount; document++)
+            if (renumbered[document] >= 0) {
+                compactedPostIds[renumbered[document]] = postIds[document];
+                compactedLengths[renumbered[document]] = lengths[document];
+                compactedDocuments.put(postIds[document], renumbered[document]);
+            }
+        terms.forEach((term, postings) -> {
+            Postings compacted = postings.compact(renumbered);
+
+            if (compacted.count > 0)
+                compactedTerms.put(term, compacted);
+        });
+
+        postIds = compactedPostIds;
+        lengths = compactedLengths;
+        documents = compactedDocuments;
+        terms = compactedTerms;
+        deleted = new BitSet();
+        documentCount = live;
+    }
+
+    private void clear() {
+        terms = new HashMap<>();
+        documents = new HashMap<>();
+        postIds = new long[1024];
+        lengths = new int[1024];
+        deleted = new BitSet();
+        documentCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+        watermark = EMPTY_WATERMARK;
+        persistedAt = null;
+    }
+
+    /**
+     * Splits text into lower case terms made of letters and digits.
+     *
+     * @param text Text to split
+     * @return List of terms in the order they appear
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        if (text == null)
+            return tokens;
+
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                if (start < 0)
+                    start = i;
+            } else if (start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH && i - start <= MAX_TOKEN_LENGTH)
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Posting list of a term stored as pairs of document number gaps and term frequencies encoded as variable
+     * length integers.
+     */
+    private static class Postings {
+        private byte[] data = new byte[8];
+        private int size;
+        private int count;
+        private int lastDocument;
+
+        private void add(int document, int frequency) {
+            if (size + 10 > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+            writeVarint(document - lastDocument);
+            writeVarint(frequency);
+            lastDocument = document;
+            count++;
+        }
+
+        private Postings compact(int[] renumbered) {
+            Postings compacted = new Postings();
+
+            for (Cursor cursor = cursor(0); cursor.hasDocument(); cursor.next())
+                if (renumbered[cursor.document] >= 0)
+                    compacted.add(renumbered[cursor.document], cursor.frequency);
+
+            return compacted;
+        }
+
+        /**
+         * Copies the posting list without its data. Postings are only appended, so the bytes the copy refers to
+         * are never changed.
+         *
+         * @return Copy of the posting list
+         */
+        private Postings snapshot() {
+            Postings snapshot = new Postings();
+
+            snapshot.data = data;
+            snapshot.size = size;
+            snapshot.count = count;
+            snapshot.lastDocument = lastDocument;
+
+            return snapshot;
+        }
+
+        private Cursor cursor(double idf) {
+            return new Cursor(idf);
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeInt(count);
+            output.writeInt(lastDocument);
+            output.writeInt(size);
+            output.write(data, 0, size);
+        }
+
+        private static Postings read(DataInputStream input) throws IOException {
+            Postings postings = new Postings();
+
+            postings.count = input.readInt();
+            postings.lastDocument = input.readInt();
+            postings.size = input.readInt();
+            postings.data = new byte[Math.max(postings.size, 8)];
+            input.readFully(postings.data, 0, postings.size);
+
+            return postings;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        /**
+         * Decodes a posting list one document at a time.
+         */
+        private class Cursor {
+            private final double idf;
+
+            private int position;
+            private int document;
+            private int frequency;
+
+            private Cursor(double idf) {
+                this.idf = idf;
+                next();
+            }
+
+            private boolean hasDocument() {
+                return document != Integer.MAX_VALUE;
+            }
+
+            private void next() {
+                if (position >= size) {
+                    document = Integer.MAX_VALUE;
+                    return;
+                }
+                document += readVarint();
+                frequency = readVarint();
+            }
+
+            private int readVarint() {
+                int value = 0;
+
+                for (int shift = 0; ; shift += 7) {
+                    byte current = data[position++];
+
+                    value |= (current & 0x7F) << shift;
+                    if (current >= 0)
+                        return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.PostLikeRepository;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.EngagementCount;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains a leaderboard of trending posts from like and comment engagement. Engagement is scored with forward
+ * exponential decay so newer engagement is worth more than older engagement, estimated per post with a count-min
+ * sketch, and the highest scoring posts are kept in a bounded min heap. The leaderboard is published as an
+ * immutable list so reads cost O(K). Engagement is only recorded by the node that consumes it, so the sketch and
+ * the leaderboard are rebuilt from the likes and comments persisted within the last {@value #REBUILD_HALF_LIVES}
+ * half-lives at startup and every {@code trending.rebuild-interval}. The leaderboards of all nodes therefore agree
+ * after each rebuild, and engagement consumed by other nodes shows up within that interval.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+@Service
+public class TrendingService {
+    public static final double LIKE_WEIGHT = 1;
+    public static final double COMMENT_WEIGHT = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrendingService.class);
+    private static final int REBUILD_HALF_LIVES = 4;
+    private static final int SLICES_PER_HALF_LIFE = 4;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1 << 12;
+    private static final double RESCALE_EXPONENT = 64;
+    private static final long[] SKETCH_SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+            0xD6E8FEB86659FD93L};
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final CommentRepository commentRepository;
+    private final int size;
+    private final long halfLifeMillis;
+    private final double decayPerMilli;
+    private final long rebuildIntervalMillis;
+    private final LongSupplier clock;
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+    private final PriorityQueue<Candidate> lowestCandidates =
+            new PriorityQueue<>(Comparator.comparingDouble(candidate -> candidate.score));
+
+    private double[][] sketch = new double[SKETCH_DEPTH][SKETCH_WIDTH];
+    private long landmark;
+    private volatile List<PostView> leaderboard = Collections.emptyList();
+    private volatile boolean running;
+    private Thread rebuildThread;
+
+    @Autowired
+    public TrendingService(PostRepository postRepository, PostLikeRepository postLikeRepository,
+                           CommentRepository commentRepository, @Value("${trending.size}") int size,
+                           @Value("${trending.half-life}") Duration halfLife,
+                           @Value("${trending.rebuild-interval}") Duration rebuildInterval) {
+        this(postRepository, postLikeRepository, commentRepository, size, halfLife, rebuildInterval,
+                System::currentTimeMillis);
+    }
+
+    TrendingService(PostRepository postRepository, PostLikeRepository postLikeRepository,
+                    CommentRepository commentRepository, int size, Duration halfLife, Duration rebuildInterval,
+                    LongSupplier clock) {
+        this.postRepository = postRepository;
+        this.postLikeRepository = postLikeRepository;
+        this.commentRepository = commentRepository;
+        this.size = size;
+        this.clock = clock;
+        halfLifeMillis = halfLife.toMillis();
+        decayPerMilli = Math.log(2) / halfLifeMillis;
+        rebuildIntervalMillis = rebuildInterval.toMillis();
+        landmark = clock.getAsLong();
+    }
+
+    /**
+     * Rebuilds the leaderboard from the persisted engagement and starts the thread that rebuilds it periodically.
+     */
+    @PostConstruct
+    void warm() {
+        try {
+            LOGGER.info("The trending posts have been rebuilt from the engagement of " + rebuild() + " posts");
+        } catch (RuntimeException exception) {
+            LOGGER.warn("The trending posts could not be rebuilt and only hold new engagement until they are rebuilt",
+                    exception);
+        }
+
+        running = true;
+        rebuildThread = new Thread(this::rebuildLoop, "trending-rebuild");
+        rebuildThread.setDaemon(true);
+        rebuildThread.start();
+    }
+
+    /**
+     * Stops the thread that rebuilds the leaderboard.
+     *
+     * @throws InterruptedException Interrupted while waiting for the rebuild thread
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(rebuildThread);
+        rebuildThread.join(rebuildIntervalMillis);
+    }
+
+    /**
+     * Retrieves the trending posts from the highest to the lowest score.
+     *
+     * @return List of trending posts
+     */
+    public List<PostView> leaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Records likes that were added to a post.
+     *
+     * @param post  Post that was liked
+     * @param count Number of added likes
+     */
+    public void recordLikes(PostView post, int count) {
+        record(post, LIKE_WEIGHT * count);
+    }
+
+    /**
+     * Records a comment that was added to a post.
+     *
+     * @param post Post that was commented on
+     */
+    public void recordComment(PostView post) {
+        record(post, COMMENT_WEIGHT);
+    }
+
+    /**
+     * Removes a deleted post from the leaderboard.
+     *
+     * @param postId ID of the deleted post
+     */
+    public synchronized void remove(long postId) {
+        Candidate candidate = candidates.remove(postId);
+
+        if (candidate != null) {
+            lowestCandidates.remove(candidate);
+            publishLeaderboard();
+        }
+    }
+
+    /**
+     * Removes a deleted post from the leaderboard once its deletion has been committed.
+     *
+     * @param event Deletion of the post
+     */
+    @TransactionalEventListener
+    public void onPostDeleted(PostDeletedEvent event) {
+        remove(event.getPostId());
+    }
+
+    /**
+     * Replaces the sketch and the leaderboard with the likes and comments persisted within the last
+     * {@value #REBUILD_HALF_LIVES} half-lives. The engagement is counted per post in slices of a quarter half-life
+     * that are decayed from their middle, and only published posts are put on the leaderboard. Engagement that is
+     * recorded while the counts are read is dropped from the sketch until the next rebuild reads it.
+     *
+     * @return Number of posts with engagement
+     */
+    int rebuild() {
+        long now = clock.getAsLong();
+        long sliceMillis = Math.max(1, halfLifeMillis / SLICES_PER_HALF_LIFE);
+        Map<Long, Double> scores = new HashMap<>();
+
+        for (int slice = 0; slice < REBUILD_HALF_LIVES * SLICES_PER_HALF_LIFE; slice++) {
+            long to = now - slice * sliceMillis;
+            double decay = Math.exp(-(slice + 0.5) * sliceMillis * decayPerMilli);
+            LocalDateTime sliceStart = toDateTime(to - sliceMillis);
+            LocalDateTime sliceEnd = toDateTime(to);
+
+            for (EngagementCount likes : postLikeRepository.countByPostCreatedBetween(sliceStart, sliceEnd))
+                scores.merge(likes.getPostId(), LIKE_WEIGHT * likes.getCount() * decay, Double::sum);
+            for (EngagementCount comments : commentRepository.countByPostCreatedBetween(sliceStart, sliceEnd))
+                scores.merge(comments.getPostId(), COMMENT_WEIGHT * comments.getCount() * decay, Double::sum);
+        }
+
+        double[][] rebuiltSketch = new double[SKETCH_DEPTH][SKETCH_WIDTH];
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        Map<Long, PostView> views = new HashMap<>();
+
+        scores.forEach((postId, score) -> {
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                int cell = cell(postId, row);
+
+                rebuiltSketch[row][cell] = Math.max(rebuiltSketch[row][cell], score);
+            }
+        });
+        for (int start = 0; start < ranked.size() && views.size() < size; start += size)
+            postRepository.findPublishedViewsByIds(ranked.subList(start, Math.min(start + size, ranked.size())))
+                    .forEach(view -> views.put(view.getId(), view));
+
+        synchronized (this) {
+            sketch = rebuiltSketch;
+            landmark = now;
+            candidates.clear();
+            lowestCandidates.clear();
+            ranked.stream().filter(views::containsKey).limit(size).forEach(postId -> {
+                Candidate candidate = new Candidate(views.get(postId), scores.get(postId));
+
+                candidates.put(postId, candidate);
+                lowestCandidates.add(candidate);
+            });
+            publishLeaderboard();
+        }
+
+        return scores.size();
+    }
+
+    private void rebuildLoop() {
+        while (running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rebuildIntervalMillis);
+
+            while (running && System.nanoTime() < deadline)
+                LockSupport.parkNanos(deadline - System.nanoTime());
+
+            if (!running)
+                return;
+
+            try {
+                rebuild();
+            } catch (RuntimeException exception) {
+                LOGGER.warn("The trending posts could not be rebuilt and keep their current scores", exception);
+            }
+        }
+    }
+
+    /**
+     * Helper method that adds decayed engagement to the sketch and updates the leaderboard.
+     *
+     * @param post   Target post
+     * @param weight Weight of the engagement
+     */
+    private synchronized void record(PostView post, double weight) {
+        double exponent = (clock.getAsLong() - landmark) * decayPerMilli;
+
+        if (exponent > RESCALE_EXPONENT) {
+            rescale(Math.exp(-exponent));
+            exponent = 0;
+        }
+
+        double score = addToSketch(post.getId(), weight * Math.exp(exponent));
+        Candidate candidate = candidates.get(post.getId());
+
+        if (candidate != null) {
+            lowestCandidates.remove(candidate);
+            candidate.post = post;
+            candidate.score = score;
+            lowestCandidates.add(candidate);
+        } else if (candidates.size() < size || score > lowestCandidates.element().score) {
+            if (candidates.size() == size)
+                candidates.remove(lowestCandidates.remove().post.getId());
+
+            candidate = new Candidate(post, score);
+            candidates.put(post.getId(), candidate);
+            lowestCandidates.add(candidate);
+        } else
+            return;
+
+        publishLeaderboard();
+    }
+
+    /**
+     * Helper method that adds a value to the sketch with a conservative update and returns the new estimate.
+     *
+     * @param postId ID of the target post
+     * @param value  Value to add
+     * @return The new estimated score of the post
+     */
+    private double addToSketch(long postId, double value) {
+        int[] cells = new int[SKETCH_DEPTH];
+        double estimate = Double.MAX_VALUE;
+
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            cells[row] = cell(postId, row);
+            estimate = Math.min(estimate, sketch[row][cells[row]]);
+        }
+
+        double score = estimate + value;
+
+        for (int row = 0; row < SKETCH_DEPTH; row++)
+            sketch[row][cells[row]] = Math.max(sketch[row][cells[row]], score);
+
+        return score;
+    }
+
+    /**
+     * Helper method that scales every score down and moves the decay landmark to now so the scores cannot
+     * overflow.
+     *
+     * @param factor Factor to scale every score by
+     */
+    private void rescale(double factor) {
+        for (double[] row : sketch)
+            for (int i = 0; i < row.length; i++)
+                row[i] *= factor;
+        candidates.values().forEach(candidate -> candidate.score *= factor);
+        landmark = clock.getAsLong();
+    }
+
+    private void publishLeaderboard() {
+        List<Candidate> ranked = new ArrayList<>(candidates.values());
+
+        ranked.sort(Comparator.comparingDouble((Candidate candidate) -> candidate.score).reversed());
+        leaderboard = Collections.unmodifiableList(ranked.stream().map(candidate -> candidate.post)
+                .collect(Collectors.toList()));
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static int cell(long postId, int row) {
+        long hash = (postId + 1) * SKETCH_SEEDS[row];
+
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 29;
+
+        return (int) (hash & (SKETCH_WIDTH - 1));
+    }
+
+    /**
+     * Post on the leaderboard and its score.
+     */
+    private static class Candidate {
+        private PostView post;
+
+        private double score;
+
+        private Candidate(PostView post, double score) {
+            this.post = post;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.kylerdeggs.javaconnected.service;
+
+import java.util.Arrays;
+
+/**
+ * Set of user ordinals that is stored like a roaring bitmap container. Small sets are kept as a sorted array of
+ * ordinals and switch to a bitmap once they hold {@value #ARRAY_LIMIT} ordinals.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class UserOrdinalSet {
+    private static final int ARRAY_LIMIT = 4096;
+
+    private int[] ordinals = new int[4];
+    private long[] words;
+    private int size;
+
+    /**
+     * Adds an ordinal to the set.
+     *
+     * @param ordinal Ordinal of the user
+     * @return True if the set did not contain the ordinal
+     */
+    public synchronized boolean add(int ordinal) {
+        if (words != null) {
+            int word = ordinal >>> 6;
+
+            if (word >= words.length)
+                words = Arrays.copyOf(words, Math.max(words.length * 2, word + 1));
+            if ((words[word] & (1L << ordinal)) != 0)
+                return false;
+            words[word] |= 1L << ordinal;
+            size++;
+            return true;
+        }
+
+        int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+        if (index >= 0)
+            return false;
+        if (size == ARRAY_LIMIT) {
+            toBitmap();
+            return add(ordinal);
+        }
+
+        index = -index - 1;
+        if (size == ordinals.length)
+            ordinals = Arrays.copyOf(ordinals, Math.min(size * 2, ARRAY_LIMIT));
+        System.arraycopy(ordinals, index, ordinals, index + 1, size - index);
+        ordinals[index] = ordinal;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an ordinal from the set.
+     *
+     * @param ordinal Ordinal of the user
+     * @return True if the set contained the ordinal
+     */
+    public synchronized boolean remove(int ordinal) {
+        if (words != null) {
+            int word = ordinal >>> 6;
+
+            if (word >= words.length || (words[word] & (1L << ordinal)) == 0)
+                return false;
+            words[word] &= ~(1L << ordinal);
+            size--;
+            return true;
+        }
+
+        int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+        if (index < 0)
+            return false;
+        System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Determines if the set contains an ordinal.
+     *
+     * @param ordinal Ordinal of the user
+     * @return True if the set contains the ordinal
+     */
+    public synchronized boolean contains(int ordinal) {
+        if (words != null) {
+            int word = ordinal >>> 6;
+
+            return word < words.length && (words[word] & (1L << ordinal)) != 0;
+        }
+
+        return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void toBitmap() {
+        words = new long[(ordinals[size - 1] >>> 6) + 1];
+        for (int i = 0; i < size; i++)
+            words[ordinals[i] >>> 6] |= 1L << ordinals[i];
+        ordinals = null;
+    }
+}
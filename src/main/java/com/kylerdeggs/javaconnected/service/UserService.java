@@ -1,52 +1,88 @@
 package com.kylerdeggs.javaconnected.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.repository.UserRepository;
+import com.kylerdeggs.javaconnected.web.Cursor;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import com.kylerdeggs.javaconnected.web.dtos.UserDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
- * Provides methods for retrieving, creating, and updating users.
+ * Provides methods for retrieving, creating, and updating users. Cached users are invalidated once the change has
+ * been committed, so a concurrent read cannot cache the user as it was before the change. Batches of user events
+ * skip and log the events that cannot be applied instead of failing the whole batch.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.8.0
  */
 @Service
 public class UserService {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
+    private final Cache<String, User> userCache;
+    private final LastLoginBuffer lastLoginBuffer;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, Cache<String, User> userCache,
+                       LastLoginBuffer lastLoginBuffer) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.lastLoginBuffer = lastLoginBuffer;
     }
 
     /**
-     * Retrieves all users.
+     * Retrieves a page of users ordered from newest to oldest registration.
      *
-     * @return A list of all users
+     * @param cursor Cursor returned with the previous page or null for the first page
+     * @param limit  Requested page size
+     * @return A page of users and the cursor for the next page
      */
-    public Iterable<User> allUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> userPage(String cursor, int limit) {
+        int size = CursorPage.clampSize(limit);
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+        List<User> rows;
+
+        if (cursor == null)
+            rows = userRepository.findAllByOrderByRegisteredAtDescIdDesc(pageRequest);
+        else {
+            Cursor position = Cursor.decode(cursor);
+            rows = userRepository.findRegisteredBefore(position.getCreatedAt(), position.getId(), pageRequest);
+        }
+
+        return CursorPage.of(rows, size, user -> new Cursor(user.getRegisteredAt(), user.getId()));
     }
 
     /**
-     * Finds a user with the specified ID or throws an exception if none is found.
+     * Finds a user with the specified ID or throws an exception if none is found. Users are served from the user
+     * cache when possible and the returned user must not be modified.
      *
      * @param userId ID of the target user
      * @return The found user
      * @throws NoSuchElementException A user with the specified ID was not found
      */
     public User verifyUser(String userId) throws NoSuchElementException {
-        return findUser(userId).orElseThrow(() ->
+        return Optional.ofNullable(userCache.get(userId, id -> findUser(id).orElse(null))).orElseThrow(() ->
                 new NoSuchElementException("A user with ID: " + userId + " does not exist"));
     }
 
@@ -54,26 +90,69 @@ public class UserService {
      * Creates a new user with the specified information.
      *
      * @param user Information of the new user
+     * @throws IllegalArgumentException The user is missing required information
      */
     public void createUser(UserDto user) {
-        if (user.getFirstName() == null || user.getLastName() == null || user.getEmail() == null)
+        if (isIncomplete(user))
             throw new IllegalArgumentException("The request is missing required information");
 
-        userRepository.save(new User(user.getId(), user.getFirstName(), user.getLastName(), user.getPhone(),
-                user.getEmail(), LocalDateTime.now(), LocalDateTime.now()));
-        LOGGER.info("A new user has been created");
+        createUsers(Collections.singletonList(user));
+    }
+
+    /**
+     * Creates new users with the specified information in one transaction. Users that are missing required
+     * information or already exist are skipped, so a repeated event does not overwrite a user that has been updated
+     * since.
+     *
+     * @param users Information of the new users
+     */
+    @Transactional
+    public void createUsers(List<UserDto> users) {
+        LocalDateTime now = LocalDateTime.now();
+        List<User> created = new ArrayList<>(users.size());
+        Set<String> existing = new HashSet<>();
+
+        userRepository.findAllById(users.stream().map(UserDto::getId).collect(Collectors.toSet()))
+                .forEach(user -> existing.add(user.getId()));
+        for (UserDto user : users) {
+            if (isIncomplete(user))
+                LOGGER.warn("User " + user.getId() + " has been skipped because it is missing required information");
+            else if (!existing.add(user.getId()))
+                LOGGER.warn("User " + user.getId() + " has been skipped because it already exists");
+            else
+                created.add(new User(user.getId(), user.getFirstName(), user.getLastName(), user.getPhone(),
+                        user.getEmail(), now, now));
+        }
+
+        userRepository.saveAll(created);
+        invalidateAfterCommit(created.stream().map(User::getId).collect(Collectors.toList()));
+        LOGGER.info(created.size() + " new users have been created");
     }
 
     /**
-     * Updates the last time a user has logged in.
+     * Updates the last time a user has logged in. The sign-in is buffered and written with the sign-ins of other
+     * users by the last login buffer.
      *
      * @param user Information of the user to update
+     * @throws NoSuchElementException A user with the specified ID was not found
      */
     public void updateSignIn(UserDto user) {
-        User original = verifyUser(user.getId());
+        lastLoginBuffer.record(verifyUser(user.getId()).getId(), LocalDateTime.now());
+    }
 
-        original.setLastLogin(LocalDateTime.now());
-        userRepository.save(original);
+    /**
+     * Updates the last time users have logged in. Sign-ins of users that do not exist are skipped.
+     *
+     * @param users Information of the users to update
+     */
+    public void updateSignIns(List<UserDto> users) {
+        for (UserDto user : users) {
+            try {
+                updateSignIn(user);
+            } catch (NoSuchElementException exception) {
+                LOGGER.warn("A sign-in has been skipped: " + exception.getMessage());
+            }
+        }
     }
 
     /**
@@ -82,8 +161,78 @@ public class UserService {
      * @param updatedUser UserDto with updated information
      */
     public void updateUser(UserDto updatedUser) {
-        User original = verifyUser(updatedUser.getId());
+        User original = loadUser(updatedUser.getId());
+
+        applyChanges(original, updatedUser);
+        LOGGER.info("Updating user details for user with ID: " + original.getId());
+        userRepository.save(original);
+        invalidateAfterCommit(Collections.singletonList(original.getId()));
+    }
+
+    /**
+     * Updates users with the specified new information in one transaction. Updates of the same user are applied in
+     * order and updates of users that do not exist are skipped.
+     *
+     * @param updatedUsers UserDtos with updated information
+     */
+    @Transactional
+    public void updateUsers(List<UserDto> updatedUsers) {
+        Map<String, User> originals = new LinkedHashMap<>();
+
+        userRepository.findAllById(updatedUsers.stream().map(UserDto::getId).collect(Collectors.toSet()))
+                .forEach(user -> originals.put(user.getId(), user));
+        for (UserDto updatedUser : updatedUsers) {
+            User original = originals.get(updatedUser.getId());
+
+            if (original == null)
+                LOGGER.warn("An update has been skipped because a user with ID: " + updatedUser.getId()
+                        + " does not exist");
+            else
+                applyChanges(original, updatedUser);
+        }
+
+        LOGGER.info("Updating user details for " + originals.size() + " users");
+        userRepository.saveAll(originals.values());
+        invalidateAfterCommit(new ArrayList<>(originals.keySet()));
+    }
 
+    /**
+     * Helper method that determines if a new user is missing required information.
+     *
+     * @param user Information of the new user
+     * @return True if the first name, last name, or email is missing
+     */
+    private static boolean isIncomplete(UserDto user) {
+        return user.getFirstName() == null || user.getLastName() == null || user.getEmail() == null;
+    }
+
+    /**
+     * Helper method that invalidates the cached users once the current transaction has been committed, or right
+     * away if there is no transaction.
+     *
+     * @param userIds IDs of the changed users
+     */
+    private void invalidateAfterCommit(List<String> userIds) {
+        Runnable invalidate = () -> userIds.forEach(userCache::invalidate);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        else
+            invalidate.run();
+    }
+
+    /**
+     * Helper method that copies the provided fields of a UserDto to a user.
+     *
+     * @param original    User to be updated
+     * @param updatedUser UserDto with updated information
+     */
+    private void applyChanges(User original, UserDto updatedUser) {
         if (updatedUser.getFirstName() != null)
             original.setFirstName(updatedUser.getFirstName());
         if (updatedUser.getLastName() != null)
@@ -92,9 +241,18 @@ public class UserService {
             original.setPhone(updatedUser.getPhone());
         if (updatedUser.getEmail() != null)
             original.setEmail(updatedUser.getEmail());
+    }
 
-        LOGGER.info("Updating user details for user with ID: " + original.getId());
-        userRepository.save(original);
+    /**
+     * Helper method that loads a user from the database, bypassing the user cache, so it can be modified.
+     *
+     * @param userId ID of the target user
+     * @return The found user
+     * @throws NoSuchElementException A user with the specified ID was not found
+     */
+    private User loadUser(String userId) {
+        return findUser(userId).orElseThrow(() ->
+                new NoSuchElementException("A user with ID: " + userId + " does not exist"));
     }
 
     /**
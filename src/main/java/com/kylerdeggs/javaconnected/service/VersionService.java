@@ -0,0 +1,60 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+/**
+ * Derives strong ETags from the persisted state that a response depends on, so every node issues the same ETag for
+ * the same persisted state no matter which node processed the change. The ETag of a post is its version, and the
+ * ETag of the posts of a user is made of the combined version of the posts and the name of the user, so changes to
+ * other columns of the user, like the last sign-in, keep the ETag. A post or user that does not exist has no ETag.
+ * ETags are held in memory for {@code cache.tags.expire-after-write}, so a conditional request only reads the
+ * versions from the database once per interval and a change shows up in the ETag within that interval.
+ *
+ * @author Kyler Deggs
+ * @version 3.0.0
+ */
+@Service
+public class VersionService {
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final Cache<String, String> tagCache;
+
+    @Autowired
+    public VersionService(PostRepository postRepository, UserRepository userRepository,
+                          Cache<String, String> tagCache) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.tagCache = tagCache;
+    }
+
+    /**
+     * Creates the ETag for the current version of a post.
+     *
+     * @param postId ID of the target post
+     * @return Strong ETag of the post or null if the post is not published
+     */
+    public String postTag(long postId) {
+        return tagCache.get("p-" + postId, key -> postRepository.findPublishedVersion(postId)
+                .map(version -> "p-" + version).orElse(null));
+    }
+
+    /**
+     * Creates the ETag for the current version of the posts of a user from the combined version of the posts and
+     * the name of the user that is shown with them.
+     *
+     * @param userId ID of the target user
+     * @return Strong ETag of the posts of the user or null if the user does not exist
+     */
+    public String userTag(String userId) {
+        return tagCache.get("u-" + userId, key -> userRepository.findAuthorVersion(userId)
+                .map(author -> "u-" + author.getPostVersions() + "-"
+                        + Integer.toHexString(Objects.hash(author.getFirstName(), author.getLastName())))
+                .orElse(null));
+    }
+}
@@ -0,0 +1,136 @@
+package com.kylerdeggs.javaconnected.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Strategy the consumer of a ring buffer uses to wait for new messages. The strategies trade CPU usage for latency,
+ * from the blocking strategy that sleeps until a producer signals it to the busy spin strategy that occupies a core.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public abstract class WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    /**
+     * Waits until a condition becomes true. The condition is checked again by the caller, so a strategy may return
+     * early.
+     *
+     * @param ready Condition to wait for
+     * @throws InterruptedException Interrupted while waiting
+     */
+    abstract void waitFor(BooleanSupplier ready) throws InterruptedException;
+
+    /**
+     * Wakes up the consumer after a message has been published or the ring buffer has been closed.
+     */
+    void signalAll() {
+    }
+
+    /**
+     * Creates a wait strategy by its name.
+     *
+     * @param name Either blocking, sleeping, yielding or busy-spin
+     * @return New wait strategy
+     */
+    public static WaitStrategy of(String name) {
+        switch (name) {
+            case "blocking":
+                return new Blocking();
+            case "sleeping":
+                return new Sleeping();
+            case "yielding":
+                return new Yielding();
+            case "busy-spin":
+                return new BusySpin();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy " + name);
+        }
+    }
+
+    /**
+     * Sleeps on a condition until a producer signals it. Producers only take the lock while the consumer is
+     * waiting.
+     */
+    private static final class Blocking extends WaitStrategy {
+        private final Lock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        private volatile boolean waiting;
+
+        @Override
+        void waitFor(BooleanSupplier ready) throws InterruptedException {
+            lock.lock();
+            try {
+                waiting = true;
+                while (!ready.getAsBoolean())
+                    published.await();
+            } finally {
+                waiting = false;
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void signalAll() {
+            if (!waiting)
+                return;
+
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Spins, then yields and finally parks for short periods.
+     */
+    private static final class Sleeping extends WaitStrategy {
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+        @Override
+        void waitFor(BooleanSupplier ready) {
+            for (int tries = 0; !ready.getAsBoolean(); tries++) {
+                if (tries < SPIN_TRIES)
+                    Thread.onSpinWait();
+                else if (tries < 2 * SPIN_TRIES)
+                    Thread.yield();
+                else
+                    LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Spins and then yields the core to other threads.
+     */
+    private static final class Yielding extends WaitStrategy {
+        @Override
+        void waitFor(BooleanSupplier ready) {
+            for (int tries = 0; !ready.getAsBoolean(); tries++) {
+                if (tries < SPIN_TRIES)
+                    Thread.onSpinWait();
+                else
+                    Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Spins without ever giving up the core.
+     */
+    private static final class BusySpin extends WaitStrategy {
+        @Override
+        void waitFor(BooleanSupplier ready) {
+            while (!ready.getAsBoolean())
+                Thread.onSpinWait();
+        }
+    }
+}
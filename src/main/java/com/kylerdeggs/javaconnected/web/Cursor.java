@@ -0,0 +1,78 @@
+package com.kylerdeggs.javaconnected.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor that points at the last row of a page by its creation time and ID.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class Cursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+
+    private final String id;
+
+    public Cursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Decodes a cursor token that was previously returned to a client.
+     *
+     * @param token Encoded cursor token
+     * @return The decoded cursor
+     * @throws IllegalArgumentException The token is not a valid cursor
+     */
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+
+            if (separator <= 0 || separator == raw.length() - 1)
+                throw new IllegalArgumentException("The cursor " + token + " is invalid");
+
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("The cursor " + token + " is invalid");
+        }
+    }
+
+    /**
+     * Encodes the cursor into an opaque URL safe token.
+     *
+     * @return Encoded cursor token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the ID of the cursor as a numeric ID.
+     *
+     * @return Numeric ID of the cursor
+     * @throws IllegalArgumentException The ID of the cursor is not numeric
+     */
+    public long getNumericId() {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("The cursor ID " + id + " is invalid");
+        }
+    }
+}
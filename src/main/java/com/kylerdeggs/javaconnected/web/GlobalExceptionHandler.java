@@ -8,12 +8,13 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.io.IOException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Handles all exceptions for the controllers.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.3.0
  */
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
@@ -46,4 +47,10 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(new HttpResponse(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
                 exception.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<HttpResponse> return503(RejectedExecutionException exception) {
+        return new ResponseEntity<>(new HttpResponse(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                exception.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
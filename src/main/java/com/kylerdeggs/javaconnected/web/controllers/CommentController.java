@@ -1,8 +1,9 @@
 package com.kylerdeggs.javaconnected.web.controllers;
 
-import com.kylerdeggs.javaconnected.domain.Comment;
+import com.kylerdeggs.javaconnected.repository.projections.CommentView;
 import com.kylerdeggs.javaconnected.service.CommentService;
 import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import com.kylerdeggs.javaconnected.web.HttpResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,7 +17,7 @@ import java.util.List;
  * Controller to handle all requests pertaining to a comment.
  *
  * @author Kyler Deggs
- * @version 1.2.1
+ * @version 1.6.0
  */
 @RestController
 @RequestMapping("v1/api/comments")
@@ -29,18 +30,19 @@ public class CommentController {
     }
 
     @GetMapping
-    public List<Comment> getAllComments() {
-        return commentService.allComments();
+    public CursorPage<CommentView> getAllComments(@RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return commentService.commentPage(cursor, limit);
     }
 
     @GetMapping("/user/{id}")
-    public List<Comment> getAllCommentsByUser(@PathVariable("id") String authorId) {
-        return commentService.allCommentsByUser(authorId);
+    public List<CommentView> getAllCommentsByUser(@PathVariable("id") String authorId) {
+        return commentService.allCommentViewsByUser(authorId);
     }
 
     @GetMapping("/{id}")
-    public Comment getComment(@PathVariable("id") long commentId) {
-        return commentService.verifyComment(commentId);
+    public CommentView getComment(@PathVariable("id") long commentId) {
+        return commentService.verifyCommentView(commentId);
     }
 
     @PostMapping
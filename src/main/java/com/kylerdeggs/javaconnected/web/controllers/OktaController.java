@@ -1,21 +1,23 @@
 package com.kylerdeggs.javaconnected.web.controllers;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.kylerdeggs.javaconnected.service.UserService;
+import com.kylerdeggs.javaconnected.web.dtos.OktaEventHook;
 import com.kylerdeggs.javaconnected.web.dtos.UserDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Controller to handle Okta Event Hook requests.
+ * Controller to handle Okta Event Hook requests. Events that cannot be applied are skipped and logged, so one bad
+ * event does not make Okta retry the whole delivery.
  *
  * @author Kyler Deggs
- * @version 1.0.2
+ * @version 1.3.0
  */
 @RestController
 @RequestMapping("v1/api/okta")
@@ -30,7 +32,7 @@ public class OktaController {
         this.userService = userService;
     }
 
-    @GetMapping(path = {"/create", "/update"})
+    @GetMapping(path = {"/create", "/update", "/signin"})
     public Map<String, String> verify(@RequestHeader("X-Okta-Verification-Challenge") String challenge,
                                       @RequestHeader("Authorization") String key) {
         verifyAuthentication(key);
@@ -38,34 +40,58 @@ public class OktaController {
     }
 
     @PostMapping("/create")
-    public void createUser(@RequestBody Map<String, Object> request,
-                           @RequestHeader("Authorization") String key) {
+    public void createUsers(@RequestBody OktaEventHook request,
+                            @RequestHeader("Authorization") String key) {
         verifyAuthentication(key);
-        userService.createUser(convertToUserDto(request));
+        userService.createUsers(convertToUserDtos(request));
     }
 
     @PostMapping("/update")
-    public void updateUser(@RequestBody Map<String, Object> request,
-                           @RequestHeader("Authorization") String key) {
+    public void updateUsers(@RequestBody OktaEventHook request,
+                            @RequestHeader("Authorization") String key) {
         verifyAuthentication(key);
-        userService.updateUser(convertToUserDto(request));
+        userService.updateUsers(convertToUserDtos(request));
+    }
+
+    @PostMapping("/signin")
+    public void signIn(@RequestBody OktaEventHook request,
+                       @RequestHeader("Authorization") String key) {
+        verifyAuthentication(key);
+        userService.updateSignIns(convertToUserDtos(request));
+    }
+
+    /**
+     * Converts every user event of an Okta Event Hook delivery into a User DTO. Events that are not about a user
+     * are skipped.
+     *
+     * @param request Okta Event Hook delivery
+     * @return User DTOs in the order of the events
+     */
+    private List<UserDto> convertToUserDtos(OktaEventHook request) {
+        List<UserDto> users = new ArrayList<>(request.getEvents().size());
+
+        for (OktaEventHook.Event event : request.getEvents()) {
+            OktaEventHook.Actor user = event.user();
+
+            if (user != null)
+                users.add(convertToUserDto(user));
+        }
+
+        return users;
     }
 
     /**
-     * Converts an Okta Event Hook request into a User DTO.
+     * Converts the user of an Okta event into a User DTO.
      *
-     * @param oktaObject Okta Event Hook request body
+     * @param user User of an Okta event
      * @return User DTO
      */
-    private UserDto convertToUserDto(Map<String, Object> oktaObject) {
-        @SuppressWarnings("unchecked") final Map<String, Object> rawRequest = (Map<String, Object>) oktaObject.get("data");
-        @SuppressWarnings("unchecked") final Map<String, Object> eventData = (Map<String, Object>) ((List<Object>) rawRequest.get("events")).get(0);
-        @SuppressWarnings("unchecked") final Map<String, String> target = (Map<String, String>) eventData.get("target");
-        final OktaActor oktaActor = new OktaActor(target.get("id"), target.get("type"),
-                target.get("alternateId"), target.get("displayName"));
-        final String[] displayNameSplit = oktaActor.getDisplayName().split(" ");
-
-        return new UserDto(oktaActor.getId(), displayNameSplit[0], displayNameSplit[1], oktaActor.getAlternateId());
+    private UserDto convertToUserDto(OktaEventHook.Actor user) {
+        final String[] displayNameSplit = user.getDisplayName() != null
+                ? user.getDisplayName().split(" ", 2) : new String[0];
+
+        return new UserDto(user.getId(), displayNameSplit.length > 0 ? displayNameSplit[0] : null,
+                displayNameSplit.length > 1 ? displayNameSplit[1] : null, user.getAlternateId());
     }
 
     /**
@@ -77,38 +103,4 @@ public class OktaController {
         if (!eventAuthKey.equals(this.eventAuthKey))
             throw new SecurityException("Okta Event Hook authorization key is invalid");
     }
-
-    /**
-     * Okta Event Hook representation object.
-     *
-     * @author Kyler Deggs
-     * @version 1.1.0
-     */
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class OktaActor {
-        private final String id, type, alternateId, displayName;
-
-        public OktaActor(String id, String type, String alternateId, String displayName) {
-            this.id = id;
-            this.type = type;
-            this.alternateId = alternateId;
-            this.displayName = displayName;
-        }
-
-        public String getId() {
-            return id;
-        }
-
-        public String getType() {
-            return type;
-        }
-
-        public String getAlternateId() {
-            return alternateId;
-        }
-
-        public String getDisplayName() {
-            return displayName;
-        }
-    }
 }
@@ -1,38 +1,106 @@
 package com.kylerdeggs.javaconnected.web.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.kylerdeggs.javaconnected.service.PostCommentService;
+import com.kylerdeggs.javaconnected.service.VersionService;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Controller to handle all requests for presenting a combination of post and comment information.
  *
  * @author Kyler Deggs
- * @version 1.0.1
+ * @version 1.3.0
  */
 @RestController
 @RequestMapping("v1/api/posts_comments")
 public class PostCommentController {
     private final PostCommentService postCommentService;
+    private final VersionService versionService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter dtoWriter;
 
     @Autowired
-    public PostCommentController(PostCommentService postCommentService) {
+    public PostCommentController(PostCommentService postCommentService, VersionService versionService,
+                                 ObjectMapper objectMapper) {
         this.postCommentService = postCommentService;
+        this.versionService = versionService;
+        this.objectMapper = objectMapper;
+        dtoWriter = objectMapper.writerFor(PostCommentService.PostCommentDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping
-    public List<PostCommentService.PostCommentDto> getAllPostsAndComments() {
-        return postCommentService.allPostsAndComments();
+    public CursorPage<PostCommentService.PostCommentDto> getAllPostsAndComments(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return postCommentService.postAndCommentPage(cursor, limit);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPostsAndComments() {
+        return streamingResponse(postCommentService::streamPostsAndComments);
     }
 
     @GetMapping("/{id}")
     public List<PostCommentService.PostCommentDto> getAllPostsByUserAndComments(
-            @PathVariable("id") String authorId) {
+            @PathVariable("id") String authorId, WebRequest request) {
+        if (request.checkNotModified(versionService.userTag(authorId)))
+            return null;
+
         return postCommentService.allPostsByUserAndComments(authorId);
     }
+
+    @GetMapping(path = "/{id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPostsByUserAndComments(
+            @PathVariable("id") String authorId) {
+        return streamingResponse(batchConsumer ->
+                postCommentService.streamPostsByUserAndComments(authorId, batchConsumer));
+    }
+
+    /**
+     * Creates a response that writes every batch of posts and comments to a JSON array as soon as it is ready.
+     *
+     * @param producer Producer that passes each batch of posts and comments to the specified consumer
+     * @return Streaming JSON array response
+     */
+    private ResponseEntity<StreamingResponseBody> streamingResponse(
+            Consumer<Consumer<List<PostCommentService.PostCommentDto>>> producer) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                producer.accept(batch -> {
+                    try {
+                        for (PostCommentService.PostCommentDto postComment : batch)
+                            dtoWriter.writeValue(generator, postComment);
+                        generator.flush();
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
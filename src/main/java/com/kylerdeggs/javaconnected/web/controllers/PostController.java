@@ -1,15 +1,21 @@
 package com.kylerdeggs.javaconnected.web.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
 import com.kylerdeggs.javaconnected.service.PostService;
+import com.kylerdeggs.javaconnected.service.SearchService;
+import com.kylerdeggs.javaconnected.service.TrendingService;
+import com.kylerdeggs.javaconnected.service.VersionService;
 import com.kylerdeggs.javaconnected.web.HttpResponse;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import com.kylerdeggs.javaconnected.web.dtos.MediaUpload;
 import com.kylerdeggs.javaconnected.web.dtos.PostDto;
 import org.apache.tika.mime.MimeTypeException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -19,36 +25,62 @@ import java.util.List;
  * Controller to handle all requests pertaining to a post.
  *
  * @author Kyler Deggs
- * @version 1.2.1
+ * @version 1.10.0
  */
 @RestController
 @RequestMapping("v1/api/posts")
 public class PostController {
     private final PostService postService;
+    private final VersionService versionService;
+    private final TrendingService trendingService;
+    private final SearchService searchService;
 
     @Autowired
-    public PostController(PostService postService) {
+    public PostController(PostService postService, VersionService versionService,
+                          TrendingService trendingService, SearchService searchService) {
         this.postService = postService;
+        this.versionService = versionService;
+        this.trendingService = trendingService;
+        this.searchService = searchService;
     }
 
     @GetMapping
-    public List<Post> getAllPosts() {
-        return postService.allPosts();
+    public CursorPage<PostView> getAllPosts(@RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return postService.postPage(cursor, limit);
+    }
+
+    @GetMapping("/trending")
+    public List<PostView> getTrendingPosts() {
+        return trendingService.leaderboard();
+    }
+
+    @GetMapping("/search")
+    public List<PostView> searchPosts(@RequestParam("q") String query,
+                                      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return searchService.search(query, limit);
     }
 
     @GetMapping("/user/{id}")
-    public List<Post> getAllPostsByUser(@PathVariable(value = "id") String authorId) {
-        return postService.allPostsByUser(authorId);
+    public List<PostView> getAllPostsByUser(@PathVariable(value = "id") String authorId, WebRequest request) {
+        if (request.checkNotModified(versionService.userTag(authorId)))
+            return null;
+
+        return postService.allPostViewsByUser(authorId);
     }
 
     @GetMapping("/{id}")
-    public Post getPost(@PathVariable("id") long postId) {
-        return postService.verifyPost(postId);
+    public PostView getPost(@PathVariable("id") long postId, WebRequest request) {
+        if (request.checkNotModified(versionService.postTag(postId)))
+            return null;
+
+        return postService.verifyPostView(postId);
     }
 
     @PostMapping
     public ResponseEntity<HttpResponse> createPost(@RequestParam(value = "media", required = false) MultipartFile media,
-                                                   @RequestParam("post") String postInformation) throws IOException, MimeTypeException {
+                                                   @RequestParam("post") String postInformation)
+            throws IOException, MimeTypeException {
         PostDto postDto = new ObjectMapper().readValue(postInformation, PostDto.class);
 
         postService.processPost(postDto, media);
@@ -57,6 +89,11 @@ public class PostController {
                 "Post creation request has been accepted"));
     }
 
+    @PostMapping("/media")
+    public MediaUpload createMediaUpload(@RequestParam("contentType") String contentType) throws MimeTypeException {
+        return postService.createMediaUpload(contentType);
+    }
+
     @PatchMapping("/likes")
     public ResponseEntity<HttpResponse> modifyLikes(@RequestParam("postId") long postId,
                                                     @RequestParam("addLike") boolean addLike) {
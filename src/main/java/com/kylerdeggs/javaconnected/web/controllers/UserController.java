@@ -2,17 +2,19 @@ package com.kylerdeggs.javaconnected.web.controllers;
 
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.service.UserService;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * Controller to handle all requests pertaining to a user.
  *
  * @author Kyler Deggs
- * @version 1.3.1
+ * @version 1.4.0
  */
 @RestController
 @RequestMapping("v1/api/users")
@@ -25,8 +27,9 @@ public class UserController {
     }
 
     @GetMapping
-    public Iterable<User> getAllUsers() {
-        return userService.allUsers();
+    public CursorPage<User> getAllUsers(@RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return userService.userPage(cursor, limit);
     }
 
     @GetMapping("/{id}")
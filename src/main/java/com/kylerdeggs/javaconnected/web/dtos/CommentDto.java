@@ -1,5 +1,6 @@
 package com.kylerdeggs.javaconnected.web.dtos;
 
+import com.kylerdeggs.javaconnected.domain.Comment;
 import org.hibernate.validator.constraints.Length;
 
 import javax.validation.constraints.NotNull;
@@ -9,7 +10,7 @@ import java.io.Serializable;
  * Comment representation object.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.2.0
  */
 public class CommentDto implements Serializable {
     @NotNull
@@ -19,9 +20,18 @@ public class CommentDto implements Serializable {
     private String authorId;
 
     @NotNull
-    @Length(max = 1000)
+    @Length(max = Comment.CAPTION_LENGTH)
     private String caption;
 
+    public CommentDto() {
+    }
+
+    public CommentDto(long postId, String authorId, String caption) {
+        this.postId = postId;
+        this.authorId = authorId;
+        this.caption = caption;
+    }
+
     public long getPostId() {
         return postId;
     }
@@ -0,0 +1,62 @@
+package com.kylerdeggs.javaconnected.web.dtos;
+
+import com.kylerdeggs.javaconnected.web.Cursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page of results retrieved with keyset pagination and the cursor to retrieve the next page.
+ *
+ * @param <T> Type of the items in the page
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class CursorPage<T> {
+    public static final int MAX_SIZE = 500;
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a page from rows that were retrieved with one extra row to detect if another page exists.
+     *
+     * @param rows     Rows retrieved with a limit of {@code limit + 1}
+     * @param limit    Requested page size
+     * @param cursorOf Function that creates the cursor for a row
+     * @param <T>      Type of the items in the page
+     * @return The page of results
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit)
+            return new CursorPage<>(rows, null);
+
+        List<T> items = rows.subList(0, limit);
+
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * Restricts a requested page size to the supported range.
+     *
+     * @param limit Requested page size
+     * @return Page size between 1 and the max page size
+     */
+    public static int clampSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_SIZE));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,40 @@
+package com.kylerdeggs.javaconnected.web.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Presigned media upload representation object. The media has to be uploaded with a PUT to the URL before it
+ * expires, with the tagging sent as the {@code x-amz-tagging} header, and the location is then referenced as the
+ * media location of a post.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+public class MediaUpload {
+    private final String mediaLocation, uploadUrl, tagging;
+
+    private final LocalDateTime expiresAt;
+
+    public MediaUpload(String mediaLocation, String uploadUrl, String tagging, LocalDateTime expiresAt) {
+        this.mediaLocation = mediaLocation;
+        this.uploadUrl = uploadUrl;
+        this.tagging = tagging;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getMediaLocation() {
+        return mediaLocation;
+    }
+
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public String getTagging() {
+        return tagging;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,139 @@
+package com.kylerdeggs.javaconnected.web.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Okta Event Hook delivery. A delivery carries one or more events, and only the fields that are needed to find the
+ * affected user are bound.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OktaEventHook {
+    @JsonProperty
+    private Data data;
+
+    public OktaEventHook() {
+    }
+
+    public OktaEventHook(List<Event> events) {
+        this.data = new Data(events);
+    }
+
+    /**
+     * Retrieves the events of the delivery.
+     *
+     * @return Events in the order Okta published them
+     */
+    public List<Event> getEvents() {
+        return data == null || data.events == null ? Collections.emptyList() : data.events;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class Data {
+        private List<Event> events;
+
+        private Data() {
+        }
+
+        private Data(List<Event> events) {
+            this.events = events;
+        }
+
+        public List<Event> getEvents() {
+            return events;
+        }
+    }
+
+    /**
+     * Okta event.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Event {
+        private String eventType;
+
+        private Actor actor;
+
+        @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+        private List<Actor> target;
+
+        public Event() {
+        }
+
+        public Event(String eventType, Actor actor, List<Actor> target) {
+            this.eventType = eventType;
+            this.actor = actor;
+            this.target = target;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        public Actor getActor() {
+            return actor;
+        }
+
+        public List<Actor> getTarget() {
+            return target;
+        }
+
+        /**
+         * Finds the user an event is about, which is the first target of type User or otherwise the actor.
+         *
+         * @return The affected user or null if the event is not about a user
+         */
+        public Actor user() {
+            if (target != null)
+                for (Actor candidate : target)
+                    if (candidate.isUser())
+                        return candidate;
+
+            return actor != null && actor.isUser() ? actor : null;
+        }
+    }
+
+    /**
+     * Actor or target of an Okta event.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Actor {
+        private String id, type, alternateId, displayName;
+
+        public Actor() {
+        }
+
+        public Actor(String id, String type, String alternateId, String displayName) {
+            this.id = id;
+            this.type = type;
+            this.alternateId = alternateId;
+            this.displayName = displayName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getAlternateId() {
+            return alternateId;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        private boolean isUser() {
+            return "User".equals(type) && id != null;
+        }
+    }
+}
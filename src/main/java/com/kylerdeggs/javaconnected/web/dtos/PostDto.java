@@ -1,30 +1,46 @@
 package com.kylerdeggs.javaconnected.web.dtos;
 
+import com.kylerdeggs.javaconnected.domain.Post;
+
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 
 /**
- * Post representation object.
+ * Post representation object. The request ID is an optional idempotency key, and posts with a request ID that
+ * has already been used are only created once.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.3.0
  */
 public class PostDto implements Serializable {
     @NotNull
     private String authorId;
 
     @NotNull
-    @Size(max = 100)
+    @Size(max = Post.TITLE_LENGTH)
     private String title;
 
-    @Size(max = 100)
+    @Size(max = Post.MEDIA_LOCATION_LENGTH)
     private String mediaLocation;
 
     @NotNull
-    @Size(max = 3000)
+    @Size(max = Post.CAPTION_LENGTH)
     private String caption;
 
+    @Size(max = Post.REQUEST_ID_LENGTH)
+    private String requestId;
+
+    public PostDto() {
+    }
+
+    public PostDto(String authorId, String title, String mediaLocation, String caption) {
+        this.authorId = authorId;
+        this.title = title;
+        this.mediaLocation = mediaLocation;
+        this.caption = caption;
+    }
+
     public String getAuthorId() {
         return authorId;
     }
@@ -44,4 +60,12 @@ public class PostDto implements Serializable {
     public String getCaption() {
         return caption;
     }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
 }
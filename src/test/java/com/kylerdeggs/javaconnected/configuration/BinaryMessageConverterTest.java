@@ -0,0 +1,122 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kylerdeggs.javaconnected.service.PostService;
+import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the BinaryMessageConverter class.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+public class BinaryMessageConverterTest {
+    private final BinaryMessageConverter converter = new BinaryMessageConverter();
+
+    @Test
+    public void postRoundTrip() {
+        PostDto post = (PostDto) roundTrip(new PostDto("00u1abcd", "Grüße", null, "Caption with emoji 😀"));
+
+        assertEquals("00u1abcd", post.getAuthorId());
+        assertEquals("Grüße", post.getTitle());
+        assertNull(post.getMediaLocation());
+        assertEquals("Caption with emoji 😀", post.getCaption());
+        assertNull(post.getRequestId());
+    }
+
+    @Test
+    public void postRequestIdRoundTrip() {
+        PostDto post = new PostDto("00u1abcd", "Title", "00u1abcd/image.png", "Caption");
+        byte[] body;
+
+        post.setRequestId("5f0c5a5e-6d4b-4a39-9f3e-2d0b3c2f1a7e");
+        body = converter.encode(post);
+
+        assertEquals("5f0c5a5e-6d4b-4a39-9f3e-2d0b3c2f1a7e", ((PostDto) converter.decode(body)).getRequestId());
+        assertNull(((PostDto) converter.decode(Arrays.copyOf(body, body.length - 37))).getRequestId());
+    }
+
+    @Test
+    public void commentLikeAndIdRoundTrip() {
+        CommentDto comment = (CommentDto) roundTrip(new CommentDto(300, "00u1abcd", ""));
+        PostService.LikeDto like = (PostService.LikeDto) roundTrip(new PostService.LikeDto(Long.MAX_VALUE,
+                "00u1abcd", true));
+
+        assertEquals(300, comment.getPostId());
+        assertEquals("", comment.getCaption());
+        assertEquals(Long.MAX_VALUE, like.getPostId());
+        assertEquals("00u1abcd", like.getUserId());
+        assertTrue(like.isAddLike());
+        assertEquals(42L, roundTrip(42L));
+    }
+
+    @Test
+    public void smallerThanJavaSerialization() {
+        PostService.LikeDto like = new PostService.LikeDto(123456, "00u1abcd", false);
+        Message serialized = new SimpleMessageConverter().toMessage(like, new MessageProperties());
+        Message encoded = converter.toMessage(like, new MessageProperties());
+
+        assertEquals(15, encoded.getBody().length);
+        assertTrue(serialized.getBody().length > 5 * encoded.getBody().length);
+    }
+
+    @Test
+    public void smallerThanJavaSerializationAndJson() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object[] payloads = {new PostDto("00u1a2b3c4d5e6f7g8h9", "Weekend hike", "00u1a2b3c4d5e6f7g8h9/9f2c1e.jpg",
+                "Made it to the top of the ridge before the rain started. Worth every step."),
+                new CommentDto(184467, "00u1a2b3c4d5e6f7g8h9", "Great view, which trail was this?"),
+                new PostService.LikeDto(184467, "00u1a2b3c4d5e6f7g8h9", true), 184467L};
+
+        for (Object payload : payloads) {
+            int encodedSize = converter.encode(payload).length;
+
+            assertTrue(encodedSize < new SimpleMessageConverter().toMessage(payload, new MessageProperties())
+                    .getBody().length);
+            assertTrue(encodedSize < objectMapper.writeValueAsBytes(payload).length);
+        }
+    }
+
+    @Test
+    public void readsJavaSerializedMessages() {
+        Message serialized = new SimpleMessageConverter().toMessage(7L, new MessageProperties());
+
+        assertEquals(7L, converter.fromMessage(serialized));
+    }
+
+    @Test(expected = MessageConversionException.class)
+    public void rejectsUnknownVersion() {
+        byte[] body = converter.encode(7L);
+
+        body[0] = BinaryMessageConverter.VERSION + 1;
+        converter.decode(body);
+    }
+
+    @Test(expected = MessageConversionException.class)
+    public void rejectsTruncatedBody() {
+        byte[] body = converter.encode(new CommentDto(1, "00u1abcd", "Caption"));
+
+        converter.decode(Arrays.copyOf(body, body.length - 1));
+    }
+
+    private Object roundTrip(Object payload) {
+        Message message = converter.toMessage(payload, new MessageProperties());
+
+        assertEquals(BinaryMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+
+        return converter.fromMessage(message);
+    }
+}
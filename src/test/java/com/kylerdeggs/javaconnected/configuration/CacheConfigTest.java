@@ -0,0 +1,43 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.service.UserOrdinalSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the CacheConfig class.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+public class CacheConfigTest {
+    private final Cache<String, User> userCache = Caffeine.newBuilder().maximumSize(10).recordStats().build();
+
+    private final Cache<Long, UserOrdinalSet> likeCache = Caffeine.newBuilder().maximumSize(10).recordStats().build();
+
+    private final Cache<String, String> tagCache = Caffeine.newBuilder().maximumSize(10).recordStats().build();
+
+    @Test
+    public void publishesCacheStatistics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new CacheConfig().cacheMetrics(userCache, likeCache, tagCache).bindTo(registry);
+        userCache.get("abc123", id -> null);
+        userCache.put("abc123", new User());
+        userCache.getIfPresent("abc123");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count(), 0);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "miss")
+                .functionCounter().count(), 0);
+        assertEquals(0, registry.get("cache.gets").tag("cache", "likes").tag("result", "miss")
+                .functionCounter().count(), 0);
+        assertEquals(0, registry.get("cache.gets").tag("cache", "tags").tag("result", "miss")
+                .functionCounter().count(), 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kylerdeggs.javaconnected.service.PostService;
+import com.kylerdeggs.javaconnected.web.dtos.CommentDto;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks that compare the encode and decode cost of the binary message format with Java serialization and
+ * JSON. The encoded sizes are checked by BinaryMessageConverterTest. It is not part of the regular test run and can
+ * be run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath com.kylerdeggs.javaconnected.configuration.MessageConverterBenchmark"}.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageConverterBenchmark {
+
+    @Param({"post", "comment", "like", "id"})
+    private String type;
+
+    private final MessageConverter binaryConverter = new BinaryMessageConverter();
+    private final MessageConverter javaConverter = new SimpleMessageConverter();
+    private final ObjectMapper objectMapper = new ObjectMapper().addMixIn(PostService.LikeDto.class,
+            LikeDtoMixin.class);
+
+    private Object payload;
+    private Message binaryMessage;
+    private Message javaMessage;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = payload(type);
+        binaryMessage = binaryConverter.toMessage(payload, new MessageProperties());
+        javaMessage = javaConverter.toMessage(payload, new MessageProperties());
+        json = objectMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public Message binaryEncode() {
+        return binaryConverter.toMessage(payload, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return binaryConverter.fromMessage(binaryMessage);
+    }
+
+    @Benchmark
+    public Message javaEncode() {
+        return javaConverter.toMessage(payload, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object javaDecode() {
+        return javaConverter.fromMessage(javaMessage);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public Object jsonDecode() throws IOException {
+        return objectMapper.readValue(json, payload.getClass());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static Object payload(String type) {
+        switch (type) {
+            case "post":
+                return new PostDto("00u1a2b3c4d5e6f7g8h9", "Weekend hike", "00u1a2b3c4d5e6f7g8h9/9f2c1e.jpg",
+                        "Made it to the top of the ridge before the rain started. Worth every step.");
+            case "comment":
+                return new CommentDto(184467, "00u1a2b3c4d5e6f7g8h9", "Great view, which trail was this?");
+            case "like":
+                return new PostService.LikeDto(184467, "00u1a2b3c4d5e6f7g8h9", true);
+            default:
+                return 184467L;
+        }
+    }
+
+    private abstract static class LikeDtoMixin {
+        @JsonCreator
+        LikeDtoMixin(@JsonProperty("postId") long postId, @JsonProperty("userId") String userId,
+                     @JsonProperty("addLike") boolean addLike) {
+        }
+    }
+}
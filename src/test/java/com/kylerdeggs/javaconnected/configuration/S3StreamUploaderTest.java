@@ -0,0 +1,153 @@
+package com.kylerdeggs.javaconnected.configuration;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the S3StreamUploader class.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class S3StreamUploaderTest {
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_PARTS_IN_FLIGHT = 2;
+
+    private final AmazonS3 mockS3Client = mock(AmazonS3.class);
+
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+    private S3StreamUploader uploader;
+
+    @Before
+    public void setUp() {
+        uploader = new S3StreamUploader(mockS3Client, PART_SIZE, PART_SIZE, MAX_PARTS_IN_FLIGHT);
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+
+        initiateResult.setUploadId("upload-1");
+        when(mockS3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class)))
+                .thenReturn(initiateResult);
+        when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            UploadPartResult result = new UploadPartResult();
+
+            maxObservedInFlight.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            uploadedParts.put(request.getPartNumber(), request.getInputStream().readAllBytes());
+            partsInFlight.decrementAndGet();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    public void uploadsSmallFilesWithTheirContentLength() throws IOException {
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+
+        uploader.upload("bucket", "user/image.png", new ByteArrayInputStream(new byte[1024]), 1024, "image/png");
+
+        verify(mockS3Client, times(1)).putObject(request.capture());
+        assertEquals(1024, request.getValue().getMetadata().getContentLength());
+        assertEquals("image/png", request.getValue().getMetadata().getContentType());
+        verify(mockS3Client, never()).initiateMultipartUpload(any());
+    }
+
+    @Test
+    public void uploadsLargeFilesInParts() throws IOException {
+        byte[] content = content(3 * PART_SIZE + 1234);
+        ArgumentCaptor<CompleteMultipartUploadRequest> request =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+
+        uploader.upload("bucket", "user/video.mp4", new ByteArrayInputStream(content), content.length, "video/mp4");
+
+        verify(mockS3Client, times(1)).completeMultipartUpload(request.capture());
+        assertEquals(Arrays.asList(1, 2, 3, 4), request.getValue().getPartETags().stream()
+                .map(PartETag::getPartNumber).collect(Collectors.toList()));
+        assertArrayEquals(content, join(4));
+        assertTrue(maxObservedInFlight.get() <= MAX_PARTS_IN_FLIGHT);
+        verify(mockS3Client, never()).abortMultipartUpload(any());
+    }
+
+    @Test(timeout = 10000)
+    public void abortsFailedUploadsAndReleasesTheirBuffers() throws IOException {
+        byte[] content = content(2 * PART_SIZE + 1);
+
+        when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(new SdkClientException("S3 is down"));
+
+        try {
+            uploader.upload("bucket", "user/video.mp4", new ByteArrayInputStream(content), content.length,
+                    "video/mp4");
+            fail("The upload should have failed");
+        } catch (SdkClientException exception) {
+            assertEquals("S3 is down", exception.getMessage());
+        }
+
+        verify(mockS3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(mockS3Client, never()).completeMultipartUpload(any());
+
+        when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenReturn(new UploadPartResult());
+        uploader.upload("bucket", "user/video.mp4", new ByteArrayInputStream(content), content.length,
+                "video/mp4");
+        verify(mockS3Client, times(1)).completeMultipartUpload(any());
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+
+        for (int i = 0; i < size; i++)
+            content[i] = (byte) (i * 31);
+
+        return content;
+    }
+
+    private byte[] join(int parts) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        for (int part = 1; part <= parts; part++)
+            output.writeBytes(uploadedParts.get(part));
+
+        return output.toByteArray();
+    }
+}
@@ -16,7 +16,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.when;
@@ -62,45 +61,6 @@ public class CommentServiceTest {
         when(mockCommentRepository.findByIdAndPublishedTrue(3L)).thenReturn(Optional.ofNullable(commentList.get(2)));
     }
 
-    @Test
-    public void allComments() {
-        when(mockCommentRepository.findByPublishedTrue()).thenReturn(commentList);
-        List<Comment> foundComments = commentService.allComments();
-
-        assertEquals(3, foundComments.size());
-        assertEquals(commentList.get(0), foundComments.get(0));
-        assertEquals(commentList.get(1), foundComments.get(1));
-        assertEquals(commentList.get(2), foundComments.get(2));
-    }
-
-    @Test
-    public void allCommentsByUser() {
-        User targetUser = userList.get(0);
-        when(mockUserService.verifyUser("abc123")).thenReturn(targetUser);
-        when(mockCommentRepository.findAllByAuthorAndPublishedTrue(targetUser)).thenReturn(
-                commentList.stream().filter(comment -> comment.getAuthor().equals(targetUser))
-                        .collect(Collectors.toList())
-        );
-        List<Comment> foundComments = commentService.allCommentsByUser("abc123");
-
-        assertEquals(2, foundComments.size());
-        assertEquals(commentList.get(0), foundComments.get(0));
-        assertEquals(commentList.get(1), foundComments.get(1));
-    }
-
-    @Test
-    public void allCommentsForPost() {
-        Post targetPost = postList.get(0);
-        when(mockCommentRepository.findAllByPostAndPublishedTrue(targetPost)).thenReturn(
-                commentList.stream().filter(comment -> comment.getPost().equals(targetPost))
-                        .collect(Collectors.toList())
-        );
-        List<Comment> foundComments = commentService.allCommentsForPost(targetPost);
-
-        assertEquals(1, foundComments.size());
-        assertEquals(commentList.get(0), foundComments.get(0));
-    }
-
     @Test
     public void verifyComment() {
         assertEquals(commentList.get(2), commentService.verifyComment(3));
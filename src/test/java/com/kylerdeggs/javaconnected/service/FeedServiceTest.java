@@ -0,0 +1,139 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.Cursor;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the FeedService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FeedServiceTest {
+    private static final int CAPACITY = 600;
+
+    @Mock
+    private PostRepository mockPostRepository;
+
+    private FeedService feedService;
+
+    private final LocalDateTime startTime = LocalDateTime.now();
+
+    @Before
+    public void setUp() {
+        List<PostView> newest = new ArrayList<>();
+
+        for (long id = 10; id >= 1; id--)
+            newest.add(createPost(id));
+        when(mockPostRepository.findPublishedViews(PageRequest.of(0, CAPACITY))).thenReturn(newest);
+        feedService = new FeedService(mockPostRepository, CAPACITY, Duration.ofMinutes(10));
+        feedService.warm();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        feedService.shutdown();
+    }
+
+    @Test
+    public void firstPage() {
+        CursorPage<PostView> page = feedService.page(null, 3).orElseThrow();
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(10, page.getItems().get(0).getId());
+        assertEquals(8, page.getItems().get(2).getId());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    public void pageAfterCursor() {
+        Cursor cursor = Cursor.decode(feedService.page(null, 3).orElseThrow().getNextCursor());
+        CursorPage<PostView> page = feedService.page(cursor, 10).orElseThrow();
+
+        assertEquals(7, page.getItems().size());
+        assertEquals(7, page.getItems().get(0).getId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void appendAndRemove() {
+        feedService.append(createPost(11));
+        feedService.remove(10);
+        List<PostView> items = feedService.page(null, 2).orElseThrow().getItems();
+
+        assertEquals(11, items.get(0).getId());
+        assertEquals(9, items.get(1).getId());
+    }
+
+    @Test
+    public void fallsBackOnceEvicted() {
+        for (long id = 11; id <= CAPACITY + 10; id++)
+            feedService.append(createPost(id));
+        Optional<CursorPage<PostView>> oldestPage = feedService.page(new Cursor(startTime.plusSeconds(12), "12"), 5);
+
+        assertTrue(feedService.page(null, 5).isPresent());
+        assertFalse(oldestPage.isPresent());
+    }
+
+    @Test
+    public void refreshLoadsPostsCreatedByOtherNodes() {
+        when(mockPostRepository.findPublishedViews(PageRequest.of(0, CAPACITY)))
+                .thenReturn(Arrays.asList(createPost(12), createPost(10), createPost(9)));
+        feedService.refresh();
+        List<PostView> items = feedService.page(null, 5).orElseThrow().getItems();
+
+        assertEquals(3, items.size());
+        assertEquals(12, items.get(0).getId());
+        assertEquals(9, items.get(2).getId());
+    }
+
+    @Test
+    public void refreshKeepsChangesMadeWhileLoading() {
+        when(mockPostRepository.findPublishedViews(PageRequest.of(0, CAPACITY))).thenAnswer(invocation -> {
+            List<PostView> newest = Arrays.asList(createPost(11), createPost(10), createPost(9));
+
+            feedService.append(createPost(11));
+            feedService.append(createPost(12));
+            feedService.remove(10);
+            return newest;
+        });
+        feedService.refresh();
+        List<PostView> items = feedService.page(null, 5).orElseThrow().getItems();
+
+        assertEquals(3, items.size());
+        assertEquals(12, items.get(0).getId());
+        assertEquals(11, items.get(1).getId());
+        assertEquals(9, items.get(2).getId());
+    }
+
+    /**
+     * Helper method that creates a post that was created the specified number of seconds after the start time.
+     *
+     * @param id ID of the post and seconds after the start time
+     * @return A post view
+     */
+    private PostView createPost(long id) {
+        return new PostView(id, "Post " + id, false, null, "Caption", 0, 0, null, startTime.plusSeconds(id),
+                "abc123", "John", "Doe");
+    }
+}
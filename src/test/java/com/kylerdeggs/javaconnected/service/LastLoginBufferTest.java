@@ -0,0 +1,97 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the LastLoginBuffer class.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LastLoginBufferTest {
+    private static final LocalDateTime REGISTERED_AT = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LastLoginBuffer lastLoginBuffer;
+
+    @Before
+    public void setUp() {
+        userRepository.deleteAll();
+        userRepository.saveAll(Arrays.asList(
+                new User("abc123", "John", "Doe", null, "johndoe@gmail.com", REGISTERED_AT, REGISTERED_AT),
+                new User("xyz321", "Jane", "Doe", null, "janedoe@gmail.com", REGISTERED_AT, REGISTERED_AT)));
+        lastLoginBuffer = new LastLoginBuffer(userRepository, Caffeine.newBuilder().build(), transactionManager,
+                Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void flushWritesTheLatestSignInOfEachUser() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        lastLoginBuffer.record("abc123", now.minusMinutes(2));
+        lastLoginBuffer.record("abc123", now);
+        lastLoginBuffer.record("abc123", now.minusMinutes(1));
+        lastLoginBuffer.record("xyz321", now.minusMinutes(5));
+
+        assertEquals(2, lastLoginBuffer.flush());
+        assertEquals(now, userRepository.findById("abc123").orElseThrow().getLastLogin());
+        assertEquals(now.minusMinutes(5), userRepository.findById("xyz321").orElseThrow().getLastLogin());
+        assertEquals(0, lastLoginBuffer.flush());
+    }
+
+    @Test
+    public void flushKeepsTheVersionOfTheUsers() {
+        long version = userRepository.findById("abc123").orElseThrow().getVersion();
+        LocalDateTime now = LocalDateTime.now();
+
+        lastLoginBuffer.record("abc123", now);
+        lastLoginBuffer.record("xyz321", now);
+
+        assertEquals(2, lastLoginBuffer.flush());
+        assertEquals(now.truncatedTo(ChronoUnit.SECONDS),
+                userRepository.findById("abc123").orElseThrow().getLastLogin());
+        assertEquals(version, userRepository.findById("abc123").orElseThrow().getVersion());
+    }
+
+    @Test
+    public void flushSkipsUnknownUsers() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        lastLoginBuffer.record("unknown", now);
+        lastLoginBuffer.record("xyz321", now);
+
+        assertEquals(1, lastLoginBuffer.flush());
+        assertEquals(now, userRepository.findById("xyz321").orElseThrow().getLastLogin());
+        assertEquals("Jane", userRepository.findById("xyz321").orElseThrow().getFirstName());
+        assertEquals(0, lastLoginBuffer.flush());
+    }
+}
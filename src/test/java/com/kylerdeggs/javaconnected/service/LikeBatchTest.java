@@ -0,0 +1,170 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
+import com.kylerdeggs.javaconnected.configuration.CacheConfig;
+import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that compare applying likes one message at a time with applying them in coalesced batches.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Import({PostService.class, LikeService.class, UserService.class, FeedService.class, PostIndexService.class,
+        VersionService.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LikeBatchTest {
+    private static final int POSTS = 50;
+    private static final int LIKES = 1000;
+    private static final int BATCH_SIZE = 250;
+    private static final int INITIAL_LIKES = 1000;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostService postService;
+
+    @MockBean
+    private MessageTransport messageTransport;
+
+    @MockBean
+    private PostPartitioner postPartitioner;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    @MockBean
+    private MediaUploadPipeline mediaUploadPipeline;
+
+    @MockBean
+    private AWSConfig aws;
+
+    @Test
+    public void batchedMatchesPerMessageWithFewerStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Post> posts = createPosts();
+        List<PostService.LikeDto> likes = createLikes(posts);
+
+        statistics.clear();
+        applyPerMessage(likes);
+        long perMessageStatements = statistics.getPrepareStatementCount();
+        List<Integer> perMessageCounts = likeCounts(posts);
+
+        resetLikeCounts(posts);
+        statistics.clear();
+        applyBatched(likes);
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(perMessageCounts, likeCounts(posts));
+        assertTrue(perMessageStatements >= LIKES);
+        assertTrue(batchedStatements <= (LIKES / BATCH_SIZE) * (POSTS + 1));
+    }
+
+    private void applyPerMessage(List<PostService.LikeDto> likes) {
+        for (PostService.LikeDto like : likes) {
+            Post post = postService.verifyPost(like.getPostId());
+
+            post.setLikeCount(like.isAddLike() ? post.getLikeCount() + 1 : Math.max(post.getLikeCount() - 1, 0));
+            postRepository.save(post);
+        }
+    }
+
+    private void applyBatched(List<PostService.LikeDto> likes) {
+        for (int from = 0; from < likes.size(); from += BATCH_SIZE) {
+            List<PostService.LikeDto> batch = likes.subList(from, Math.min(from + BATCH_SIZE, likes.size()));
+            LikeDeltas likeDeltas = new LikeDeltas(batch.size());
+
+            batch.forEach(like -> likeDeltas.add(like.getPostId(), like.isAddLike() ? 1 : -1));
+            postService.applyLikes(likeDeltas);
+        }
+    }
+
+    private List<Post> createPosts() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        User author = userRepository.save(new User("benchmark", "John", "Doe", null, "johndoe@gmail.com",
+                currentTime, currentTime));
+        List<Post> posts = new ArrayList<>();
+
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post(author, "Post " + i, false, null, "Caption " + i, true, currentTime);
+
+            post.setLikeCount(INITIAL_LIKES);
+            posts.add(postRepository.save(post));
+        }
+
+        return posts;
+    }
+
+    private void resetLikeCounts(List<Post> posts) {
+        posts.forEach(post -> {
+            Post current = postService.verifyPost(post.getId());
+
+            current.setLikeCount(INITIAL_LIKES);
+            postRepository.save(current);
+        });
+    }
+
+    private List<Integer> likeCounts(List<Post> posts) {
+        List<Integer> likeCounts = new ArrayList<>();
+
+        posts.forEach(post -> likeCounts.add(postService.verifyPost(post.getId()).getLikeCount()));
+
+        return likeCounts;
+    }
+
+    private static List<PostService.LikeDto> createLikes(List<Post> posts) {
+        Random random = new Random(42);
+        List<PostService.LikeDto> likes = new ArrayList<>(LIKES);
+
+        for (int i = 0; i < LIKES; i++)
+            likes.add(new PostService.LikeDto(posts.get(random.nextInt(posts.size())).getId(),
+                    "user" + random.nextInt(1000), random.nextInt(5) != 0));
+
+        return likes;
+    }
+}
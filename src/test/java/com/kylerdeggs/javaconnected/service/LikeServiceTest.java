@@ -0,0 +1,191 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
+import com.kylerdeggs.javaconnected.configuration.CacheConfig;
+import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.PostLikeRepository;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the LikeService class against an in memory database.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+        "cache.likes.maximum-users=2"
+})
+@Import({PostService.class, LikeService.class, UserService.class, FeedService.class, PostIndexService.class,
+        VersionService.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LikeServiceTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @MockBean
+    private MessageTransport messageTransport;
+
+    @MockBean
+    private PostPartitioner postPartitioner;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    @MockBean
+    private MediaUploadPipeline mediaUploadPipeline;
+
+    @MockBean
+    private AWSConfig aws;
+
+    private Post post;
+
+    @Before
+    public void setUp() {
+        postLikeRepository.deleteAll();
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        User author = userRepository.save(new User("author", "John", "Doe", null, "johndoe@gmail.com",
+                currentTime, currentTime));
+
+        post = postRepository.save(new Post(author, "Post", false, null, "Caption", true, currentTime));
+    }
+
+    @Test
+    public void repeatedLikesAreCountedOnce() {
+        applyLikes(like("alice", true), like("alice", true));
+        applyLikes(like("alice", true), like("bob", true));
+
+        assertEquals(2, likeCount());
+        assertTrue(likeService.likedBy(post.getId(), "alice"));
+        assertTrue(likeService.likedBy(post.getId(), "bob"));
+        assertFalse(likeService.likedBy(post.getId(), "carol"));
+
+        applyLikes(like("alice", false), like("alice", false), like("carol", false));
+
+        assertEquals(1, likeCount());
+        assertFalse(likeService.likedBy(post.getId(), "alice"));
+        assertEquals(1, postLikeRepository.count());
+    }
+
+    @Test
+    public void lastRequestOfBatchWins() {
+        LikeDeltas likeDeltas = applyLikes(like("alice", true), like("alice", false), like("bob", false),
+                like("bob", true));
+
+        assertEquals(1, likeDeltas.get(post.getId()));
+        assertEquals(1, likeCount());
+        assertFalse(likeService.likedBy(post.getId(), "alice"));
+        assertTrue(likeService.likedBy(post.getId(), "bob"));
+    }
+
+    @Test
+    public void markLikedFlagsPosts() {
+        applyLikes(like("alice", true));
+        List<PostView> posts = likeService.markLiked(Arrays.asList(PostView.of(post)), "alice");
+
+        assertTrue(posts.get(0).getLikedByMe());
+        assertFalse(likeService.markLiked(posts, "bob").get(0).getLikedByMe());
+        assertNull(PostView.of(post).getLikedByMe());
+    }
+
+    @Test
+    public void markLikedFlagsEveryPostOfAPage() {
+        Post other = postRepository.save(new Post(post.getAuthor(), "Other", false, null, "Caption", true,
+                LocalDateTime.now()));
+
+        applyLikes(like("alice", true), new PostService.LikeDto(other.getId(), "bob", true));
+        List<PostView> posts = likeService.markLiked(Arrays.asList(PostView.of(post), PostView.of(other)), "alice");
+
+        assertTrue(posts.get(0).getLikedByMe());
+        assertFalse(posts.get(1).getLikedByMe());
+        assertTrue(likeService.markLiked(Collections.emptyList(), "alice").isEmpty());
+    }
+
+    @Test
+    public void likersSurviveOrdinalReset() {
+        applyLikes(like("alice", true), like("bob", true), like("carol", true), like("dave", true));
+
+        for (String userId : Arrays.asList("alice", "bob", "carol", "dave"))
+            assertTrue(likeService.likedBy(post.getId(), userId));
+        assertFalse(likeService.likedBy(post.getId(), "erin"));
+
+        applyLikes(like("bob", false));
+
+        assertFalse(likeService.likedBy(post.getId(), "bob"));
+        assertTrue(likeService.likedBy(post.getId(), "dave"));
+    }
+
+    @Test
+    public void ordinalSetSwitchesToBitmap() {
+        UserOrdinalSet likers = new UserOrdinalSet();
+
+        for (int ordinal = 10000; ordinal >= 0; ordinal -= 2)
+            assertTrue(likers.add(ordinal));
+
+        assertFalse(likers.add(5000));
+        assertTrue(likers.contains(10000));
+        assertFalse(likers.contains(9999));
+        assertTrue(likers.remove(0));
+        assertFalse(likers.contains(0));
+        assertEquals(5000, likers.size());
+    }
+
+    private LikeDeltas applyLikes(PostService.LikeDto... likeDtos) {
+        LikeDeltas likeDeltas = new LikeDeltas(likeDtos.length);
+
+        postService.applyLikes(Arrays.asList(likeDtos), likeDeltas);
+
+        return likeDeltas;
+    }
+
+    private PostService.LikeDto like(String userId, boolean addLike) {
+        return new PostService.LikeDto(post.getId(), userId, addLike);
+    }
+
+    private int likeCount() {
+        return postService.verifyPost(post.getId()).getLikeCount();
+    }
+}
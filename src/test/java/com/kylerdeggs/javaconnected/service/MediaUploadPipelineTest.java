@@ -0,0 +1,240 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.apache.tika.mime.MimeTypeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the MediaUploadPipeline class.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+public class MediaUploadPipelineTest {
+    private static final String POST_QUEUE = "post-queue";
+    private static final String MEDIA_LOCATION = "abc123/image.png";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AWSConfig mockAws = mock(AWSConfig.class);
+
+    private final MessageTransport mockMessageTransport = mock(MessageTransport.class);
+
+    private File spoolDirectory;
+
+    private MediaUploadPipeline pipeline;
+
+    @Before
+    public void setUp() throws IOException {
+        spoolDirectory = temporaryFolder.newFolder("spool");
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null)
+            pipeline.shutdown();
+    }
+
+    @Test
+    public void uploadsSpooledMediaAndSendsThePost() throws IOException, MimeTypeException, InterruptedException {
+        ArgumentCaptor<PostDto> sent = ArgumentCaptor.forClass(PostDto.class);
+        ArgumentCaptor<String> uploadId = ArgumentCaptor.forClass(String.class);
+
+        when(mockAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenReturn(MEDIA_LOCATION);
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+
+        verify(mockMessageTransport, timeout(5000).times(1)).send(eq(POST_QUEUE), sent.capture());
+        assertEquals(MEDIA_LOCATION, sent.getValue().getMediaLocation());
+        assertEquals("My post", sent.getValue().getTitle());
+        assertNotNull(sent.getValue().getRequestId());
+        verify(mockAws).processUpload(eq("abc123"), uploadId.capture(), any(Path.class), eq("image/png"));
+        assertEquals(sent.getValue().getRequestId(), uploadId.getValue());
+        awaitEmptySpool();
+    }
+
+    @Test
+    public void retriesFailedUploads() throws IOException, MimeTypeException, InterruptedException {
+        when(mockAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenThrow(new IOException("S3 is unavailable")).thenReturn(MEDIA_LOCATION);
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+
+        verify(mockMessageTransport, timeout(5000).times(1)).send(eq(POST_QUEUE), any(PostDto.class));
+        verify(mockAws, times(2)).processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png"));
+        awaitEmptySpool();
+    }
+
+    @Test
+    public void doesNotUploadAgainWhenSendingFails() throws IOException, MimeTypeException, InterruptedException {
+        when(mockAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenReturn(MEDIA_LOCATION);
+        doThrow(new IllegalStateException("The queue is unavailable")).doNothing()
+                .when(mockMessageTransport).send(eq(POST_QUEUE), any());
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+
+        verify(mockMessageTransport, timeout(5000).times(2)).send(eq(POST_QUEUE), any(PostDto.class));
+        verify(mockAws, times(1)).processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png"));
+        awaitEmptySpool();
+    }
+
+    @Test
+    public void keepsMediaWhenSendingFailsOnEveryAttempt() throws IOException, MimeTypeException,
+            InterruptedException {
+        when(mockAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenReturn(MEDIA_LOCATION);
+        doThrow(new IllegalStateException("The queue is unavailable"))
+                .when(mockMessageTransport).send(eq(POST_QUEUE), any());
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+
+        verify(mockMessageTransport, timeout(5000).times(5)).send(eq(POST_QUEUE), any(PostDto.class));
+        awaitEmptySpool();
+        verify(mockAws, never()).deleteMedia(anyString());
+    }
+
+    @Test
+    public void rejectsPostsWhileTheSpoolIsFull() throws IOException, MimeTypeException {
+        when(mockAws.processUpload(anyString(), anyString(), any(Path.class), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return MEDIA_LOCATION;
+        });
+        pipeline = startPipeline(DataSize.ofBytes(1500));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+
+        try {
+            pipeline.submit(new PostDto("abc123", "My second post", null, "My caption"), media(1024));
+            fail("The second post should have been rejected");
+        } catch (RejectedExecutionException exception) {
+            assertEquals(1024, pipeline.spooledBytes());
+        }
+    }
+
+    @Test
+    public void resumesSpooledUploadsAfterARestart() throws IOException, MimeTypeException, InterruptedException {
+        AWSConfig restartedAws = mock(AWSConfig.class);
+
+        when(mockAws.processUpload(anyString(), anyString(), any(Path.class), anyString()))
+                .thenThrow(new IOException("S3 is down"));
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+        pipeline.shutdown();
+        Files.write(spoolDirectory.toPath().resolve("partial.media"), new byte[16]);
+
+        when(restartedAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenReturn(MEDIA_LOCATION);
+        pipeline = startPipeline(restartedAws, DataSize.ofMegabytes(1));
+
+        assertFalse(Files.exists(spoolDirectory.toPath().resolve("partial.media")));
+        verify(mockMessageTransport, timeout(5000).times(1)).send(eq(POST_QUEUE), any(PostDto.class));
+        awaitEmptySpool();
+    }
+
+    @Test
+    public void resumesWithoutUploadingAgainAfterARestart() throws IOException, MimeTypeException,
+            InterruptedException {
+        AWSConfig restartedAws = mock(AWSConfig.class);
+        AtomicBoolean queueAvailable = new AtomicBoolean();
+        ArgumentCaptor<PostDto> sent = ArgumentCaptor.forClass(PostDto.class);
+
+        when(mockAws.processUpload(eq("abc123"), anyString(), any(Path.class), eq("image/png")))
+                .thenReturn(MEDIA_LOCATION);
+        doAnswer(invocation -> {
+            if (!queueAvailable.get())
+                throw new IllegalStateException("The queue is unavailable");
+            return null;
+        }).when(mockMessageTransport).send(eq(POST_QUEUE), any());
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+        pipeline.submit(new PostDto("abc123", "My post", null, "My caption"), media(1024));
+        verify(mockMessageTransport, timeout(5000).times(1)).send(eq(POST_QUEUE), any(PostDto.class));
+        pipeline.shutdown();
+
+        queueAvailable.set(true);
+        pipeline = startPipeline(restartedAws, DataSize.ofMegabytes(1));
+
+        verify(mockMessageTransport, timeout(5000).atLeast(2)).send(eq(POST_QUEUE), sent.capture());
+        verify(restartedAws, never()).processUpload(anyString(), anyString(), any(Path.class), anyString());
+        verify(mockAws, times(1)).processUpload(anyString(), anyString(), any(Path.class), anyString());
+        assertEquals(MEDIA_LOCATION, sent.getValue().getMediaLocation());
+        assertEquals(sent.getAllValues().get(0).getRequestId(), sent.getValue().getRequestId());
+        awaitEmptySpool();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rejectsUnsupportedMedia() throws IOException, MimeTypeException {
+        when(mockAws.verifyMediaType("application/pdf")).thenThrow(new UnsupportedOperationException(
+                "The media type must be an image or video"));
+        pipeline = startPipeline(DataSize.ofMegabytes(1));
+
+        try {
+            pipeline.submit(new PostDto("abc123", "My post", null, "My caption"),
+                    new MockMultipartFile("media", "file.pdf", "application/pdf", new byte[16]));
+        } finally {
+            verify(mockMessageTransport, after(100).never()).send(anyString(), any());
+            assertEquals(0, pipeline.spooledBytes());
+        }
+    }
+
+    private MediaUploadPipeline startPipeline(DataSize maxSpoolSize) throws IOException {
+        return startPipeline(mockAws, maxSpoolSize);
+    }
+
+    private MediaUploadPipeline startPipeline(AWSConfig aws, DataSize maxSpoolSize) throws IOException {
+        MediaUploadPipeline startedPipeline = new MediaUploadPipeline(aws, mockMessageTransport,
+                spoolDirectory.getPath(), maxSpoolSize, 2, 5, Duration.ofMillis(10), POST_QUEUE);
+
+        startedPipeline.start();
+        return startedPipeline;
+    }
+
+    private static MockMultipartFile media(int size) {
+        return new MockMultipartFile("media", "image.png", "image/png", new byte[size]);
+    }
+
+    private void awaitEmptySpool() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (pipeline.spooledBytes() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        assertEquals(0, pipeline.spooledBytes());
+        assertTrue(spoolDirectory.list() != null && spoolDirectory.list().length == 0);
+    }
+}
@@ -0,0 +1,161 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the MessagePublisher class.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MessagePublisherTest {
+
+    @Mock
+    private RabbitTemplate mockRabbitTemplate;
+
+    @Mock
+    private RabbitOperations mockOperations;
+
+    private final List<CorrelationData> correlations = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch firstBatch = new CountDownLatch(1);
+
+    private MessagePublisher messagePublisher;
+
+    @Before
+    public void setUp() {
+        when(mockRabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            firstBatch.await(5, TimeUnit.SECONDS);
+            return invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(mockOperations);
+        });
+        doAnswer(invocation -> correlations.add(invocation.getArgument(3)))
+                .when(mockOperations).convertAndSend(anyString(), any(Object.class), any(MessagePostProcessor.class),
+                any(CorrelationData.class));
+        messagePublisher = new MessagePublisher(mockRabbitTemplate, 100, 10, Duration.ofSeconds(5));
+        messagePublisher.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        messagePublisher.shutdown();
+    }
+
+    @Test
+    public void confirmsCompleteFutures() throws Exception {
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        CompletableFuture<Void> acked = messagePublisher.publish("post-queue", "post");
+        CompletableFuture<Void> nacked = messagePublisher.publish("like-queue", "like");
+
+        firstBatch.countDown();
+        awaitCorrelations(2);
+        assertFalse(acked.isDone());
+
+        correlations.get(0).getFuture().set(new CorrelationData.Confirm(true, null));
+        correlations.get(1).getFuture().set(new CorrelationData.Confirm(false, "queue full"));
+
+        acked.get(1, TimeUnit.SECONDS);
+        assertTrue(nacked.isCompletedExceptionally());
+        verify(mockOperations).convertAndSend(eq("post-queue"), eq((Object) "post"), postProcessor.capture(),
+                any(CorrelationData.class));
+
+        MessageProperties messageProperties = new MessageProperties();
+
+        messageProperties.setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+        assertEquals(MessageDeliveryMode.PERSISTENT, postProcessor.getValue()
+                .postProcessMessage(new Message(new byte[0], messageProperties)).getMessageProperties()
+                .getDeliveryMode());
+    }
+
+    @Test
+    public void batchesQueuedMessages() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++)
+            futures.add(messagePublisher.publish("like-queue", i));
+        firstBatch.countDown();
+        awaitCorrelations(30);
+        correlations.forEach(correlation -> correlation.getFuture().set(new CorrelationData.Confirm(true, null)));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+        verify(mockRabbitTemplate, atMost(4)).invoke(any());
+    }
+
+    @Test
+    public void failsMessagesThatAreNotConfirmedInTime() throws Exception {
+        MessagePublisher timingOutPublisher = new MessagePublisher(mockRabbitTemplate, 100, 10,
+                Duration.ofMillis(200));
+
+        timingOutPublisher.start();
+        try {
+            CompletableFuture<Void> unconfirmed = timingOutPublisher.publish("post-queue", "post");
+
+            firstBatch.countDown();
+            awaitCorrelations(1);
+            unconfirmed.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof AmqpTimeoutException);
+            return;
+        } finally {
+            timingOutPublisher.shutdown();
+        }
+        throw new AssertionError("The message should have timed out");
+    }
+
+    @Test
+    public void rejectsMessagesAfterShutdown() throws InterruptedException {
+        firstBatch.countDown();
+        messagePublisher.shutdown();
+
+        try {
+            messagePublisher.publish("post-queue", "post").get();
+        } catch (ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof AmqpException);
+            return;
+        }
+        throw new AssertionError("The message should have been rejected");
+    }
+
+    private void awaitCorrelations(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (correlations.size() < count && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(count, correlations.size());
+    }
+}
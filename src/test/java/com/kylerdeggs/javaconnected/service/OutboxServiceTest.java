@@ -0,0 +1,197 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.configuration.BinaryMessageConverter;
+import com.kylerdeggs.javaconnected.domain.OutboxMessage;
+import com.kylerdeggs.javaconnected.domain.ParkedOutboxMessage;
+import com.kylerdeggs.javaconnected.repository.OutboxRepository;
+import com.kylerdeggs.javaconnected.repository.ParkedOutboxRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the OutboxService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxServiceTest {
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ParkedOutboxRepository parkedOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final BinaryMessageConverter messageConverter = new BinaryMessageConverter();
+
+    private final MessagePublisher mockMessagePublisher = mock(MessagePublisher.class);
+
+    private OutboxService outboxService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() {
+        outboxRepository.deleteAll();
+        parkedOutboxRepository.deleteAll();
+        outboxService = new OutboxService(outboxRepository, parkedOutboxRepository, messageConverter,
+                mockMessagePublisher, transactionManager, 100, Duration.ofMillis(10), Duration.ofMillis(40),
+                MAX_ATTEMPTS, Duration.ofMinutes(1));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void relaysMessagesInOrder() {
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+
+        when(mockMessagePublisher.publish(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        enqueue("post-deletion-queue", 1L, 2L, 3L);
+
+        assertEquals(3, outboxService.relayBatch());
+        verify(mockMessagePublisher, times(3)).publish(eq("post-deletion-queue"), messages.capture());
+        assertEquals(Arrays.asList(1L, 2L, 3L), messages.getAllValues().stream().map(messageConverter::fromMessage)
+                .collect(Collectors.toList()));
+        assertEquals(0, outboxRepository.count());
+        assertEquals(0, outboxService.relayBatch());
+    }
+
+    @Test
+    public void retriesFailedMessagesWithoutBlockingTheOthers() throws InterruptedException {
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+
+        failure.completeExceptionally(new AmqpException("The message could not be routed"));
+        when(mockMessagePublisher.publish(eq("like-queue.0"), any())).thenReturn(failure);
+        when(mockMessagePublisher.publish(eq("like-queue.1"), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        enqueue("like-queue.0", 1L);
+        enqueue("like-queue.1", 2L);
+        LocalDateTime beforeRelay = LocalDateTime.now();
+
+        assertEquals(1, outboxService.relayBatch());
+        List<OutboxMessage> remaining = outboxRepository.findAll();
+        assertEquals(1, remaining.size());
+        assertEquals("like-queue.0", remaining.get(0).getRoutingKey());
+        assertEquals(1, remaining.get(0).getAttempts());
+        assertNull(remaining.get(0).getClaimedBy());
+        assertTrue(remaining.get(0).getAvailableAt().isAfter(beforeRelay));
+
+        enqueue("like-queue.1", 3L);
+        assertEquals(1, outboxService.relayBatch());
+
+        for (int relay = 0; relay < 20 && outboxRepository.count() > 0; relay++) {
+            Thread.sleep(50);
+            outboxService.relayBatch();
+        }
+
+        List<ParkedOutboxMessage> parked = parkedOutboxRepository.findAll();
+        assertEquals(0, outboxRepository.count());
+        assertEquals(1, parked.size());
+        assertEquals("like-queue.0", parked.get(0).getRoutingKey());
+        assertEquals(MAX_ATTEMPTS, parked.get(0).getAttempts());
+        assertEquals(1L, messageConverter.decode(parked.get(0).getBody()));
+        verify(mockMessagePublisher, times(MAX_ATTEMPTS)).publish(eq("like-queue.0"), any());
+    }
+
+    @Test
+    public void failedMessageHoldsBackTheLaterMessagesOfItsRoutingKey() throws InterruptedException {
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        List<Object> published = new ArrayList<>();
+
+        failure.completeExceptionally(new AmqpException("The message was not confirmed"));
+        when(mockMessagePublisher.publish(anyString(), any())).thenAnswer(invocation -> {
+            Object payload = messageConverter.fromMessage(invocation.getArgument(1));
+
+            synchronized (published) {
+                published.add(payload);
+                if (payload.equals(1L) && Collections.frequency(published, 1L) == 1)
+                    return failure;
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        enqueue("like.0", 1L, 2L);
+        enqueue("like.1", 3L);
+
+        assertEquals(1, outboxService.relayBatch());
+        assertEquals(Arrays.asList(1L, 3L), published);
+        assertEquals(Arrays.asList(1, 0), outboxRepository.findAll().stream().sorted(
+                Comparator.comparing(OutboxMessage::getId)).map(OutboxMessage::getAttempts)
+                .collect(Collectors.toList()));
+
+        for (int relay = 0; relay < 20 && outboxRepository.count() > 0; relay++) {
+            Thread.sleep(50);
+            outboxService.relayBatch();
+        }
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(Arrays.asList(1L, 3L, 1L, 2L), published);
+        assertEquals(0, parkedOutboxRepository.count());
+    }
+
+    @Test
+    public void skipsMessagesClaimedByAnotherRelay() {
+        when(mockMessagePublisher.publish(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        enqueue("post-queue", 1L);
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findAll().stream().map(OutboxMessage::getId).collect(Collectors.toList());
+
+        transactionTemplate.execute(status -> outboxRepository.claim(ids, "other-relay", now.plusMinutes(1), now));
+        assertEquals(0, outboxService.relayBatch());
+        verify(mockMessagePublisher, never()).publish(anyString(), any());
+
+        transactionTemplate.execute(status -> outboxRepository.claim(ids, "expired-relay", now.minusSeconds(1),
+                now.plusMinutes(2)));
+        assertEquals(1, outboxService.relayBatch());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private void enqueue(String routingKey, Long... payloads) {
+        transactionTemplate.execute(status -> {
+            for (Long payload : payloads)
+                outboxService.enqueue(routingKey, payload);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,322 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
+import com.kylerdeggs.javaconnected.configuration.CacheConfig;
+import com.kylerdeggs.javaconnected.domain.Comment;
+import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.UserRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Query count tests for the PostCommentService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.7.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Import({PostCommentService.class, PostService.class, CommentService.class, UserService.class, FeedService.class,
+        PostIndexService.class, VersionService.class, LikeService.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PostCommentServiceTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostCommentService postCommentService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private VersionService versionService;
+
+    @Autowired
+    private Cache<String, String> tagCache;
+
+    @MockBean
+    private MessageTransport messageTransport;
+
+    @MockBean
+    private PostPartitioner postPartitioner;
+
+    @MockBean
+    private LastLoginBuffer lastLoginBuffer;
+
+    @MockBean
+    private MediaUploadPipeline mediaUploadPipeline;
+
+    @MockBean
+    private AWSConfig aws;
+
+    @SpyBean
+    private FeedService feedService;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+        tagCache.invalidateAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        doReturn(Optional.empty()).when(feedService).page(any(), anyInt());
+    }
+
+    @Test
+    public void postAndCommentPageQueryCount() {
+        createPostsWithComments(5);
+        long smallFeedStatements = countStatements();
+
+        createPostsWithComments(50);
+        long largeFeedStatements = countStatements();
+
+        assertEquals(smallFeedStatements, largeFeedStatements);
+        assertEquals(2, largeFeedStatements);
+    }
+
+    @Test
+    public void postAndCommentPageGroupsComments() {
+        createPostsWithComments(3);
+        CursorPage<PostCommentService.PostCommentDto> firstPage = postCommentService.postAndCommentPage(null, 2);
+        CursorPage<PostCommentService.PostCommentDto> lastPage =
+                postCommentService.postAndCommentPage(firstPage.getNextCursor(), 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(1, lastPage.getItems().size());
+        assertNull(lastPage.getNextCursor());
+        firstPage.getItems().forEach(postComments -> assertEquals(2, postComments.getComments().size()));
+        lastPage.getItems().forEach(postComments -> assertEquals(2, postComments.getComments().size()));
+    }
+
+    @Test
+    public void streamPostsAndComments() {
+        List<PostCommentService.PostCommentDto> streamed = new ArrayList<>();
+
+        createPostsWithComments(4);
+        postCommentService.streamPostsAndComments(streamed::addAll);
+
+        assertEquals(4, streamed.size());
+        streamed.forEach(postComments -> assertEquals(2, postComments.getComments().size()));
+    }
+
+    @Test
+    public void initializeCommentSummaries() {
+        createPostsWithComments(3);
+        postRepository.findAll().forEach(post -> {
+            post.setCommentCount(null);
+            postRepository.save(post);
+        });
+        Post deleted = postRepository.findAll().get(2);
+
+        postService.unpublishPost(deleted);
+        commentService.initializeCommentSummaries();
+
+        postRepository.findAll().forEach(post -> {
+            if (post.getId().equals(deleted.getId()))
+                assertNull(post.getCommentCount());
+            else {
+                assertEquals(2, post.getCommentCount().intValue());
+                assertEquals(2, post.getCommentPreview().size());
+            }
+        });
+    }
+
+    @Test
+    public void unpublishCommentUpdatesCommentSummary() {
+        createPostsWithComments(1);
+        Post post = postRepository.findAll().get(0);
+        List<Comment> comments = commentRepository.findAll();
+
+        commentService.refreshCommentSummary(post);
+        postRepository.save(post);
+        Post updated = commentService.unpublishComment(comments.get(0).getId()).orElseThrow();
+        PostView view = postService.verifyPostView(post.getId());
+
+        assertEquals(1, updated.getCommentCount().intValue());
+        assertEquals(1, view.getCommentCount());
+        assertEquals(1, view.getCommentPreview().size());
+        assertEquals(comments.get(1).getId().longValue(), view.getCommentPreview().get(0).getId());
+        assertFalse(commentRepository.findById(comments.get(0).getId()).get().getPublished());
+        assertNotNull(commentRepository.findById(comments.get(0).getId()).get().getDeletedAt());
+    }
+
+    @Test
+    public void saveCommentsInBatches() {
+        createPostsWithComments(2);
+        List<Post> posts = postRepository.findAll();
+        List<Comment> comments = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            Post post = posts.get(i % 2);
+
+            comments.add(new Comment(post, post.getAuthor(), "Comment " + i, true, LocalDateTime.now()));
+        }
+        commentService.refreshCommentSummary(posts.get(0));
+        commentService.refreshCommentSummary(posts.get(1));
+        postRepository.saveAll(posts);
+        statistics.clear();
+        commentService.saveComments(comments);
+
+        assertEquals(20, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < comments.size() / 2);
+        assertEquals(12, postService.verifyPostView(posts.get(0).getId()).getCommentCount());
+        assertEquals("Comment 18",
+                postService.verifyPostView(posts.get(0).getId()).getCommentPreview().get(0).getCaption());
+        assertEquals("Comment 19",
+                postService.verifyPostView(posts.get(1).getId()).getCommentPreview().get(0).getCaption());
+    }
+
+    @Test
+    public void unpublishPostCascadesToComments() {
+        createPostsWithComments(2);
+        List<Post> posts = postRepository.findAll();
+        Post post = posts.get(0);
+
+        statistics.clear();
+        int commentCount = postService.unpublishPost(post);
+
+        assertEquals(2, commentCount);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertFalse(postRepository.findById(post.getId()).get().getPublished());
+        commentRepository.findAll().forEach(comment ->
+                assertEquals(comment.getPost().getId().equals(post.getId()), !comment.getPublished()));
+        verify(feedService).onPostDeleted(argThat(event -> event.getPostId() == post.getId()
+                && event.getCommentCount() == 2));
+
+        assertEquals(-1, postService.unpublishPost(post));
+        verify(feedService).onPostDeleted(any());
+    }
+
+    @Test
+    public void tagsFollowThePersistedVersions() {
+        createPostsWithComments(2);
+        Post post = postRepository.findAll().get(0);
+        String authorId = post.getAuthor().getId();
+        String postTag;
+        String userTag;
+
+        commentService.refreshCommentSummary(post);
+        postRepository.save(post);
+        postTag = versionService.postTag(post.getId());
+        userTag = versionService.userTag(authorId);
+        statistics.clear();
+        assertEquals(postTag, versionService.postTag(post.getId()));
+        assertEquals(userTag, versionService.userTag(authorId));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        commentService.unpublishComment(commentRepository.findAll().stream()
+                .filter(comment -> comment.getPost().getId().equals(post.getId())).findFirst().get().getId());
+        assertEquals(postTag, versionService.postTag(post.getId()));
+        tagCache.invalidateAll();
+        assertNotEquals(postTag, versionService.postTag(post.getId()));
+        assertNotEquals(userTag, versionService.userTag(authorId));
+
+        User author = userRepository.findById(authorId).get();
+
+        userTag = versionService.userTag(authorId);
+        author.setEmail("changed@example.com");
+        userRepository.save(author);
+        tagCache.invalidateAll();
+        assertEquals(userTag, versionService.userTag(authorId));
+
+        author = userRepository.findById(authorId).get();
+        author.setFirstName("Changed");
+        userRepository.save(author);
+        tagCache.invalidateAll();
+        assertNotEquals(userTag, versionService.userTag(authorId));
+
+        userTag = versionService.userTag(authorId);
+        postService.unpublishPost(post);
+        tagCache.invalidateAll();
+        assertNull(versionService.postTag(post.getId()));
+        assertNotEquals(userTag, versionService.userTag(authorId));
+        assertNull(versionService.userTag("unknown"));
+    }
+
+    /**
+     * Helper method that counts the SQL statements used to build the feed of posts and comments.
+     *
+     * @return Number of prepared SQL statements
+     */
+    private long countStatements() {
+        statistics.clear();
+        postCommentService.postAndCommentPage(null, CursorPage.MAX_SIZE);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Helper method that creates posts with two comments each that are written by different users.
+     *
+     * @param count Number of posts to create
+     */
+    private void createPostsWithComments(int count) {
+        LocalDateTime currentTime = LocalDateTime.now();
+
+        for (int i = 0; i < count; i++) {
+            User author = userRepository.save(new User("user" + userRepository.count(), "John", "Doe",
+                    null, "johndoe@gmail.com", currentTime, currentTime));
+            Post post = postRepository.save(new Post(author, "Post " + i, false, null,
+                    "Caption " + i, true, currentTime));
+
+            commentRepository.save(new Comment(post, author, "My comment", true, currentTime));
+            commentRepository.save(new Comment(post, author, "Another comment", true, currentTime));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the PostIndexService class.
+ *
+ * @author Kyler Deggs
+ * @version 2.0.0
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PostIndexServiceTest {
+
+    @Mock
+    private PostRepository mockPostRepository;
+
+    private PostIndexService postIndexService;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        when(mockPostRepository.findPublishedIdsAfter(0, PageRequest.of(0, 10000)))
+                .thenReturn(Arrays.asList(1L, 2L, 64L, 70000L));
+        postIndexService = new PostIndexService(mockPostRepository, Duration.ofHours(1));
+        postIndexService.warm();
+        postIndexService.shutdown();
+    }
+
+    @Test
+    public void contains() {
+        assertTrue(postIndexService.contains(1));
+        assertTrue(postIndexService.contains(64));
+        assertTrue(postIndexService.contains(70000));
+        assertFalse(postIndexService.contains(3));
+        assertFalse(postIndexService.contains(65));
+        assertFalse(postIndexService.contains(70001));
+    }
+
+    @Test
+    public void refreshPicksUpChangesFromOtherNodes() {
+        when(mockPostRepository.findPublishedIdsCreatedSince(any(LocalDateTime.class)))
+                .thenReturn(Arrays.asList(3L, 80000L));
+        when(mockPostRepository.findIdsDeletedSince(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(64L));
+
+        assertEquals(3, postIndexService.refresh());
+        assertTrue(postIndexService.contains(3));
+        assertTrue(postIndexService.contains(80000));
+        assertFalse(postIndexService.contains(64));
+    }
+
+    @Test
+    public void addAndRemove() {
+        postIndexService.add(3);
+        postIndexService.remove(64);
+
+        assertTrue(postIndexService.contains(3));
+        assertFalse(postIndexService.contains(64));
+    }
+}
@@ -0,0 +1,60 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the PostPartitioner class.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class PostPartitionerTest {
+    private static final int POSTS = 100000;
+
+    @Test
+    public void spreadsPostsEvenly() {
+        PostPartitioner postPartitioner = new PostPartitioner(8);
+        int[] counts = new int[8];
+
+        for (long postId = 1; postId <= POSTS; postId++)
+            counts[postPartitioner.partition(postId)]++;
+
+        for (int count : counts)
+            assertTrue(Math.abs(count - POSTS / 8) < POSTS / 80);
+    }
+
+    @Test
+    public void addingPartitionMovesFewPosts() {
+        PostPartitioner fourPartitions = new PostPartitioner(4);
+        PostPartitioner fivePartitions = new PostPartitioner(5);
+        int moved = 0;
+
+        for (long postId = 1; postId <= POSTS; postId++) {
+            int before = fourPartitions.partition(postId);
+            int after = fivePartitions.partition(postId);
+
+            if (before != after) {
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+
+        assertTrue(Math.abs(moved - POSTS / 5) < POSTS / 50);
+    }
+
+    @Test
+    public void queueNameContainsPartition() {
+        PostPartitioner postPartitioner = new PostPartitioner(4);
+
+        assertEquals("like-queue." + postPartitioner.partition(42), postPartitioner.queueName("like-queue", 42));
+        assertEquals(postPartitioner.queueName("like-queue", 42), postPartitioner.queueName("like-queue", 42));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroPartitions() {
+        new PostPartitioner(0);
+    }
+}
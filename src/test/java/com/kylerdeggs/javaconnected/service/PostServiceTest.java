@@ -1,30 +1,44 @@
 package com.kylerdeggs.javaconnected.service;
 
+import com.kylerdeggs.javaconnected.configuration.AWSConfig;
 import com.kylerdeggs.javaconnected.domain.Post;
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.Cursor;
+import com.kylerdeggs.javaconnected.web.dtos.CursorPage;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.apache.tika.mime.MimeTypeException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for the PostService class.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.7.0
  */
 @RunWith(MockitoJUnitRunner.class)
 public class PostServiceTest {
@@ -35,6 +49,27 @@ public class PostServiceTest {
     @Mock
     private UserService mockUserService;
 
+    @Mock
+    private FeedService mockFeedService;
+
+    @Mock
+    private PostIndexService mockPostIndexService;
+
+    @Mock
+    private LikeService mockLikeService;
+
+    @Mock
+    private AWSConfig mockAws;
+
+    @Mock
+    private MessageTransport mockMessageTransport;
+
+    @Mock
+    private MediaUploadPipeline mockMediaUploadPipeline;
+
+    @Mock
+    private PostPartitioner mockPostPartitioner;
+
     @InjectMocks
     private PostService postService;
 
@@ -59,29 +94,40 @@ public class PostServiceTest {
         when(mockPostRepository.findByIdAndPublishedTrue(1L)).thenReturn(Optional.ofNullable(postList.get(0)));
     }
 
-    @Test
-    public void allPosts() {
-        when(mockPostRepository.findByPublishedTrue()).thenReturn(postList);
-        List<Post> foundPosts = postService.allPosts();
-
-        assertEquals(3, foundPosts.size());
-        assertEquals(postList.get(0), foundPosts.get(0));
-        assertEquals(postList.get(1), foundPosts.get(1));
-        assertEquals(postList.get(2), foundPosts.get(2));
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
-    public void allPostsByUser() {
-        User targetUser = userList.get(0);
-        when(mockUserService.verifyUser("abc123")).thenReturn(targetUser);
-        when(mockPostRepository.findAllByAuthorAndPublishedTrue(targetUser)).thenReturn(
-                postList.stream().filter(post -> post.getAuthor().equals(targetUser)).collect(Collectors.toList())
-        );
-        List<Post> foundPosts = postService.allPostsByUser("abc123");
-
-        assertEquals(2, foundPosts.size());
-        assertEquals(postList.get(0), foundPosts.get(0));
-        assertEquals(postList.get(1), foundPosts.get(1));
+    public void postPage() {
+        List<PostView> viewList = new ArrayList<>();
+
+        for (int i = 0; i < postList.size(); i++) {
+            Post post = postList.get(i);
+            viewList.add(new PostView(3L - i, post.getTitle(), post.getHasMedia(), post.getMediaLocation(),
+                    post.getCaption(), post.getLikeCount(), 0, null, post.getCreatedAt(), "abc123", "John", "Doe"));
+        }
+        when(mockPostRepository.findPublishedViews(PageRequest.of(0, 3))).thenReturn(viewList);
+        CursorPage<PostView> firstPage = postService.postPage(null, 2);
+        Cursor nextCursor = Cursor.decode(firstPage.getNextCursor());
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(viewList.get(1).getCreatedAt(), nextCursor.getCreatedAt());
+        assertEquals(2L, nextCursor.getNumericId());
+
+        when(mockPostRepository.findPublishedViewsBefore(nextCursor.getCreatedAt(), 2L, PageRequest.of(0, 3)))
+                .thenReturn(viewList.subList(2, 3));
+        CursorPage<PostView> lastPage = postService.postPage(firstPage.getNextCursor(), 2);
+
+        assertEquals(1, lastPage.getItems().size());
+        assertEquals(viewList.get(2), lastPage.getItems().get(0));
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void postPageInvalidCursor() {
+        postService.postPage("not-a-cursor", 2);
     }
 
     @Test
@@ -93,5 +139,117 @@ public class PostServiceTest {
     public void postExists() {
         assertTrue(postService.postExists(1));
         assertFalse(postService.postExists(2));
+        verify(mockPostIndexService).add(1L);
+        verify(mockPostIndexService, never()).add(2L);
+    }
+
+    @Test
+    public void postExistsSkipsDatabaseForIndexedPosts() {
+        when(mockPostIndexService.contains(5L)).thenReturn(true);
+
+        assertTrue(postService.postExists(5));
+        verify(mockPostRepository, never()).findByIdAndPublishedTrue(5L);
+    }
+
+    @Test
+    public void applyLikesSumsChangesPerPost() {
+        LikeDeltas likeDeltas = new LikeDeltas(4);
+        List<PostView> updatedPosts = new ArrayList<>();
+
+        likeDeltas.add(7, 1);
+        likeDeltas.add(3, 1);
+        likeDeltas.add(7, 1);
+        likeDeltas.add(3, -1);
+        likeDeltas.add(9, -1);
+        when(mockPostRepository.addLikes(anyLong(), anyInt())).thenReturn(1);
+        when(mockPostRepository.addLikes(9L, -1)).thenReturn(0);
+        when(mockPostRepository.findPublishedViewsByIds(Arrays.asList(7L))).thenReturn(updatedPosts);
+
+        assertSame(updatedPosts, postService.applyLikes(likeDeltas));
+        verify(mockPostRepository).addLikes(7L, 2);
+        verify(mockPostRepository).addLikes(9L, -1);
+        verify(mockPostRepository, never()).addLikes(eq(3L), anyInt());
+    }
+
+    @Test
+    public void processPostVerifiesUploadedMediaWithoutClaimingIt() throws IOException, MimeTypeException {
+        PostDto postDto = new PostDto("abc123", "My post", "abc123/2021-01-01T00:00-abc123.png", "My caption");
+
+        signIn("abc123");
+        postService.processPost(postDto, null);
+
+        verify(mockAws, times(1)).verifyUpload("abc123", "abc123/2021-01-01T00:00-abc123.png");
+        verify(mockAws, never()).claimUpload(any());
+        verify(mockMessageTransport, times(1)).send(any(), eq(postDto));
+    }
+
+    @Test
+    public void processPostRejectsMediaOfAnotherPost() throws IOException, MimeTypeException {
+        PostDto postDto = new PostDto("abc123", "My post", "abc123/used.png", "My caption");
+
+        signIn("abc123");
+        when(mockPostRepository.existsByMediaLocation("abc123/used.png")).thenReturn(true);
+
+        try {
+            postService.processPost(postDto, null);
+            fail("The post should have been rejected");
+        } catch (IllegalArgumentException exception) {
+            verify(mockMessageTransport, never()).send(any(), any());
+            verify(mockAws, never()).claimUpload(any());
+            verify(mockAws, never()).deleteMedia(any());
+        }
+    }
+
+    @Test
+    public void processPostRejectsMissingMedia() throws IOException, MimeTypeException {
+        PostDto postDto = new PostDto("abc123", "My post", "abc123/missing.png", "My caption");
+
+        signIn("abc123");
+        doThrow(new NoSuchElementException("Media at abc123/missing.png does not exist")).when(mockAws)
+                .verifyUpload("abc123", "abc123/missing.png");
+
+        try {
+            postService.processPost(postDto, null);
+            fail("The post should have been rejected");
+        } catch (NoSuchElementException exception) {
+            verify(mockMessageTransport, never()).send(any(), any());
+            verify(mockAws, never()).deleteMedia(any());
+        }
+    }
+
+    @Test
+    public void processPostSpoolsMedia() throws IOException, MimeTypeException {
+        PostDto postDto = new PostDto("abc123", "My post", null, "My caption");
+        MockMultipartFile media = new MockMultipartFile("media", "image.png", "image/png", new byte[16]);
+
+        signIn("abc123");
+        postService.processPost(postDto, media);
+
+        verify(mockMediaUploadPipeline, times(1)).submit(postDto, media);
+        verify(mockMessageTransport, never()).send(any(), any());
+    }
+
+    /**
+     * Helper method that authenticates the current thread as a user.
+     *
+     * @param userId ID of the user
+     */
+    @Test
+    public void processLikeIsSentEvenIfTheLikeIsHeld() {
+        signIn("abc123");
+        lenient().when(mockLikeService.likedBy(1L, "abc123")).thenReturn(true);
+        when(mockPostPartitioner.queueName(any(), eq(1L))).thenReturn("like.0");
+        postService.processLike(1L, true);
+
+        verify(mockMessageTransport, times(1)).send(eq("like.0"), any(PostService.LikeDto.class));
+    }
+
+    private void signIn(String userId) {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").claim("uid", userId).build();
+        User user = new User(userId, "John", "Doe", null, "johndoe@gmail.com", LocalDateTime.now(),
+                LocalDateTime.now());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(jwt, null));
+        when(mockUserService.verifyUser(userId)).thenReturn(user);
     }
 }
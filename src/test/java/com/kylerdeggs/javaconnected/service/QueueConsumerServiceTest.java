@@ -0,0 +1,208 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.domain.Post;
+import com.kylerdeggs.javaconnected.domain.User;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import com.kylerdeggs.javaconnected.web.dtos.PostDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the QueueConsumerService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.3.0
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QueueConsumerServiceTest {
+
+    @Mock
+    private PostService mockPostService;
+
+    @Mock
+    private CommentService mockCommentService;
+
+    @Mock
+    private UserService mockUserService;
+
+    @Mock
+    private FeedService mockFeedService;
+
+    @Mock
+    private PostIndexService mockPostIndexService;
+
+    @Mock
+    private TrendingService mockTrendingService;
+
+    @Mock
+    private SearchService mockSearchService;
+
+    @Mock
+    private MessageTransport mockMessageTransport;
+
+    private QueueConsumerService queueConsumerService;
+
+    private final User author = new User("author", "First", "Last", null, "author@test.com", LocalDateTime.now(),
+            LocalDateTime.now());
+
+    @Before
+    public void setUp() {
+        queueConsumerService = new QueueConsumerService(mockPostService, mockCommentService, mockUserService,
+                mockFeedService, mockPostIndexService, mockTrendingService, mockSearchService,
+                new PostPartitioner(1), mockMessageTransport);
+        ReflectionTestUtils.setField(queueConsumerService, "postQueueName", "post");
+        ReflectionTestUtils.setField(queueConsumerService, "postDeletionQueueName", "post-delete");
+        ReflectionTestUtils.setField(queueConsumerService, "commentDeletionQueueName", "comment-delete");
+        ReflectionTestUtils.setField(queueConsumerService, "commentQueueName", "comment");
+        ReflectionTestUtils.setField(queueConsumerService, "likeQueueName", "like");
+        queueConsumerService.subscribe();
+    }
+
+    @Test
+    public void postCreatorDropsPostsThatDoNotFitTheColumns() {
+        when(mockUserService.verifyUser("author")).thenReturn(author);
+        doAnswer(invocation -> {
+            invocation.<List<Post>>getArgument(0).forEach(post -> post.setId(1L));
+            return null;
+        }).when(mockPostService).savePosts(anyList());
+
+        this.<PostDto>consumer("post").accept(Arrays.asList(new PostDto("author", "Title", null, "Caption"),
+                new PostDto("author", "T".repeat(Post.TITLE_LENGTH + 1), null, "Caption"),
+                new PostDto("author", null, null, "Caption")));
+
+        ArgumentCaptor<List<Post>> saved = postsCaptor();
+        verify(mockPostService).savePosts(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals("Title", saved.getValue().get(0).getTitle());
+    }
+
+    @Test
+    public void postCreatorDropsPostsOfUsedRequests() {
+        PostDto used = new PostDto("author", "Used", null, "Caption");
+        PostDto first = new PostDto("author", "First", null, "Caption");
+        PostDto repeated = new PostDto("author", "Repeated", null, "Caption");
+
+        used.setRequestId("used");
+        first.setRequestId("new");
+        repeated.setRequestId("new");
+        when(mockUserService.verifyUser("author")).thenReturn(author);
+        when(mockPostService.usedRequestIds(Set.of("used", "new"))).thenReturn(Set.of("used"));
+        doAnswer(invocation -> {
+            invocation.<List<Post>>getArgument(0).forEach(post -> post.setId(1L));
+            return null;
+        }).when(mockPostService).savePosts(anyList());
+
+        this.<PostDto>consumer("post").accept(Arrays.asList(used, first, repeated));
+
+        ArgumentCaptor<List<Post>> saved = postsCaptor();
+        verify(mockPostService).savePosts(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals("First", saved.getValue().get(0).getTitle());
+        assertEquals("new", saved.getValue().get(0).getRequestId());
+    }
+
+    @Test
+    public void postCreatorClaimsMediaAfterThePostsAreSaved() {
+        when(mockUserService.verifyUser("author")).thenReturn(author);
+        doAnswer(invocation -> {
+            invocation.<List<Post>>getArgument(0).forEach(post -> post.setId(1L));
+            return null;
+        }).when(mockPostService).savePosts(anyList());
+        doThrow(new IllegalStateException("S3 is unavailable")).when(mockPostService).claimMedia("author/b.png");
+
+        this.<PostDto>consumer("post").accept(Arrays.asList(new PostDto("author", "Text", null, "Caption"),
+                new PostDto("author", "Image", "author/a.png", "Caption"),
+                new PostDto("author", "Image", "author/b.png", "Caption")));
+
+        InOrder inOrder = inOrder(mockPostService);
+        inOrder.verify(mockPostService).savePosts(anyList());
+        inOrder.verify(mockPostService).claimMedia("author/a.png");
+        inOrder.verify(mockPostService).claimMedia("author/b.png");
+        verify(mockPostService, times(2)).claimMedia(anyString());
+        verify(mockFeedService, times(3)).append(any(PostView.class));
+    }
+
+    @Test
+    public void postCreatorSavesOneByOneWhenTheBatchIsRejected() {
+        AtomicLong ids = new AtomicLong();
+
+        when(mockUserService.verifyUser("author")).thenReturn(author);
+        doAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+
+            posts.forEach(post -> post.setId(ids.incrementAndGet()));
+            if (posts.stream().anyMatch(post -> post.getTitle().equals("Rejected")))
+                throw new DataIntegrityViolationException("rejected");
+            return null;
+        }).when(mockPostService).savePosts(anyList());
+
+        this.<PostDto>consumer("post").accept(Arrays.asList(new PostDto("author", "First", null, "Caption"),
+                new PostDto("author", "Rejected", null, "Caption"),
+                new PostDto("author", "Second", null, "Caption")));
+
+        ArgumentCaptor<PostView> appended = ArgumentCaptor.forClass(PostView.class);
+        verify(mockPostService, times(4)).savePosts(anyList());
+        verify(mockFeedService, times(2)).append(appended.capture());
+        assertEquals("First", appended.getAllValues().get(0).getTitle());
+        assertEquals("Second", appended.getAllValues().get(1).getTitle());
+        assertEquals(4L, (long) appended.getAllValues().get(0).getId());
+        assertEquals(6L, (long) appended.getAllValues().get(1).getId());
+    }
+
+    @Test
+    public void likeModifierAppliesOneByOneWhenTheBatchIsRejected() {
+        Post post = new Post(author, "Title", false, null, "Caption", true, LocalDateTime.now());
+        PostView view;
+
+        post.setId(1L);
+        view = PostView.of(post);
+        when(mockPostService.applyLikes(anyList(), any(LikeDeltas.class))).thenAnswer(invocation -> {
+            List<PostService.LikeDto> likes = invocation.getArgument(0);
+            LikeDeltas deltas = invocation.getArgument(1);
+
+            likes.forEach(like -> deltas.add(like.getPostId(), 1));
+            if (likes.stream().anyMatch(like -> like.getUserId().equals("rejected")))
+                throw new DataIntegrityViolationException("rejected");
+            return Collections.singletonList(view);
+        });
+
+        this.<PostService.LikeDto>consumer("like.0").accept(Arrays.asList(new PostService.LikeDto(1, "a", true),
+                new PostService.LikeDto(1, "rejected", true), new PostService.LikeDto(1, "b", true)));
+
+        verify(mockPostService, times(4)).applyLikes(anyList(), any(LikeDeltas.class));
+        verify(mockFeedService).replace(view);
+        verify(mockTrendingService).recordLikes(view, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Consumer<List<T>> consumer(String queueName) {
+        ArgumentCaptor<Consumer<List<T>>> consumer = ArgumentCaptor.forClass(Consumer.class);
+
+        verify(mockMessageTransport).subscribe(eq(queueName), consumer.capture());
+        return consumer.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<Post>> postsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.kylerdeggs.javaconnected.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the RingBuffer class.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class RingBufferTest {
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 10000;
+
+    @Test
+    public void deliversMessagesInOrderWithEveryWaitStrategy() throws InterruptedException {
+        for (String waitStrategy : Arrays.asList("blocking", "sleeping", "yielding", "busy-spin")) {
+            List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+            RingBuffer<Integer> ringBuffer = new RingBuffer<>("test-" + waitStrategy, 8,
+                    WaitStrategy.of(waitStrategy), 4, received::addAll);
+
+            for (int i = 0; i < 100; i++)
+                ringBuffer.publish(i);
+            ringBuffer.close();
+
+            assertEquals(waitStrategy, IntStream.range(0, 100).boxed().collect(Collectors.toList()), received);
+        }
+    }
+
+    @Test
+    public void batchesAvailableMessages() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>("test-batches", 16, WaitStrategy.of("blocking"), 5,
+                batch -> {
+                    batches.add(batch);
+                    blocked.countDown();
+                    awaitQuietly(release);
+                });
+
+        ringBuffer.publish(0);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 12; i++)
+            ringBuffer.publish(i);
+        release.countDown();
+        ringBuffer.close();
+
+        assertEquals(Arrays.asList(Collections.singletonList(0), Arrays.asList(1, 2, 3, 4, 5),
+                Arrays.asList(6, 7, 8, 9, 10), Arrays.asList(11, 12)), batches);
+    }
+
+    @Test
+    public void keepsTheOrderOfEveryProducer() throws InterruptedException {
+        List<Integer> received = new ArrayList<>();
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>("test-producers", 64, WaitStrategy.of("yielding"), 16,
+                received::addAll);
+        List<Thread> producers = new ArrayList<>();
+
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            int offset = producer * MESSAGES_PER_PRODUCER;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++)
+                    ringBuffer.publish(offset + i);
+            });
+
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread producer : producers)
+            producer.join();
+        ringBuffer.close();
+
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, received.size());
+        int[] last = new int[PRODUCERS];
+        Arrays.fill(last, -1);
+        for (int message : received) {
+            int producer = message / MESSAGES_PER_PRODUCER;
+
+            assertTrue(message % MESSAGES_PER_PRODUCER > last[producer]);
+            last[producer] = message % MESSAGES_PER_PRODUCER;
+        }
+    }
+
+    @Test
+    public void continuesAfterAFailedBatch() throws InterruptedException {
+        List<Integer> received = new ArrayList<>();
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>("test-failure", 8, WaitStrategy.of("blocking"), 1,
+                batch -> {
+                    if (batch.contains(1))
+                        throw new IllegalStateException("The message could not be processed");
+                    received.addAll(batch);
+                });
+
+        for (int i = 0; i < 3; i++)
+            ringBuffer.publish(i);
+        ringBuffer.close();
+
+        assertEquals(Arrays.asList(0, 2), received);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBufferSizesThatAreNotAPowerOfTwo() {
+        new RingBuffer<Integer>("test-size", 12, WaitStrategy.of("blocking"), 1, batch -> {
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsMessagesAfterClosing() throws InterruptedException {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>("test-closed", 8, WaitStrategy.of("blocking"), 1,
+                batch -> {
+                });
+
+        ringBuffer.close();
+        ringBuffer.publish(0);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
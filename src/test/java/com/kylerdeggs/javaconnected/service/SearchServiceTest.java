@@ -0,0 +1,173 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the SearchService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.2.0
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private PostRepository mockPostRepository;
+
+    private final Map<Long, PostView> posts = new HashMap<>();
+
+    private String indexPath;
+
+    @Before
+    public void setUp() {
+        indexPath = folder.getRoot().toPath().resolve("search-index.bin").toString();
+        when(mockPostRepository.findPublishedViewsCreatedAfter(any(LocalDateTime.class), anyLong(),
+                any(PageRequest.class))).thenReturn(Collections.emptyList());
+        lenient().when(mockPostRepository.findPublishedViewsByIds(anyCollection())).thenAnswer(invocation ->
+                ((Collection<?>) invocation.getArgument(0)).stream().map(posts::get).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void searchRanksByRelevance() {
+        SearchService searchService = createService();
+
+        searchService.add(createPost(1, "Weekend", "Went hiking in the mountains"));
+        searchService.add(createPost(2, "Mountain hiking", "Hiking up the tallest mountain, hiking all day"));
+        searchService.add(createPost(3, "Dinner", "Cooked pasta tonight"));
+
+        assertEquals(List.of(2L, 1L), ids(searchService.search("Hiking!", 10)));
+        assertEquals(Collections.singletonList(3L), ids(searchService.search("pasta", 10)));
+        assertTrue(searchService.search("nothing", 10).isEmpty());
+    }
+
+    @Test
+    public void removedPostIsNotReturned() {
+        SearchService searchService = createService();
+
+        searchService.add(createPost(1, "Hello", "First post"));
+        searchService.add(createPost(2, "Hello again", "Second post"));
+        searchService.remove(1);
+
+        assertEquals(Collections.singletonList(2L), ids(searchService.search("hello", 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void searchWithoutWords() {
+        createService().search(" ?! ", 10);
+    }
+
+    @Test
+    public void indexIsReloadedFromDisk() throws Exception {
+        SearchService searchService = createService();
+        LocalDateTime newest = LocalDateTime.now().minusHours(1);
+
+        searchService.add(createPost(1, "Hello", "First post", newest.minusMinutes(2)));
+        searchService.add(createPost(2, "Hello again", "Second post", newest.minusMinutes(1)));
+        searchService.add(createPost(3, "Goodbye", "Last post", newest));
+        searchService.remove(2);
+        searchService.persist();
+
+        PostView newPost = createPost(4, "Hello there", "Created while the application was stopped",
+                newest.minusMinutes(1));
+
+        when(mockPostRepository.findIdsDeletedSince(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(1L));
+        when(mockPostRepository.findPublishedViewsCreatedAfter(eq(newest.minusMinutes(5)), eq(0L),
+                any(PageRequest.class))).thenReturn(List.of(posts.get(3L), newPost));
+
+        SearchService reloaded = createService();
+
+        verify(mockPostRepository).findPublishedViewsCreatedAfter(eq(newest.minusMinutes(5)), eq(0L),
+                any(PageRequest.class));
+        assertEquals(List.of(4L), ids(reloaded.search("hello", 10)));
+        assertEquals(List.of(3L), ids(reloaded.search("goodbye", 10)));
+    }
+
+    @Test
+    public void indexIsPersistedPeriodically() throws Exception {
+        SearchService searchService = new SearchService(mockPostRepository, indexPath, Duration.ofMillis(10),
+                Duration.ofHours(1));
+
+        searchService.warm();
+        searchService.add(createPost(1, "Hello", "First post"));
+        for (int attempt = 0; attempt < 100 && !Files.exists(Paths.get(indexPath)); attempt++)
+            Thread.sleep(10);
+        searchService.shutdown();
+
+        assertTrue(Files.exists(Paths.get(indexPath)));
+        assertEquals(List.of(1L), ids(createService().search("hello", 10)));
+    }
+
+    @Test
+    public void refreshPicksUpChangesFromOtherNodes() {
+        SearchService searchService = createService();
+        LocalDateTime newest = LocalDateTime.now().minusMinutes(1);
+
+        searchService.add(createPost(1, "Hello", "First post", newest.minusMinutes(1)));
+        searchService.add(createPost(2, "Hello again", "Second post", newest));
+
+        PostView otherNodePost = createPost(3, "Hello there", "Created through another node", newest);
+
+        when(mockPostRepository.findIdsDeletedSince(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(1L));
+        when(mockPostRepository.findPublishedViewsCreatedAfter(eq(newest.minusMinutes(5)), eq(0L),
+                any(PageRequest.class))).thenReturn(List.of(posts.get(2L), otherNodePost));
+
+        assertEquals(2, searchService.refresh());
+        assertEquals(List.of(2L, 3L), ids(searchService.search("hello", 10)).stream().sorted()
+                .collect(Collectors.toList()));
+        assertEquals(0, searchService.refresh());
+    }
+
+    private SearchService createService() {
+        SearchService searchService = new SearchService(mockPostRepository, indexPath, Duration.ofHours(1),
+                Duration.ofHours(1));
+
+        searchService.warm();
+
+        return searchService;
+    }
+
+    private PostView createPost(long id, String title, String caption) {
+        return createPost(id, title, caption, LocalDateTime.now());
+    }
+
+    private PostView createPost(long id, String title, String caption, LocalDateTime createdAt) {
+        PostView post = new PostView(id, title, false, null, caption, 0, 0, null, createdAt,
+                "abc123", "John", "Doe");
+
+        posts.put(id, post);
+
+        return post;
+    }
+
+    private static List<Long> ids(List<PostView> posts) {
+        return posts.stream().map(PostView::getId).collect(Collectors.toList());
+    }
+}
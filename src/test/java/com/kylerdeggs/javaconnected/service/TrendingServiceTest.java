@@ -0,0 +1,143 @@
+package com.kylerdeggs.javaconnected.service;
+
+import com.kylerdeggs.javaconnected.repository.CommentRepository;
+import com.kylerdeggs.javaconnected.repository.PostLikeRepository;
+import com.kylerdeggs.javaconnected.repository.PostRepository;
+import com.kylerdeggs.javaconnected.repository.projections.EngagementCount;
+import com.kylerdeggs.javaconnected.repository.projections.PostView;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the TrendingService class.
+ *
+ * @author Kyler Deggs
+ * @version 1.1.0
+ */
+public class TrendingServiceTest {
+    private static final Duration HALF_LIFE = Duration.ofHours(1);
+
+    private final PostRepository mockPostRepository = mock(PostRepository.class);
+
+    private final PostLikeRepository mockPostLikeRepository = mock(PostLikeRepository.class);
+
+    private final CommentRepository mockCommentRepository = mock(CommentRepository.class);
+
+    private TrendingService trendingService;
+
+    private long now;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        trendingService = new TrendingService(mockPostRepository, mockPostLikeRepository, mockCommentRepository, 3,
+                HALF_LIFE, Duration.ofMinutes(1), () -> now);
+    }
+
+    @Test
+    public void leaderboardRanksByEngagement() {
+        like(1, 2);
+        like(2, 5);
+        trendingService.recordComment(createPost(3));
+        like(4, 1);
+
+        assertEquals(List.of(2L, 1L, 3L), leaderboardIds());
+    }
+
+    @Test
+    public void olderEngagementDecays() {
+        like(1, 4);
+        now += HALF_LIFE.toMillis() * 3;
+        like(2, 1);
+
+        assertEquals(List.of(2L, 1L), leaderboardIds());
+    }
+
+    @Test
+    public void lowestPostIsEvicted() {
+        like(1, 3);
+        like(2, 3);
+        like(3, 1);
+        like(4, 2);
+
+        assertEquals(List.of(1L, 2L, 4L), leaderboardIds());
+    }
+
+    @Test
+    public void scoresSurviveRescaling() {
+        like(1, 1);
+        now += HALF_LIFE.toMillis() * 100;
+        like(2, 2);
+        like(1, 1);
+
+        assertEquals(List.of(2L, 1L), leaderboardIds());
+    }
+
+    @Test
+    public void removedPostLeavesLeaderboard() {
+        like(1, 2);
+        like(2, 1);
+        trendingService.remove(1);
+
+        assertEquals(Collections.singletonList(2L), leaderboardIds());
+    }
+
+    @Test
+    public void rebuildReplacesScoresWithPersistedEngagement() {
+        now = Instant.parse("2020-06-01T12:00:00Z").toEpochMilli();
+        LocalDateTime end = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
+        LocalDateTime threeHalfLivesAgo = end.minus(HALF_LIFE.multipliedBy(3));
+
+        when(mockPostLikeRepository.countByPostCreatedBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(0);
+            LocalDateTime to = invocation.getArgument(1);
+
+            if (to.equals(end))
+                return List.of(new EngagementCount(1, 1), new EngagementCount(4, 9));
+            if (!from.isAfter(threeHalfLivesAgo) && to.isAfter(threeHalfLivesAgo))
+                return List.of(new EngagementCount(2, 4));
+            return Collections.emptyList();
+        });
+        when(mockCommentRepository.countByPostCreatedBetween(any(), any())).thenAnswer(invocation ->
+                end.equals(invocation.getArgument(1)) ? List.of(new EngagementCount(3, 1))
+                        : Collections.emptyList());
+        when(mockPostRepository.findPublishedViewsByIds(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream().filter(id -> id != 4)
+                        .map(TrendingServiceTest::createPost).collect(Collectors.toList()));
+        like(5, 10);
+
+        assertEquals(4, trendingService.rebuild());
+        assertEquals(List.of(3L, 1L, 2L), leaderboardIds());
+
+        like(2, 2);
+        assertEquals(List.of(2L, 3L, 1L), leaderboardIds());
+    }
+
+    private void like(long postId, int times) {
+        trendingService.recordLikes(createPost(postId), times);
+    }
+
+    private List<Long> leaderboardIds() {
+        return trendingService.leaderboard().stream().map(PostView::getId).collect(Collectors.toList());
+    }
+
+    private static PostView createPost(long id) {
+        return new PostView(id, "Title " + id, false, null, "Caption", 0, 0, null,
+                LocalDateTime.now(), "author", "First", "Last");
+    }
+}
@@ -1,26 +1,41 @@
 package com.kylerdeggs.javaconnected.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kylerdeggs.javaconnected.domain.User;
 import com.kylerdeggs.javaconnected.repository.UserRepository;
+import com.kylerdeggs.javaconnected.web.dtos.UserDto;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the UserService class.
  *
  * @author Kyler Deggs
- * @version 1.0.0
+ * @version 1.5.0
  */
 @RunWith(MockitoJUnitRunner.class)
 public class UserServiceTest {
@@ -28,6 +43,12 @@ public class UserServiceTest {
     @Mock
     private UserRepository mockUserRepository;
 
+    @Spy
+    private Cache<String, User> userCache = Caffeine.newBuilder().maximumSize(10).recordStats().build();
+
+    @Mock
+    private LastLoginBuffer mockLastLoginBuffer;
+
     @InjectMocks
     private UserService userService;
 
@@ -45,22 +66,147 @@ public class UserServiceTest {
     }
 
     @Test
-    public void allUsers() {
-        when(mockUserRepository.findAll()).thenReturn(userList);
-        Iterable<User> foundUsers = userService.allUsers();
-        User nextUser = foundUsers.iterator().next();
-
-        assertEquals(2, ((Collection<User>) foundUsers).size());
-        assertEquals(userList.get(0), nextUser);
-        assertNotEquals(userList.get(1), nextUser);
+    public void verifyUser() {
+        when(mockUserRepository.findById("xyz321")).thenReturn(Optional.ofNullable(userList.get(1)));
+        User foundUser = userService.verifyUser("xyz321");
+
+        assertEquals(userList.get(1), foundUser);
+        assertNotEquals(userList.get(0), foundUser);
     }
 
     @Test
-    public void verifyUser() {
+    public void verifyUserCached() {
         when(mockUserRepository.findById("xyz321")).thenReturn(Optional.ofNullable(userList.get(1)));
+        userService.verifyUser("xyz321");
         User foundUser = userService.verifyUser("xyz321");
 
         assertEquals(userList.get(1), foundUser);
-        assertNotEquals(userList.get(0), foundUser);
+        assertEquals(1, userCache.stats().hitCount());
+        assertEquals(1, userCache.stats().missCount());
+        verify(mockUserRepository, times(1)).findById("xyz321");
+    }
+
+    @Test
+    public void updateUserInvalidatesCache() {
+        when(mockUserRepository.findById("abc123")).thenReturn(Optional.ofNullable(userList.get(0)));
+        userService.verifyUser("abc123");
+        userService.updateUser(new UserDto("abc123", "Johnny", null, null));
+        userService.verifyUser("abc123");
+
+        assertEquals(2, userCache.stats().missCount());
+        verify(mockUserRepository, times(3)).findById("abc123");
+    }
+
+    @Test
+    public void updateSignInIsBuffered() {
+        when(mockUserRepository.findById("abc123")).thenReturn(Optional.ofNullable(userList.get(0)));
+        userService.updateSignIn(new UserDto("abc123", null, null, null));
+
+        verify(mockLastLoginBuffer, times(1)).record(eq("abc123"), any(LocalDateTime.class));
+        verify(mockUserRepository, never()).save(any());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void updateSignInUnknownUser() {
+        userService.updateSignIn(new UserDto("unknown", null, null, null));
+    }
+
+    @Test
+    public void createUsersSavesAllUsersAtOnce() {
+        userService.createUsers(Arrays.asList(new UserDto("abc123", "John", "Doe", "johndoe@gmail.com"),
+                new UserDto("xyz321", "Jane", "Doe", "janedoe@gmail.com")));
+
+        verify(mockUserRepository, times(1)).saveAll(anyList());
+        verify(mockUserRepository, never()).save(any());
+        verify(userCache, times(1)).invalidate("abc123");
+        verify(userCache, times(1)).invalidate("xyz321");
+    }
+
+    @Test
+    public void createUsersSkipsUsersMissingInformation() {
+        ArgumentCaptor<List<User>> created = usersCaptor();
+
+        userService.createUsers(Arrays.asList(new UserDto("abc123", "John", "Doe", "johndoe@gmail.com"),
+                new UserDto("xyz321", "Jane", null, "janedoe@gmail.com")));
+
+        verify(mockUserRepository).saveAll(created.capture());
+        assertEquals(1, created.getValue().size());
+        assertEquals("abc123", created.getValue().get(0).getId());
+        verify(userCache, never()).invalidate("xyz321");
+    }
+
+    @Test
+    public void createUsersSkipsExistingUsers() {
+        ArgumentCaptor<List<User>> created = usersCaptor();
+
+        when(mockUserRepository.findAllById(new HashSet<>(Arrays.asList("abc123", "new456"))))
+                .thenReturn(Collections.singletonList(userList.get(0)));
+        userService.createUsers(Arrays.asList(new UserDto("abc123", "John", "Doe", "johndoe@gmail.com"),
+                new UserDto("new456", "Jim", "Doe", "jimdoe@gmail.com"),
+                new UserDto("new456", "Jim", "Doe", "jimdoe@gmail.com")));
+
+        verify(mockUserRepository).saveAll(created.capture());
+        assertEquals(1, created.getValue().size());
+        assertEquals("new456", created.getValue().get(0).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createUserMissingInformation() {
+        userService.createUser(new UserDto("xyz321", "Jane", null, "janedoe@gmail.com"));
+    }
+
+    @Test
+    public void updateUsersAppliesEveryUpdate() {
+        when(mockUserRepository.findAllById(new HashSet<>(Arrays.asList("abc123", "xyz321")))).thenReturn(userList);
+        userService.updateUsers(Arrays.asList(new UserDto("abc123", "Johnny", null, null),
+                new UserDto("xyz321", null, "Smith", null), new UserDto("abc123", null, null, "john@gmail.com")));
+
+        assertEquals("Johnny", userList.get(0).getFirstName());
+        assertEquals("john@gmail.com", userList.get(0).getEmail());
+        assertEquals("Smith", userList.get(1).getLastName());
+        verify(mockUserRepository, times(1)).saveAll(anyCollection());
+        verify(mockUserRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void updateUsersSkipsUnknownUsers() {
+        when(mockUserRepository.findAllById(new HashSet<>(Arrays.asList("abc123", "unknown"))))
+                .thenReturn(Collections.singletonList(userList.get(0)));
+        userService.updateUsers(Arrays.asList(new UserDto("unknown", "John", null, null),
+                new UserDto("abc123", "Johnny", null, null)));
+
+        assertEquals("Johnny", userList.get(0).getFirstName());
+        verify(userCache, times(1)).invalidate("abc123");
+        verify(userCache, never()).invalidate("unknown");
+    }
+
+    @Test
+    public void updateSignInsSkipsUnknownUsers() {
+        when(mockUserRepository.findById("abc123")).thenReturn(Optional.ofNullable(userList.get(0)));
+        userService.updateSignIns(Arrays.asList(new UserDto("unknown", null, null, null),
+                new UserDto("abc123", null, null, null)));
+
+        verify(mockLastLoginBuffer, times(1)).record(eq("abc123"), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void updateUsersInvalidatesAfterCommit() {
+        when(mockUserRepository.findAllById(Collections.singleton("abc123")))
+                .thenReturn(Collections.singletonList(userList.get(0)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.updateUsers(Collections.singletonList(new UserDto("abc123", "Johnny", null, null)));
+
+            verify(userCache, never()).invalidate(anyString());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(userCache, times(1)).invalidate("abc123");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<User>> usersCaptor() {
+        return ArgumentCaptor.forClass(List.class);
     }
 }
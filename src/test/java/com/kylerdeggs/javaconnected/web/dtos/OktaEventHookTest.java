@@ -0,0 +1,54 @@
+package com.kylerdeggs.javaconnected.web.dtos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the OktaEventHook class.
+ *
+ * @author Kyler Deggs
+ * @version 1.0.0
+ */
+public class OktaEventHookTest {
+    private static final String DELIVERY = "{\"eventType\":\"com.okta.event_hook\",\"eventTypeVersion\":\"1.0\","
+            + "\"data\":{\"events\":["
+            + "{\"uuid\":\"1\",\"eventType\":\"user.lifecycle.create\","
+            + "\"actor\":{\"id\":\"0oa1\",\"type\":\"PublicClientApp\",\"displayName\":\"Okta\"},"
+            + "\"target\":[{\"id\":\"00u1\",\"type\":\"User\",\"alternateId\":\"johndoe@gmail.com\","
+            + "\"displayName\":\"John Doe\",\"detailEntry\":null}],\"outcome\":{\"result\":\"SUCCESS\"}},"
+            + "{\"uuid\":\"2\",\"eventType\":\"user.session.start\","
+            + "\"actor\":{\"id\":\"00u2\",\"type\":\"User\",\"alternateId\":\"janedoe@gmail.com\","
+            + "\"displayName\":\"Jane Doe\"},\"target\":null},"
+            + "{\"uuid\":\"3\",\"eventType\":\"group.user_membership.add\","
+            + "\"actor\":{\"id\":\"0oa1\",\"type\":\"PublicClientApp\"},"
+            + "\"target\":{\"id\":\"00g1\",\"type\":\"UserGroup\"}}"
+            + "]}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void bindsEveryEvent() throws IOException {
+        List<OktaEventHook.Event> events = objectMapper.readValue(DELIVERY, OktaEventHook.class).getEvents();
+
+        assertEquals(3, events.size());
+        assertEquals("user.lifecycle.create", events.get(0).getEventType());
+        assertEquals("00u1", events.get(0).user().getId());
+        assertEquals("johndoe@gmail.com", events.get(0).user().getAlternateId());
+        assertEquals("John Doe", events.get(0).user().getDisplayName());
+        assertEquals("00u2", events.get(1).user().getId());
+        assertNull(events.get(2).user());
+    }
+
+    @Test
+    public void bindsEmptyDeliveries() throws IOException {
+        assertTrue(objectMapper.readValue("{\"eventType\":\"com.okta.event_hook\"}", OktaEventHook.class)
+                .getEvents().isEmpty());
+    }
+}